@@ -3,9 +3,11 @@ package com.campus.news;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @MapperScan("com.campus.news.mapper")
+@EnableScheduling
 public class CampusNewsApplication {
     public static void main(String[] args) {
         SpringApplication.run(CampusNewsApplication.class, args);
@@ -1,8 +1,18 @@
 package com.campus.news.agent.tools;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.campus.news.entity.*;
 import com.campus.news.mapper.*;
+import com.campus.news.security.JwtTokenService;
+import com.campus.news.service.CounterService;
+import com.campus.news.service.FollowGraphService;
+import com.campus.news.service.FollowService;
+import com.campus.news.service.InteractionStateService;
+import com.campus.news.service.TimelineService;
+import com.campus.news.service.TrendingService;
+import com.campus.news.service.UnreadCountService;
+import com.campus.news.service.UserCacheService;
 import dev.langchain4j.agent.tool.Tool;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -32,6 +42,15 @@ public class NewsAgentTools {
     private final NotificationMapper notificationMapper;
     private final RoleMapper roleMapper;
     private final UserRoleMapper userRoleMapper;
+    private final UserCacheService userCacheService;
+    private final JwtTokenService jwtTokenService;
+    private final CounterService counterService;
+    private final TrendingService trendingService;
+    private final TimelineService timelineService;
+    private final FollowGraphService followGraphService;
+    private final FollowService followService;
+    private final UnreadCountService unreadCountService;
+    private final InteractionStateService interactionStateService;
 
     /**
      * 搜索文章
@@ -85,16 +104,11 @@ public class NewsAgentTools {
      * @param limit 返回数量
      * @return 热门文章列表
      */
-    @Tool("获取浏览量最高的热门文章排行榜")
+    @Tool("获取近期热度最高的热门文章排行榜")
     public String getHotArticles(int limit) {
         log.info("Agent工具：获取热门文章 - 限制: {}", limit);
         
-        LambdaQueryWrapper<Article> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Article::getStatus, 1)
-               .orderByDesc(Article::getViewCount)
-               .last("LIMIT " + Math.min(limit, 10));
-        
-        List<Article> articles = articleMapper.selectList(wrapper);
+        List<Article> articles = trendingService.getTrendingArticles(Math.min(limit, 10));
         
         StringBuilder result = new StringBuilder("🔥 热门文章排行榜：\n\n");
         for (int i = 0; i < articles.size(); i++) {
@@ -239,11 +253,14 @@ public class NewsAgentTools {
             article.setLikeCount(0);
             article.setCommentCount(0);
             article.setIsApproved(1); // 直接设置为已审核
+            article.setPublishedAt(LocalDateTime.now());
             article.setIsPinned(0);
             article.setCreatedAt(LocalDateTime.now());
             article.setUpdatedAt(LocalDateTime.now());
             
             articleMapper.insert(article);
+            trendingService.addArticle(article);
+            timelineService.onArticlePublished(article);
             
             return "🎉 文章发布成功！\n" +
                    "标题：《" + title + "》\n" +
@@ -472,10 +489,12 @@ public class NewsAgentTools {
             like.setArticleId(articleId);
             like.setUserId(userId);
             articleLikeMapper.insert(like);
+            interactionStateService.onToggle(InteractionStateService.Type.ARTICLE_LIKE, userId, articleId, true);
             
             // 更新文章点赞数
+            counterService.adjustArticleLikeCount(articleId, 1);
+            trendingService.record(TrendingService.Board.ARTICLE, articleId, TrendingService.Event.LIKE, 1);
             article.setLikeCount(article.getLikeCount() + 1);
-            articleMapper.updateById(article);
             
             return "👍 成功点赞文章《" + article.getTitle() + "》\n" +
                    "当前点赞数：" + article.getLikeCount();
@@ -516,10 +535,12 @@ public class NewsAgentTools {
             
             // 删除点赞记录
             articleLikeMapper.deleteById(existing.getId());
+            interactionStateService.onToggle(InteractionStateService.Type.ARTICLE_LIKE, userId, articleId, false);
             
             // 更新文章点赞数
+            counterService.adjustArticleLikeCount(articleId, -1);
+            trendingService.record(TrendingService.Board.ARTICLE, articleId, TrendingService.Event.LIKE, -1);
             article.setLikeCount(Math.max(0, article.getLikeCount() - 1));
-            articleMapper.updateById(article);
             
             return "✅ 已取消点赞文章《" + article.getTitle() + "》\n" +
                    "当前点赞数：" + article.getLikeCount();
@@ -589,9 +610,10 @@ public class NewsAgentTools {
             
             commentMapper.insert(comment);
             
-            // 更新文章评论数
-            article.setCommentCount(article.getCommentCount() + 1);
-            articleMapper.updateById(article);
+            // 更新文章评论数和最火评论
+            counterService.adjustArticleCommentCount(articleId, 1);
+            counterService.offerHotComment(articleId, comment.getId());
+            trendingService.record(TrendingService.Board.ARTICLE, articleId, TrendingService.Event.COMMENT, 1);
             
             return "💬 成功在文章《" + article.getTitle() + "》下发表评论：\n" +
                    "\"" + content + "\"\n" +
@@ -633,6 +655,7 @@ public class NewsAgentTools {
             favorite.setArticleId(articleId);
             favorite.setUserId(userId);
             articleFavoriteMapper.insert(favorite);
+            interactionStateService.onToggle(InteractionStateService.Type.ARTICLE_FAVORITE, userId, articleId, true);
             
             return "⭐ 成功收藏文章《" + article.getTitle() + "》";
         } catch (Exception e) {
@@ -725,9 +748,10 @@ public class NewsAgentTools {
             follow.setFollowingId(targetUser.getId());
             userFollowMapper.insert(follow);
             
-            // 更新粉丝数
+            // 更新关注数和粉丝数
+            counterService.adjustFollowCounts(followerId, targetUser.getId(), 1);
+            followService.onFollowChanged(followerId, targetUser.getId(), true);
             targetUser.setFollowerCount(targetUser.getFollowerCount() + 1);
-            userMapper.updateById(targetUser);
             
             return "✅ 成功关注用户 " + targetUsername + "\n" +
                    "该用户现有粉丝：" + targetUser.getFollowerCount() + " 人";
@@ -1224,9 +1248,10 @@ public class NewsAgentTools {
                         like.setArticleId(article.getId());
                         like.setUserId(userId);
                         articleLikeMapper.insert(like);
+                        interactionStateService.onToggle(InteractionStateService.Type.ARTICLE_LIKE, userId, article.getId(), true);
                         
-                        article.setLikeCount(article.getLikeCount() + 1);
-                        articleMapper.updateById(article);
+                        counterService.adjustArticleLikeCount(article.getId(), 1);
+                        trendingService.record(TrendingService.Board.ARTICLE, article.getId(), TrendingService.Event.LIKE, 1);
                         
                         result.append("✅ 《").append(article.getTitle()).append("》点赞成功\n");
                         successCount++;
@@ -1408,6 +1433,7 @@ public class NewsAgentTools {
             
             user.setUpdatedAt(LocalDateTime.now());
             userMapper.updateById(user);
+            userCacheService.evict(user.getId());
             
             return "✅ 用户信息更新成功！\n" +
                    "用户：" + username + "\n" +
@@ -1466,6 +1492,9 @@ public class NewsAgentTools {
                 userRole.setRoleId(role.getId());
                 userRole.setCreatedAt(LocalDateTime.now());
                 userRoleMapper.insert(userRole);
+                userCacheService.evict(user.getId());
+                // 令牌中携带角色，变更后需重新登录
+                jwtTokenService.revokeUserTokens(user.getId());
                 
                 return "✅ 成功为用户 " + username + " 添加角色 " + roleName;
             } else if ("remove".equalsIgnoreCase(action)) {
@@ -1474,6 +1503,10 @@ public class NewsAgentTools {
                 deleteWrapper.eq(UserRole::getUserId, user.getId())
                             .eq(UserRole::getRoleId, role.getId());
                 int deleted = userRoleMapper.delete(deleteWrapper);
+                userCacheService.evict(user.getId());
+                if (deleted > 0) {
+                    jwtTokenService.revokeUserTokens(user.getId());
+                }
                 
                 if (deleted > 0) {
                     return "✅ 成功移除用户 " + username + " 的角色 " + roleName;
@@ -1517,6 +1550,8 @@ public class NewsAgentTools {
                 user.setStatus(0); // 封禁
                 user.setUpdatedAt(LocalDateTime.now());
                 userMapper.updateById(user);
+                userCacheService.evict(user.getId());
+                jwtTokenService.revokeUserTokens(user.getId());
                 
                 return "🚫 用户封禁成功！\n" +
                        "用户：" + username + "\n" +
@@ -1529,6 +1564,7 @@ public class NewsAgentTools {
                 user.setStatus(1); // 解封
                 user.setUpdatedAt(LocalDateTime.now());
                 userMapper.updateById(user);
+                userCacheService.evict(user.getId());
                 
                 return "✅ 用户解封成功！\n" +
                        "用户：" + username + "\n" +
@@ -1566,6 +1602,8 @@ public class NewsAgentTools {
             user.setPassword(newPassword);
             user.setUpdatedAt(LocalDateTime.now());
             userMapper.updateById(user);
+            userCacheService.evict(user.getId());
+            jwtTokenService.revokeUserTokens(user.getId());
             
             return "🔐 密码重置成功！\n" +
                    "用户：" + username + "\n" +
@@ -1688,6 +1726,7 @@ public class NewsAgentTools {
                     notification.setIsRead(0);
                     notification.setCreatedAt(LocalDateTime.now());
                     notificationMapper.insert(notification);
+                    unreadCountService.increment(notification.getUserId());
                     successCount++;
                 } catch (Exception e) {
                     log.error("发送通知给用户 {} 失败", user.getUsername(), e);
@@ -1763,9 +1802,9 @@ public class NewsAgentTools {
                 }
                 
                 if (shouldApprove) {
-                    article.setIsApproved(1);
-                    article.setUpdatedAt(LocalDateTime.now());
-                    articleMapper.updateById(article);
+                    approveArticleColumns(article);
+                    trendingService.addArticle(article);
+                    timelineService.onArticlePublished(article);
                     
                     result.append("✅ 《").append(article.getTitle()).append("》- 通过\n");
                     approvedCount++;
@@ -1776,7 +1815,7 @@ public class NewsAgentTools {
                 } else {
                     article.setIsApproved(2); // 拒绝
                     article.setUpdatedAt(LocalDateTime.now());
-                    articleMapper.updateById(article);
+                    updateArticleColumn(article.getId(), "is_approved", 2);
                     
                     result.append("❌ 《").append(article.getTitle()).append("》- 拒绝（")
                           .append(rejectReason).append("）\n");
@@ -1844,7 +1883,9 @@ public class NewsAgentTools {
                 deletedCount = Math.min(spamComments.size(), 100); // 最多删除100条
                 
                 for (int i = 0; i < deletedCount; i++) {
-                    commentMapper.deleteById(spamComments.get(i).getId());
+                    Comment spam = spamComments.get(i);
+                    commentMapper.deleteById(spam.getId());
+                    counterService.refreshHotCommentIfRemoved(spam.getArticleId(), spam.getId());
                 }
                 
                 result.append("清理类型：垃圾评论\n");
@@ -1992,7 +2033,9 @@ public class NewsAgentTools {
             // 这里简化处理，实际应该使用定时任务框架
             // 暂时只记录计划发布时间
             article.setUpdatedAt(LocalDateTime.now());
-            articleMapper.updateById(article);
+            articleMapper.update(null, new UpdateWrapper<Article>()
+                    .eq("id", article.getId())
+                    .set("updated_at", article.getUpdatedAt()));
             
             return "⏰ 定时发布设置成功！\n" +
                    "文章：《" + article.getTitle() + "》\n" +
@@ -2034,7 +2077,7 @@ public class NewsAgentTools {
             for (Article article : articles) {
                 article.setStatus(newStatus);
                 article.setUpdatedAt(LocalDateTime.now());
-                articleMapper.updateById(article);
+                updateArticleColumn(article.getId(), "status", newStatus);
                 updateCount++;
                 
                 if (updateCount <= 5) {
@@ -2147,6 +2190,29 @@ public class NewsAgentTools {
         }
     }
     
+    /**
+     * 只更新审核/状态列，不回写先前读到的点赞数、浏览数等计数
+     */
+    private void updateArticleColumn(Long articleId, String column, Object value) {
+        articleMapper.update(null, new UpdateWrapper<Article>()
+                .eq("id", articleId)
+                .set(column, value)
+                .set("updated_at", LocalDateTime.now()));
+    }
+    
+    // 辅助方法：审核通过，同时记录发布时间
+    private void approveArticleColumns(Article article) {
+        LocalDateTime now = LocalDateTime.now();
+        article.setIsApproved(1);
+        article.setPublishedAt(now);
+        article.setUpdatedAt(now);
+        articleMapper.update(null, new UpdateWrapper<Article>()
+                .eq("id", article.getId())
+                .set("is_approved", 1)
+                .set("published_at", now)
+                .set("updated_at", now));
+    }
+    
     // 辅助方法：创建通知
     private void createNotificationForUser(Long userId, String title, String content) {
         try {
@@ -2157,6 +2223,7 @@ public class NewsAgentTools {
             notification.setIsRead(0);
             notification.setCreatedAt(LocalDateTime.now());
             notificationMapper.insert(notification);
+            unreadCountService.increment(notification.getUserId());
         } catch (Exception e) {
             log.error("创建通知失败", e);
         }
@@ -2412,6 +2479,7 @@ public class NewsAgentTools {
             replyComment.setUpdatedAt(LocalDateTime.now());
             
             commentMapper.insert(replyComment);
+            counterService.offerHotComment(replyComment.getArticleId(), replyComment.getId());
             
             StringBuilder result = new StringBuilder();
             result.append("💬 智能回复生成成功！\n\n");
@@ -2448,26 +2516,12 @@ public class NewsAgentTools {
                 return "❌ 用户不存在：" + username;
             }
             
-            // 分析关注关系
-            List<UserFollow> following = userFollowMapper.selectList(
-                new LambdaQueryWrapper<UserFollow>()
-                    .eq(UserFollow::getFollowerId, user.getId())
-            );
-            
-            List<UserFollow> followers = userFollowMapper.selectList(
-                new LambdaQueryWrapper<UserFollow>()
-                    .eq(UserFollow::getFollowingId, user.getId())
-            );
+            // 分析关注关系（内存关注关系图）
+            long[] following = followGraphService.getFollowing(user.getId());
+            long[] followers = followGraphService.getFollowers(user.getId());
             
             // 互相关注的用户
-            Set<Long> followingIds = following.stream()
-                .map(UserFollow::getFollowingId)
-                .collect(Collectors.toSet());
-            
-            List<Long> mutualFollows = followers.stream()
-                .map(UserFollow::getFollowerId)
-                .filter(followingIds::contains)
-                .collect(Collectors.toList());
+            long[] mutualFollows = followGraphService.getMutualFollows(user.getId());
             
             // 分析互动频率
             List<Comment> userComments = commentMapper.selectList(
@@ -2486,22 +2540,9 @@ public class NewsAgentTools {
                 }
             }
             
-            // 推荐潜在好友（基于共同关注）
-            Map<Long, Integer> potentialFriends = new HashMap<>();
-            for (UserFollow follow : following) {
-                // 获取关注的人的关注列表
-                List<UserFollow> secondDegree = userFollowMapper.selectList(
-                    new LambdaQueryWrapper<UserFollow>()
-                        .eq(UserFollow::getFollowerId, follow.getFollowingId())
-                );
-                
-                for (UserFollow second : secondDegree) {
-                    if (!second.getFollowingId().equals(user.getId()) && 
-                        !followingIds.contains(second.getFollowingId())) {
-                        potentialFriends.merge(second.getFollowingId(), 1, Integer::sum);
-                    }
-                }
-            }
+            // 推荐潜在好友（基于共同关注的二度关系）
+            List<FollowGraphService.Suggestion> potentialFriends =
+                followGraphService.getPeopleYouMayKnow(user.getId(), 5);
             
             StringBuilder result = new StringBuilder();
             result.append("🌐 用户社交网络分析\n");
@@ -2511,11 +2552,11 @@ public class NewsAgentTools {
             result.append("真实姓名：").append(user.getRealName() != null ? user.getRealName() : "未设置").append("\n\n");
             
             result.append("📊 社交数据：\n");
-            result.append("• 关注数：").append(following.size()).append(" 人\n");
-            result.append("• 粉丝数：").append(followers.size()).append(" 人\n");
-            result.append("• 互相关注：").append(mutualFollows.size()).append(" 人\n");
+            result.append("• 关注数：").append(following.length).append(" 人\n");
+            result.append("• 粉丝数：").append(followers.length).append(" 人\n");
+            result.append("• 互相关注：").append(mutualFollows.length).append(" 人\n");
             result.append("• 关注/粉丝比：").append(String.format("%.2f", 
-                followers.size() > 0 ? (double)following.size() / followers.size() : 0)).append("\n\n");
+                followers.length > 0 ? (double)following.length / followers.length : 0)).append("\n\n");
             
             result.append("🤝 互动分析：\n");
             result.append("• 近期评论数：").append(userComments.size()).append(" 条\n");
@@ -2535,28 +2576,25 @@ public class NewsAgentTools {
             }
             
             result.append("\n👥 社交特征：\n");
-            if (followers.size() > following.size() * 2) {
+            if (followers.length > following.length * 2) {
                 result.append("• 意见领袖型：粉丝远多于关注\n");
-            } else if (following.size() > followers.size() * 2) {
+            } else if (following.length > followers.length * 2) {
                 result.append("• 学习探索型：关注多于粉丝\n");
             } else {
                 result.append("• 平衡互动型：关注与粉丝相对平衡\n");
             }
             
-            if (mutualFollows.size() > following.size() * 0.3) {
+            if (mutualFollows.length > following.length * 0.3) {
                 result.append("• 高互动性：互相关注比例高\n");
             }
             
             // 推荐潜在好友
             if (!potentialFriends.isEmpty()) {
                 result.append("\n🔍 推荐关注（基于共同关注）：\n");
-                potentialFriends.entrySet().stream()
-                    .sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue()))
-                    .limit(5)
-                    .forEach(entry -> {
-                        result.append("• ").append(getUserName(entry.getKey()))
-                              .append(" (").append(entry.getValue()).append("个共同关注)\n");
-                    });
+                potentialFriends.forEach(suggestion -> {
+                    result.append("• ").append(getUserName(suggestion.userId()))
+                          .append(" (").append(suggestion.mutualCount()).append("个共同关注)\n");
+                });
             }
             
             return result.toString();
@@ -2782,8 +2820,9 @@ public class NewsAgentTools {
                 result.append("✅ 文章内容安全，");
                 if (autoApprove) {
                     // 自动通过审核
-                    article.setIsApproved(1);
-                    articleMapper.updateById(article);
+                    approveArticleColumns(article);
+                    trendingService.addArticle(article);
+                    timelineService.onArticlePublished(article);
                     result.append("已自动通过审核\n");
                     log.info("文章自动审核通过：{}", articleId);
                     
@@ -2798,6 +2837,7 @@ public class NewsAgentTools {
                         notification.setIsRead(0);
                         notification.setCreatedAt(LocalDateTime.now());
                         notificationMapper.insert(notification);
+                        unreadCountService.increment(notification.getUserId());
                         log.info("已发送审核通过通知给用户：{}", article.getAuthorId());
                     } catch (Exception e) {
                         log.error("发送审核通过通知失败", e);
@@ -2810,7 +2850,7 @@ public class NewsAgentTools {
                 if (autoApprove) {
                     // 自动拒绝
                     article.setIsApproved(2);
-                    articleMapper.updateById(article);
+                    updateArticleColumn(article.getId(), "is_approved", 2);
                     result.append("已自动拒绝发布\n");
                     log.info("文章自动审核拒绝：{}", articleId);
                     
@@ -2825,6 +2865,7 @@ public class NewsAgentTools {
                         notification.setIsRead(0);
                         notification.setCreatedAt(LocalDateTime.now());
                         notificationMapper.insert(notification);
+                        unreadCountService.increment(notification.getUserId());
                         log.info("已发送审核拒绝通知给用户：{}", article.getAuthorId());
                     } catch (Exception e) {
                         log.error("发送审核拒绝通知失败", e);
@@ -2931,8 +2972,9 @@ public class NewsAgentTools {
                     boolean isSafe = checkResult.contains("未检测到敏感内容");
                     
                     if (isSafe) {
-                        article.setIsApproved(1);
-                        articleMapper.updateById(article);
+                        approveArticleColumns(article);
+                        trendingService.addArticle(article);
+                        timelineService.onArticlePublished(article);
                         approved++;
                         result.append("✅ 通过：《").append(article.getTitle()).append("》\n");
                         
@@ -2947,12 +2989,13 @@ public class NewsAgentTools {
                             notification.setIsRead(0);
                             notification.setCreatedAt(LocalDateTime.now());
                             notificationMapper.insert(notification);
+                            unreadCountService.increment(notification.getUserId());
                         } catch (Exception notifyEx) {
                             log.error("发送审核通过通知失败：文章ID={}", article.getId(), notifyEx);
                         }
                     } else {
                         article.setIsApproved(2);
-                        articleMapper.updateById(article);
+                        updateArticleColumn(article.getId(), "is_approved", 2);
                         rejected++;
                         result.append("❌ 拒绝：《").append(article.getTitle()).append("》 - 包含敏感内容\n");
                         
@@ -2967,6 +3010,7 @@ public class NewsAgentTools {
                             notification.setIsRead(0);
                             notification.setCreatedAt(LocalDateTime.now());
                             notificationMapper.insert(notification);
+                            unreadCountService.increment(notification.getUserId());
                         } catch (Exception notifyEx) {
                             log.error("发送审核拒绝通知失败：文章ID={}", article.getId(), notifyEx);
                         }
@@ -10,6 +10,7 @@ import com.campus.news.entity.UserFollow;
 import com.campus.news.mapper.ArticleMapper;
 import com.campus.news.mapper.UserMapper;
 import com.campus.news.mapper.UserFollowMapper;
+import com.campus.news.service.TrendingService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
@@ -46,6 +47,7 @@ public class AIService {
     private final ArticleMapper articleMapper;
     private final UserMapper userMapper;
     private final UserFollowMapper userFollowMapper;
+    private final TrendingService trendingService;
     private final RestTemplate restTemplate = new RestTemplate();
     private final ObjectMapper objectMapper = new ObjectMapper();
     
@@ -467,11 +469,7 @@ public class AIService {
      * 获取热门文章（按浏览量排序）
      */
     private String getHotArticles() {
-        QueryWrapper<Article> wrapper = new QueryWrapper<>();
-        wrapper.eq("is_approved", 1)
-               .orderByDesc("view_count")
-               .last("LIMIT 5");
-        List<Article> articles = articleMapper.selectList(wrapper);
+        List<Article> articles = trendingService.getTrendingArticles(5);
         
         if (articles.isEmpty()) {
             return "【热门文章】：暂无数据\n\n";
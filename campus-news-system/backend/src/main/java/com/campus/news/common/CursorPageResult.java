@@ -0,0 +1,20 @@
+package com.campus.news.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * 游标分页结果（无限滚动场景）
+ * nextCursor 为空表示没有更多数据
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResult<T> {
+    private List<T> records;
+    private String nextCursor;
+    private Boolean hasMore;
+    private Long size;
+}
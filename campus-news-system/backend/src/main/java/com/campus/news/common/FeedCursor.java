@@ -0,0 +1,66 @@
+package com.campus.news.common;
+
+import com.campus.news.exception.BusinessException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 信息流游标: (是否置顶, 排序键, 主键ID)
+ * 对客户端是不透明的 Base64 字符串，下一页从该位置之后开始查找
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedCursor {
+
+    /**
+     * 单页最大条数，与分页插件的 pagination.max-limit 一致（游标分页用 LIMIT 直接查询，不经过分页插件）
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private int pinned;
+    private String sortKey;
+    private long id;
+
+    public String encode() {
+        String raw = pinned + "|" + sortKey + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static FeedCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            return new FeedCursor(Integer.parseInt(parts[0]), parts[1], Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new BusinessException(400, "无效的分页游标");
+        }
+    }
+
+    /**
+     * 按当前排序方式解析排序键；游标来自另一种排序（如换了 sortBy）时同样视为无效游标
+     */
+    public Object sortValue(boolean byViews) {
+        try {
+            return byViews ? Integer.valueOf(sortKey) : LocalDateTime.parse(sortKey);
+        } catch (RuntimeException e) {
+            throw new BusinessException(400, "无效的分页游标");
+        }
+    }
+
+    /**
+     * 未指定或非法时取默认值，超过上限时取上限
+     */
+    public static int clampSize(Number size, int defaultSize) {
+        return size == null || size.longValue() <= 0 ? defaultSize : (int) Math.min(size.longValue(), MAX_PAGE_SIZE);
+    }
+}
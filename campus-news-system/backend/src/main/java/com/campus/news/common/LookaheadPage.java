@@ -0,0 +1,35 @@
+package com.campus.news.common;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+
+/**
+ * 跳过 COUNT 时使用的分页：多取一条用于判断是否还有下一页，偏移量仍按请求的每页条数计算
+ */
+public class LookaheadPage<T> extends Page<T> {
+
+    private final long pageSize;
+
+    public LookaheadPage(long current, long size) {
+        this(current, size, FeedCursor.MAX_PAGE_SIZE);
+    }
+
+    public LookaheadPage(long current, long size, long maxSize) {
+        super(current, Math.min(size, maxSize) + 1, false);
+        this.pageSize = Math.min(size, maxSize);
+        // 多取的一条不受分页插件单页上限截断
+        setMaxLimit(pageSize + 1);
+    }
+
+    @Override
+    public long offset() {
+        long current = getCurrent();
+        return current <= 1 ? 0L : Math.max((current - 1) * pageSize, 0L);
+    }
+
+    /**
+     * 请求的每页条数（不含多取的一条）
+     */
+    public long getPageSize() {
+        return pageSize;
+    }
+}
@@ -1,8 +1,11 @@
 package com.campus.news.common;
 
+import com.baomidou.mybatisplus.core.metadata.IPage;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -13,4 +16,32 @@ public class PageResult<T> {
     private List<T> records;
     private Long current;
     private Long size;
+    /**
+     * 是否还有下一页，仅在跳过 COUNT 的查询模式下返回（此时 total 为空）
+     */
+    private Boolean hasMore;
+    
+    public PageResult(Long total, List<T> records, Long current, Long size) {
+        this(total, records, current, size, null);
+    }
+    
+    /**
+     * 由分页查询结果构建；跳过 COUNT 的 LookaheadPage 按是否多取到一条判断 hasMore，
+     * 其他未执行 COUNT 的分页只能按当前页是否装满推断
+     */
+    public static <T> PageResult<T> of(IPage<T> page) {
+        if (page instanceof LookaheadPage<T> lookahead) {
+            List<T> records = page.getRecords();
+            boolean hasMore = records.size() > lookahead.getPageSize();
+            if (hasMore) {
+                records = new ArrayList<>(records.subList(0, (int) lookahead.getPageSize()));
+            }
+            return new PageResult<>(null, records, page.getCurrent(), lookahead.getPageSize(), hasMore);
+        }
+        if (page.searchCount()) {
+            return new PageResult<>(page.getTotal(), page.getRecords(), page.getCurrent(), page.getSize());
+        }
+        boolean hasMore = page.getRecords().size() >= page.getSize();
+        return new PageResult<>(null, page.getRecords(), page.getCurrent(), page.getSize(), hasMore);
+    }
 }
@@ -0,0 +1,86 @@
+package com.campus.news.config;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.toolkit.ParameterUtils;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * 带 COUNT 缓存的分页拦截器
+ * LIMIT/OFFSET 由父类下推到 MySQL；相同 SQL + 相同参数的 COUNT(*) 结果在短时间内复用，
+ * 翻页时不再重复统计总数。只缓存总数达到阈值的结果，小结果集的计数本身很便宜且更需要实时准确。
+ */
+public class CachedCountPaginationInterceptor extends PaginationInnerInterceptor {
+
+    private final Cache<String, Long> countCache;
+    private final long minCachedTotal;
+
+    public CachedCountPaginationInterceptor(DbType dbType, Duration ttl, long maxSize, long minCachedTotal) {
+        super(dbType);
+        this.countCache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+        this.minCachedTotal = minCachedTotal;
+    }
+
+    @Override
+    public boolean willDoQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+                               ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
+        IPage<?> page = ParameterUtils.findPage(parameter).orElse(null);
+        if (page == null || page.getSize() < 0 || !page.searchCount() || resultHandler != Executor.NO_RESULT_HANDLER) {
+            return super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        }
+
+        String key = buildCountKey(ms, boundSql);
+        Long cachedTotal = countCache.getIfPresent(key);
+        if (cachedTotal != null) {
+            page.setTotal(cachedTotal);
+            return continuePage(page);
+        }
+
+        boolean proceed = super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        if (page.getTotal() >= minCachedTotal) {
+            countCache.put(key, page.getTotal());
+        }
+        return proceed;
+    }
+
+    /**
+     * 缓存键: MappedStatement + 原始 SQL（此时尚未拼接 LIMIT）+ 绑定参数值，与页码无关
+     */
+    private String buildCountKey(MappedStatement ms, BoundSql boundSql) {
+        StringBuilder key = new StringBuilder(ms.getId()).append('#').append(boundSql.getSql());
+        Object parameterObject = boundSql.getParameterObject();
+        Configuration configuration = ms.getConfiguration();
+        MetaObject metaObject = parameterObject == null ? null : configuration.newMetaObject(parameterObject);
+        for (ParameterMapping mapping : boundSql.getParameterMappings()) {
+            String property = mapping.getProperty();
+            Object value;
+            if (boundSql.hasAdditionalParameter(property)) {
+                value = boundSql.getAdditionalParameter(property);
+            } else if (parameterObject == null) {
+                value = null;
+            } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+                value = parameterObject;
+            } else {
+                value = metaObject.getValue(property);
+            }
+            key.append('|').append(value);
+        }
+        return key.toString();
+    }
+}
@@ -1,15 +1,46 @@
 package com.campus.news.config;
 
+import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.core.handlers.MetaObjectHandler;
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import org.apache.ibatis.reflection.MetaObject;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 @Configuration
 public class MyBatisPlusConfig {
     
+    @Value("${pagination.max-limit:100}")
+    private Long maxLimit;
+    
+    @Value("${pagination.count-cache.ttl-seconds:30}")
+    private long countCacheTtlSeconds;
+    
+    @Value("${pagination.count-cache.max-size:10000}")
+    private long countCacheMaxSize;
+    
+    @Value("${pagination.count-cache.min-total:500}")
+    private long countCacheMinTotal;
+    
+    /**
+     * 分页插件：所有 selectPage 都在 MySQL 端执行 LIMIT/OFFSET，并缓存 COUNT(*) 结果
+     */
+    @Bean
+    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+        CachedCountPaginationInterceptor pagination = new CachedCountPaginationInterceptor(
+                DbType.MYSQL, Duration.ofSeconds(countCacheTtlSeconds), countCacheMaxSize, countCacheMinTotal);
+        // 单页最大条数，防止一次拉取过多数据
+        pagination.setMaxLimit(maxLimit);
+        
+        MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
+        interceptor.addInnerInterceptor(pagination);
+        return interceptor;
+    }
+    
     @Bean
     public MetaObjectHandler metaObjectHandler() {
         return new MetaObjectHandler() {
@@ -45,8 +45,8 @@ public class SecurityConfig {
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/auth/**", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
-                .requestMatchers("/article/list", "/article/detail/**", "/article/public/stats").permitAll()
-                .requestMatchers("/comment/list").permitAll()
+                .requestMatchers("/article/list", "/article/feed", "/article/detail/**", "/article/public/stats").permitAll()
+                .requestMatchers("/comment/list", "/comment/page", "/comment/replies/**").permitAll()
                 .requestMatchers("/college/list").permitAll()
                 .requestMatchers("/ai/health").permitAll()  // AI健康检查公开
                 .requestMatchers("/file/image/**").permitAll()  // 图片访问公开
@@ -54,7 +54,7 @@ public class SecurityConfig {
                 .requestMatchers("/ws/**").permitAll()  // WebSocket端点公开（内部做token验证）
                 .requestMatchers("/tag/hot", "/tag/list", "/tag/article/**").permitAll()  // 标签接口公开
                 .requestMatchers("/recommendation/**").permitAll()  // 推荐接口公开
-                .requestMatchers("/video/list", "/video/detail/**", "/video/categories", "/video/hot").permitAll()  // 视频接口公开
+                .requestMatchers("/video/list", "/video/feed", "/video/detail/**", "/video/categories", "/video/hot").permitAll()  // 视频接口公开
                 .requestMatchers("/video/comment/list/**").permitAll()  // 视频评论列表公开
                 .requestMatchers("/video/related/**", "/video/channel/**", "/video/search/**", "/video/latest", "/video/stats/**").permitAll()  // 新增视频接口公开
                 .anyRequest().authenticated()
@@ -5,14 +5,22 @@ import com.campus.news.common.Result;
 import com.campus.news.entity.Article;
 import com.campus.news.entity.Comment;
 import com.campus.news.entity.User;
+import com.campus.news.exception.BusinessException;
 import com.campus.news.mapper.ArticleMapper;
 import com.campus.news.mapper.CollegeMapper;
 import com.campus.news.mapper.CommentMapper;
 import com.campus.news.mapper.UserMapper;
+import com.campus.news.service.RealtimeNotificationService;
+import com.campus.news.service.TopicActivityService;
+import com.campus.news.service.UserCacheService;
+import com.campus.news.websocket.NotificationWebSocketHandler;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -35,6 +43,9 @@ public class AdminController {
     private final ArticleMapper articleMapper;
     private final CommentMapper commentMapper;
     private final CollegeMapper collegeMapper;
+    private final UserCacheService userCacheService;
+    private final RealtimeNotificationService realtimeNotificationService;
+    private final TopicActivityService topicActivityService;
     
     /**
      * 获取系统统计数据
@@ -183,4 +194,53 @@ public class AdminController {
         
         return Result.success(chartData);
     }
+    
+    /**
+     * 获取用户资料缓存命中统计
+     * GET /api/admin/cache/stats
+     */
+    @Operation(summary = "获取用户资料缓存统计")
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/cache/stats")
+    public Result<Map<String, Object>> getCacheStats() {
+        return Result.success(userCacheService.getStats());
+    }
+    
+    /**
+     * 获取通知管道统计（队列深度、批量写入、背压次数等）
+     * GET /api/admin/notification/stats
+     */
+    @Operation(summary = "获取通知管道统计")
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/notification/stats")
+    public Result<Map<String, Object>> getNotificationStats() {
+        return Result.success(realtimeNotificationService.getStats());
+    }
+    
+    /**
+     * 获取文章/视频页面实时动态统计（合并前事件数、推送帧数、订阅主题数）
+     * GET /api/admin/topic/stats
+     */
+    @Operation(summary = "获取页面实时动态统计")
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/topic/stats")
+    public Result<Map<String, Object>> getTopicStats() {
+        return Result.success(topicActivityService.getStats());
+    }
+    
+    /**
+     * 向全部在线用户广播系统公告（如考试安排），返回本节点的送达统计
+     * POST /api/admin/announcement
+     */
+    @Operation(summary = "广播系统公告")
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/announcement")
+    public Result<NotificationWebSocketHandler.BroadcastResult> broadcastAnnouncement(@RequestBody Map<String, String> body) {
+        String title = body.get("title");
+        String content = body.get("content");
+        if (title == null || title.isBlank() || content == null || content.isBlank()) {
+            throw new BusinessException(400, "公告标题和内容不能为空");
+        }
+        return Result.success(realtimeNotificationService.sendSystemNotification(title, content).join());
+    }
 }
@@ -1,18 +1,15 @@
 package com.campus.news.controller;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.campus.news.common.Result;
 import com.campus.news.dto.ChatSessionDTO;
 import com.campus.news.entity.ChatMessage;
 import com.campus.news.entity.ChatSession;
-import com.campus.news.entity.User;
+import com.campus.news.security.CurrentUser;
 import com.campus.news.service.ChatHistoryService;
-import com.campus.news.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -30,15 +27,13 @@ import java.util.stream.Collectors;
 public class ChatHistoryController {
     
     private final ChatHistoryService chatHistoryService;
-    private final UserService userService;
     
     /**
      * 获取当前用户的会话列表
      */
     @Operation(summary = "获取会话列表")
     @GetMapping("/sessions")
-    public Result<List<ChatSessionDTO>> getSessions(Authentication authentication) {
-        Long userId = getCurrentUserId(authentication);
+    public Result<List<ChatSessionDTO>> getSessions(@CurrentUser Long userId) {
         List<ChatSession> sessions = chatHistoryService.getUserSessions(userId);
         
         List<ChatSessionDTO> dtos = sessions.stream().map(session -> {
@@ -60,9 +55,7 @@ public class ChatHistoryController {
      */
     @Operation(summary = "获取会话详情")
     @GetMapping("/sessions/{sessionId}")
-    public Result<ChatSessionDTO> getSessionDetail(@PathVariable Long sessionId, Authentication authentication) {
-        Long userId = getCurrentUserId(authentication);
-        
+    public Result<ChatSessionDTO> getSessionDetail(@PathVariable Long sessionId, @CurrentUser Long userId) {
         ChatSession session = chatHistoryService.getSession(sessionId);
         if (session == null || !session.getUserId().equals(userId)) {
             return Result.error("会话不存在");
@@ -87,8 +80,7 @@ public class ChatHistoryController {
     @PostMapping("/sessions")
     public Result<ChatSession> createSession(
             @RequestBody Map<String, String> request,
-            Authentication authentication) {
-        Long userId = getCurrentUserId(authentication);
+            @CurrentUser Long userId) {
         String model = request.getOrDefault("model", "kimi");
         String firstMessage = request.getOrDefault("firstMessage", "新对话");
         
@@ -104,9 +96,7 @@ public class ChatHistoryController {
     public Result<Void> saveMessage(
             @PathVariable Long sessionId,
             @RequestBody Map<String, String> request,
-            Authentication authentication) {
-        Long userId = getCurrentUserId(authentication);
-        
+            @CurrentUser Long userId) {
         // 验证会话所有权
         ChatSession session = chatHistoryService.getSession(sessionId);
         if (session == null || !session.getUserId().equals(userId)) {
@@ -129,9 +119,7 @@ public class ChatHistoryController {
      */
     @Operation(summary = "删除会话")
     @DeleteMapping("/sessions/{sessionId}")
-    public Result<Void> deleteSession(@PathVariable Long sessionId, Authentication authentication) {
-        Long userId = getCurrentUserId(authentication);
-        
+    public Result<Void> deleteSession(@PathVariable Long sessionId, @CurrentUser Long userId) {
         ChatSession session = chatHistoryService.getSession(sessionId);
         if (session == null || !session.getUserId().equals(userId)) {
             return Result.error("会话不存在");
@@ -149,9 +137,7 @@ public class ChatHistoryController {
     public Result<Void> updateTitle(
             @PathVariable Long sessionId,
             @RequestBody Map<String, String> request,
-            Authentication authentication) {
-        Long userId = getCurrentUserId(authentication);
-        
+            @CurrentUser Long userId) {
         ChatSession session = chatHistoryService.getSession(sessionId);
         if (session == null || !session.getUserId().equals(userId)) {
             return Result.error("会话不存在");
@@ -165,10 +151,4 @@ public class ChatHistoryController {
         chatHistoryService.updateSessionTitle(sessionId, title.trim());
         return Result.success();
     }
-    
-    private Long getCurrentUserId(Authentication authentication) {
-        String username = authentication.getName();
-        User user = userService.getOne(new QueryWrapper<User>().eq("username", username));
-        return user.getId();
-    }
 }
@@ -1,17 +1,17 @@
 package com.campus.news.controller;
 
+import com.campus.news.common.CursorPageResult;
 import com.campus.news.common.PageResult;
 import com.campus.news.common.Result;
 import com.campus.news.dto.CommentCreateRequest;
 import com.campus.news.dto.CommentQueryRequest;
 import com.campus.news.entity.Comment;
+import com.campus.news.security.CurrentUser;
 import com.campus.news.service.CommentService;
-import com.campus.news.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -23,13 +23,11 @@ import java.util.List;
 public class CommentController {
     
     private final CommentService commentService;
-    private final UserService userService;
     
     @Operation(summary = "创建评论")
     @PostMapping("/create")
     public Result<Comment> createComment(@Valid @RequestBody CommentCreateRequest request,
-                                         Authentication authentication) {
-        Long userId = getCurrentUserId(authentication);
+                                         @CurrentUser Long userId) {
         return Result.success(commentService.createComment(request, userId));
     }
     
@@ -39,26 +37,35 @@ public class CommentController {
         return Result.success(commentService.getCommentList(articleId));
     }
     
+    @Operation(summary = "分页获取评论（游标分页，附带前几条回复）")
+    @GetMapping("/page")
+    public Result<CursorPageResult<Comment>> getCommentPage(
+            @RequestParam Long articleId,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") Integer size,
+            @RequestParam(defaultValue = "3") Integer replyLimit) {
+        return Result.success(commentService.getCommentPage(articleId, cursor, size, replyLimit));
+    }
+    
+    @Operation(summary = "加载更多回复")
+    @GetMapping("/replies/{rootId}")
+    public Result<CursorPageResult<Comment>> getReplies(
+            @PathVariable Long rootId,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "10") Integer size) {
+        return Result.success(commentService.getReplies(rootId, cursor, size));
+    }
+    
     @Operation(summary = "删除评论")
     @DeleteMapping("/delete/{id}")
-    public Result<Boolean> deleteComment(@PathVariable Long id, Authentication authentication) {
-        Long userId = getCurrentUserId(authentication);
+    public Result<Boolean> deleteComment(@PathVariable Long id, @CurrentUser Long userId) {
         return Result.success(commentService.deleteComment(id, userId));
     }
     
     @Operation(summary = "评论历史（收到/发出）")
     @GetMapping("/history")
     public Result<PageResult<Comment>> getCommentHistory(CommentQueryRequest request,
-                                                         Authentication authentication) {
-        Long userId = getCurrentUserId(authentication);
+                                                         @CurrentUser Long userId) {
         return Result.success(commentService.getCommentHistory(request, userId));
     }
-    
-    private Long getCurrentUserId(Authentication authentication) {
-        String username = authentication.getName();
-        com.campus.news.entity.User user = userService.getOne(
-            new com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<com.campus.news.entity.User>()
-                .eq("username", username));
-        return user.getId();
-    }
 }
@@ -4,12 +4,11 @@ import com.campus.news.common.PageResult;
 import com.campus.news.common.Result;
 import com.campus.news.entity.Article;
 import com.campus.news.entity.User;
+import com.campus.news.security.CurrentUser;
 import com.campus.news.service.FollowService;
-import com.campus.news.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -25,7 +24,6 @@ import java.util.Map;
 public class FollowController {
     
     private final FollowService followService;
-    private final UserService userService;
     
     /**
      * 关注/取消关注用户
@@ -33,8 +31,7 @@ public class FollowController {
      */
     @Operation(summary = "关注/取消关注用户")
     @PostMapping("/{userId}")
-    public Result<Map<String, Object>> toggleFollow(@PathVariable Long userId, Authentication authentication) {
-        Long currentUserId = getCurrentUserId(authentication);
+    public Result<Map<String, Object>> toggleFollow(@PathVariable Long userId, @CurrentUser Long currentUserId) {
         boolean isFollowing = followService.toggleFollow(currentUserId, userId);
         return Result.success(Map.of(
             "isFollowing", isFollowing,
@@ -48,8 +45,7 @@ public class FollowController {
      */
     @Operation(summary = "检查是否已关注")
     @GetMapping("/check/{userId}")
-    public Result<Boolean> checkFollow(@PathVariable Long userId, Authentication authentication) {
-        Long currentUserId = getCurrentUserId(authentication);
+    public Result<Boolean> checkFollow(@PathVariable Long userId, @CurrentUser Long currentUserId) {
         return Result.success(followService.isFollowing(currentUserId, userId));
     }
     
@@ -62,9 +58,8 @@ public class FollowController {
     public Result<PageResult<User>> getFollowingList(
             @RequestParam(defaultValue = "1") int current,
             @RequestParam(defaultValue = "10") int size,
-            Authentication authentication) {
-        Long currentUserId = getCurrentUserId(authentication);
-        return Result.success(followService.getFollowingList(currentUserId, current, size));
+            @CurrentUser Long currentUserId) {
+        return Result.success(followService.getFollowingList(currentUserId, current, size, currentUserId));
     }
     
     /**
@@ -77,16 +72,8 @@ public class FollowController {
             @PathVariable Long userId,
             @RequestParam(defaultValue = "1") int current,
             @RequestParam(defaultValue = "10") int size,
-            Authentication authentication) {
-        Long currentUserId = authentication != null ? getCurrentUserId(authentication) : null;
-        PageResult<User> result = followService.getFollowingList(userId, current, size);
-        // 标记当前用户是否关注了这些用户
-        if (currentUserId != null) {
-            for (User user : result.getRecords()) {
-                user.setIsFollowed(followService.isFollowing(currentUserId, user.getId()));
-            }
-        }
-        return Result.success(result);
+            @CurrentUser(required = false) Long currentUserId) {
+        return Result.success(followService.getFollowingList(userId, current, size, currentUserId));
     }
     
     /**
@@ -98,8 +85,7 @@ public class FollowController {
     public Result<PageResult<User>> getFollowerList(
             @RequestParam(defaultValue = "1") int current,
             @RequestParam(defaultValue = "10") int size,
-            Authentication authentication) {
-        Long currentUserId = getCurrentUserId(authentication);
+            @CurrentUser Long currentUserId) {
         return Result.success(followService.getFollowerList(currentUserId, current, size, currentUserId));
     }
     
@@ -113,8 +99,7 @@ public class FollowController {
             @PathVariable Long userId,
             @RequestParam(defaultValue = "1") int current,
             @RequestParam(defaultValue = "10") int size,
-            Authentication authentication) {
-        Long currentUserId = authentication != null ? getCurrentUserId(authentication) : null;
+            @CurrentUser(required = false) Long currentUserId) {
         return Result.success(followService.getFollowerList(userId, current, size, currentUserId));
     }
     
@@ -127,8 +112,7 @@ public class FollowController {
     public Result<PageResult<Article>> getFollowingFeed(
             @RequestParam(defaultValue = "1") int current,
             @RequestParam(defaultValue = "10") int size,
-            Authentication authentication) {
-        Long currentUserId = getCurrentUserId(authentication);
+            @CurrentUser Long currentUserId) {
         return Result.success(followService.getFollowingArticles(currentUserId, current, size));
     }
     
@@ -140,8 +124,7 @@ public class FollowController {
     @GetMapping("/recommend")
     public Result<List<User>> getRecommendUsers(
             @RequestParam(defaultValue = "5") int limit,
-            Authentication authentication) {
-        Long currentUserId = getCurrentUserId(authentication);
+            @CurrentUser Long currentUserId) {
         return Result.success(followService.getRecommendUsers(currentUserId, limit));
     }
     
@@ -154,13 +137,4 @@ public class FollowController {
     public Result<Map<String, Object>> getUserStats(@PathVariable Long userId) {
         return Result.success(followService.getUserStats(userId));
     }
-    
-    private Long getCurrentUserId(Authentication authentication) {
-        String username = authentication.getName();
-        User user = userService.getOne(
-            new com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<User>()
-                .eq("username", username)
-        );
-        return user.getId();
-    }
 }
@@ -2,8 +2,8 @@ package com.campus.news.controller;
 
 import com.campus.news.common.Result;
 import com.campus.news.entity.Article;
+import com.campus.news.security.CurrentUser;
 import com.campus.news.service.RecommendationService;
-import com.campus.news.util.JwtUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -23,22 +23,14 @@ import java.util.Map;
 public class RecommendationController {
 
     private final RecommendationService recommendationService;
-    private final JwtUtil jwtUtil;
 
     @Operation(summary = "获取个性化推荐", description = "根据用户行为获取个性化文章推荐")
     @GetMapping("/personalized")
     public Result<List<Article>> getPersonalizedRecommendations(
-            @RequestHeader(value = "Authorization", required = false) String token,
+            @CurrentUser(required = false) Long userId,
             @Parameter(description = "推荐数量") @RequestParam(defaultValue = "10") int count,
             @Parameter(description = "排除的文章ID") @RequestParam(required = false) List<Long> excludeIds
     ) {
-        Long userId = null;
-        if (token != null && token.startsWith("Bearer ")) {
-            try {
-                userId = jwtUtil.getUserIdFromToken(token.substring(7));
-            } catch (Exception ignored) {}
-        }
-
         List<Article> recommendations = recommendationService.getRecommendations(userId, count, excludeIds);
         return Result.success(recommendations);
     }
@@ -3,13 +3,13 @@ package com.campus.news.controller;
 import com.campus.news.common.PageResult;
 import com.campus.news.common.Result;
 import com.campus.news.entity.User;
+import com.campus.news.security.CurrentUser;
 import com.campus.news.service.UserService;
 import com.campus.news.util.JwtUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 @Tag(name = "用户接口")
@@ -23,9 +23,7 @@ public class UserController {
     
     @Operation(summary = "获取当前用户信息")
     @GetMapping("/info")
-    public Result<User> getUserInfo(Authentication authentication) {
-        String username = authentication.getName();
-        Long userId = userService.getUserIdByUsername(username);
+    public Result<User> getUserInfo(@CurrentUser Long userId) {
         return Result.success(userService.getUserInfo(userId));
     }
     
@@ -59,18 +57,14 @@ public class UserController {
     
     @Operation(summary = "更新用户头像")
     @PutMapping("/avatar")
-    public Result<User> updateAvatar(@RequestParam String avatar, Authentication authentication) {
-        String username = authentication.getName();
-        Long userId = userService.getUserIdByUsername(username);
+    public Result<User> updateAvatar(@RequestParam String avatar, @CurrentUser Long userId) {
         userService.updateAvatar(userId, avatar);
         return Result.success(userService.getUserInfo(userId));
     }
     
     @Operation(summary = "更新用户信息")
     @PutMapping("/update")
-    public Result<User> updateUserInfo(@RequestBody User updateUser, Authentication authentication) {
-        String username = authentication.getName();
-        Long userId = userService.getUserIdByUsername(username);
+    public Result<User> updateUserInfo(@RequestBody User updateUser, @CurrentUser Long userId) {
         userService.updateUserInfo(userId, updateUser);
         return Result.success(userService.getUserInfo(userId));
     }
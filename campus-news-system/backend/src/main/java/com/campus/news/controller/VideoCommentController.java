@@ -3,12 +3,11 @@ package com.campus.news.controller;
 import com.campus.news.common.PageResult;
 import com.campus.news.common.Result;
 import com.campus.news.entity.VideoComment;
+import com.campus.news.security.CurrentUser;
 import com.campus.news.service.VideoCommentService;
-import com.campus.news.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -21,13 +20,11 @@ import java.util.Map;
 public class VideoCommentController {
     
     private final VideoCommentService commentService;
-    private final UserService userService;
     
     @Operation(summary = "发表评论")
     @PostMapping("/create")
     public Result<VideoComment> createComment(@RequestBody Map<String, Object> params,
-                                               Authentication authentication) {
-        Long userId = getCurrentUserId(authentication);
+                                               @CurrentUser Long userId) {
         Long videoId = Long.valueOf(params.get("videoId").toString());
         String content = params.get("content").toString();
         Long parentId = params.get("parentId") != null ? 
@@ -43,8 +40,7 @@ public class VideoCommentController {
             @RequestParam(defaultValue = "1") Integer current,
             @RequestParam(defaultValue = "20") Integer size,
             @RequestParam(defaultValue = "hot") String sortBy,
-            Authentication authentication) {
-        Long userId = authentication != null ? getCurrentUserId(authentication) : null;
+            @CurrentUser(required = false) Long userId) {
         return Result.success(commentService.getComments(videoId, current, size, sortBy, userId));
     }
     
@@ -52,32 +48,21 @@ public class VideoCommentController {
     @GetMapping("/replies/{commentId}")
     public Result<List<VideoComment>> getReplies(
             @PathVariable Long commentId,
-            Authentication authentication) {
-        Long userId = authentication != null ? getCurrentUserId(authentication) : null;
+            @CurrentUser(required = false) Long userId) {
         return Result.success(commentService.getAllReplies(commentId, userId));
     }
     
     @Operation(summary = "删除评论")
     @DeleteMapping("/delete/{commentId}")
     public Result<Boolean> deleteComment(@PathVariable Long commentId,
-                                          Authentication authentication) {
-        Long userId = getCurrentUserId(authentication);
+                                          @CurrentUser Long userId) {
         return Result.success(commentService.deleteComment(commentId, userId));
     }
     
     @Operation(summary = "点赞/取消点赞评论")
     @PostMapping("/like/{commentId}")
     public Result<Boolean> toggleLike(@PathVariable Long commentId,
-                                       Authentication authentication) {
-        Long userId = getCurrentUserId(authentication);
+                                       @CurrentUser Long userId) {
         return Result.success(commentService.toggleCommentLike(commentId, userId));
     }
-    
-    private Long getCurrentUserId(Authentication authentication) {
-        String username = authentication.getName();
-        com.campus.news.entity.User userEntity = userService.getOne(
-            new com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<com.campus.news.entity.User>()
-                .eq("username", username));
-        return userEntity.getId();
-    }
 }
@@ -1,21 +1,22 @@
 package com.campus.news.controller;
 
+import com.campus.news.common.CursorPageResult;
+import com.campus.news.common.FeedCursor;
 import com.campus.news.common.PageResult;
 import com.campus.news.common.Result;
 import com.campus.news.dto.VideoCreateRequest;
 import com.campus.news.dto.VideoQueryRequest;
 import com.campus.news.entity.Video;
 import com.campus.news.entity.VideoCategory;
+import com.campus.news.security.CurrentUser;
 import com.campus.news.service.VideoCategoryService;
 import com.campus.news.service.VideoLikeService;
 import com.campus.news.service.VideoService;
-import com.campus.news.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -29,28 +30,31 @@ public class VideoController {
     private final VideoService videoService;
     private final VideoLikeService videoLikeService;
     private final VideoCategoryService videoCategoryService;
-    private final UserService userService;
     
     @Operation(summary = "上传视频信息")
     @PostMapping("/create")
     public Result<Video> createVideo(@Valid @RequestBody VideoCreateRequest request,
-                                     Authentication authentication) {
-        Long userId = getCurrentUserId(authentication);
+                                     @CurrentUser Long userId) {
         return Result.success(videoService.createVideo(request, userId));
     }
     
     @Operation(summary = "获取视频列表")
     @GetMapping("/list")
     public Result<PageResult<Video>> getVideoList(VideoQueryRequest request,
-                                                   Authentication authentication) {
-        Long userId = authentication != null ? getCurrentUserId(authentication) : null;
+                                                   @CurrentUser(required = false) Long userId) {
         return Result.success(videoService.getVideoList(request, userId));
     }
     
+    @Operation(summary = "获取视频信息流(游标分页)")
+    @GetMapping("/feed")
+    public Result<CursorPageResult<Video>> getVideoFeed(VideoQueryRequest request,
+                                                        @CurrentUser(required = false) Long userId) {
+        return Result.success(videoService.getVideoFeed(request, userId));
+    }
+    
     @Operation(summary = "获取视频详情")
     @GetMapping("/detail/{id}")
-    public Result<Video> getVideoDetail(@PathVariable Long id, Authentication authentication) {
-        Long userId = authentication != null ? getCurrentUserId(authentication) : null;
+    public Result<Video> getVideoDetail(@PathVariable Long id, @CurrentUser(required = false) Long userId) {
         return Result.success(videoService.getVideoDetail(id, userId));
     }
     
@@ -58,22 +62,19 @@ public class VideoController {
     @PutMapping("/update/{id}")
     public Result<Boolean> updateVideo(@PathVariable Long id,
                                        @Valid @RequestBody VideoCreateRequest request,
-                                       Authentication authentication) {
-        Long userId = getCurrentUserId(authentication);
+                                       @CurrentUser Long userId) {
         return Result.success(videoService.updateVideo(id, request, userId));
     }
     
     @Operation(summary = "删除视频")
     @DeleteMapping("/delete/{id}")
-    public Result<Boolean> deleteVideo(@PathVariable Long id, Authentication authentication) {
-        Long userId = getCurrentUserId(authentication);
+    public Result<Boolean> deleteVideo(@PathVariable Long id, @CurrentUser Long userId) {
         return Result.success(videoService.deleteVideo(id, userId));
     }
     
     @Operation(summary = "点赞/取消点赞")
     @PostMapping("/like/{id}")
-    public Result<Boolean> toggleLike(@PathVariable Long id, Authentication authentication) {
-        Long userId = getCurrentUserId(authentication);
+    public Result<Boolean> toggleLike(@PathVariable Long id, @CurrentUser Long userId) {
         return Result.success(videoLikeService.toggleLike(id, userId));
     }
     
@@ -92,8 +93,10 @@ public class VideoController {
     
     @Operation(summary = "获取热门视频")
     @GetMapping("/hot")
-    public Result<List<Video>> getHotVideos(@RequestParam(defaultValue = "10") Integer count) {
-        return Result.success(videoService.getHotVideos(count));
+    public Result<List<Video>> getHotVideos(
+            @RequestParam(defaultValue = "10") Integer count,
+            @CurrentUser(required = false) Long userId) {
+        return Result.success(videoService.getHotVideos(FeedCursor.clampSize(count, 10), userId));
     }
     
     @Operation(summary = "获取我点赞的视频")
@@ -101,8 +104,7 @@ public class VideoController {
     public Result<PageResult<Video>> getLikedVideos(
             @RequestParam(defaultValue = "1") Integer current,
             @RequestParam(defaultValue = "12") Integer size,
-            Authentication authentication) {
-        Long userId = getCurrentUserId(authentication);
+            @CurrentUser Long userId) {
         return Result.success(videoService.getLikedVideos(userId, current, size));
     }
     
@@ -111,8 +113,7 @@ public class VideoController {
     public Result<PageResult<Video>> getMyVideos(
             @RequestParam(defaultValue = "1") Integer current,
             @RequestParam(defaultValue = "12") Integer size,
-            Authentication authentication) {
-        Long userId = getCurrentUserId(authentication);
+            @CurrentUser Long userId) {
         return Result.success(videoService.getMyVideos(userId, current, size));
     }
     
@@ -121,17 +122,15 @@ public class VideoController {
     public Result<List<Video>> getRelatedVideos(
             @PathVariable Long id,
             @RequestParam(defaultValue = "10") Integer count,
-            Authentication authentication) {
-        Long userId = authentication != null ? getCurrentUserId(authentication) : null;
-        return Result.success(videoService.getRelatedVideos(id, count, userId));
+            @CurrentUser(required = false) Long userId) {
+        return Result.success(videoService.getRelatedVideos(id, FeedCursor.clampSize(count, 10), userId));
     }
     
     @Operation(summary = "获取用户频道信息")
     @GetMapping("/channel/{userId}")
     public Result<java.util.Map<String, Object>> getChannelInfo(
             @PathVariable Long userId,
-            Authentication authentication) {
-        Long currentUserId = authentication != null ? getCurrentUserId(authentication) : null;
+            @CurrentUser(required = false) Long currentUserId) {
         return Result.success(videoService.getChannelInfo(userId, currentUserId));
     }
     
@@ -142,8 +141,7 @@ public class VideoController {
             @RequestParam(defaultValue = "1") Integer current,
             @RequestParam(defaultValue = "12") Integer size,
             @RequestParam(defaultValue = "date") String sortBy,
-            Authentication authentication) {
-        Long currentUserId = authentication != null ? getCurrentUserId(authentication) : null;
+            @CurrentUser(required = false) Long currentUserId) {
         return Result.success(videoService.getChannelVideos(userId, current, size, sortBy, currentUserId));
     }
     
@@ -157,8 +155,7 @@ public class VideoController {
             @RequestParam(defaultValue = "relevance") String sortBy,
             @RequestParam(required = false) String duration,
             @RequestParam(required = false) String uploadDate,
-            Authentication authentication) {
-        Long userId = authentication != null ? getCurrentUserId(authentication) : null;
+            @CurrentUser(required = false) Long userId) {
         return Result.success(videoService.searchVideos(keyword, current, size, categoryCode, sortBy, duration, uploadDate, userId));
     }
     
@@ -172,9 +169,8 @@ public class VideoController {
     @GetMapping("/latest")
     public Result<List<Video>> getLatestVideos(
             @RequestParam(defaultValue = "10") Integer count,
-            Authentication authentication) {
-        Long userId = authentication != null ? getCurrentUserId(authentication) : null;
-        return Result.success(videoService.getLatestVideos(count, userId));
+            @CurrentUser(required = false) Long userId) {
+        return Result.success(videoService.getLatestVideos(FeedCursor.clampSize(count, 10), userId));
     }
     
     @Operation(summary = "获取视频统计信息")
@@ -182,12 +178,4 @@ public class VideoController {
     public Result<java.util.Map<String, Object>> getVideoStats(@PathVariable Long id) {
         return Result.success(videoService.getVideoStats(id));
     }
-    
-    private Long getCurrentUserId(Authentication authentication) {
-        String username = authentication.getName();
-        com.campus.news.entity.User userEntity = userService.getOne(
-            new com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<com.campus.news.entity.User>()
-                .eq("username", username));
-        return userEntity.getId();
-    }
 }
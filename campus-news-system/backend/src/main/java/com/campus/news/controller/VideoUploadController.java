@@ -3,14 +3,13 @@ package com.campus.news.controller;
 import com.campus.news.common.Result;
 import com.campus.news.dto.VideoCreateRequest;
 import com.campus.news.entity.Video;
-import com.campus.news.service.UserService;
+import com.campus.news.security.CurrentUser;
 import com.campus.news.service.VideoService;
 import com.campus.news.service.VideoStorageService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -26,7 +25,6 @@ public class VideoUploadController {
     
     private final VideoStorageService videoStorageService;
     private final VideoService videoService;
-    private final UserService userService;
     
     @Operation(summary = "上传视频文件")
     @PostMapping("/file")
@@ -63,10 +61,7 @@ public class VideoUploadController {
             @RequestParam(value = "channelName", required = false) String channelName,
             @RequestParam(value = "duration", required = false) String duration,
             @RequestParam(value = "durationSeconds", required = false) Integer durationSeconds,
-            Authentication authentication) {
-        
-        Long userId = getCurrentUserId(authentication);
-        
+            @CurrentUser Long userId) {
         // 上传视频文件
         String videoUrl = videoStorageService.uploadVideo(videoFile);
         
@@ -92,12 +87,4 @@ public class VideoUploadController {
         
         return Result.success(video);
     }
-    
-    private Long getCurrentUserId(Authentication authentication) {
-        String username = authentication.getName();
-        com.campus.news.entity.User userEntity = userService.getOne(
-            new com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<com.campus.news.entity.User>()
-                .eq("username", username));
-        return userEntity.getId();
-    }
 }
@@ -31,4 +31,12 @@ public class ArticleQueryRequest {
      * 排序方向: asc(升序), desc(降序)，默认desc
      */
     private String sortOrder = "desc";
+    /**
+     * 游标分页: 上一页返回的 nextCursor，为空时从第一页开始
+     */
+    private String cursor;
+    /**
+     * 跳过总数统计，只返回 hasMore（适合信息流）
+     */
+    private Boolean skipCount = false;
 }
@@ -17,5 +17,9 @@ public class CommentQueryRequest {
     private LocalDate startDate;
     @DateTimeFormat(pattern = "yyyy-MM-dd")
     private LocalDate endDate;
+    /**
+     * 跳过总数统计，只返回 hasMore
+     */
+    private Boolean skipCount = false;
 }
 
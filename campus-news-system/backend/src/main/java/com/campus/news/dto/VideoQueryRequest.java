@@ -13,4 +13,6 @@ public class VideoQueryRequest {
     private Integer isApproved;
     private String sortBy; // views, date
     private String sortOrder; // asc, desc
+    private String cursor; // 游标分页: 上一页返回的 nextCursor
+    private Boolean skipCount = false; // 跳过总数统计，只返回 hasMore
 }
@@ -20,9 +20,19 @@ public class Article {
     private Integer viewCount;
     private Integer likeCount;
     private Integer commentCount;
+    
+    /**
+     * 最火评论ID，评论新增/删除时维护，列表直接按ID读取
+     */
+    private Long hotCommentId;
     private Integer isPinned;
     private Integer isApproved;
     
+    /**
+     * 审核通过（发布）时间，关注时间线按此排序
+     */
+    private LocalDateTime publishedAt;
+    
     @TableLogic(value = "1", delval = "0")
     private Integer status;
     
@@ -46,6 +46,12 @@ public class Comment {
     @TableField(exist = false)
     private List<Comment> replies;
     
+    /**
+     * 回复总数（分页加载时 replies 只包含前几条）
+     */
+    @TableField(exist = false)
+    private Integer replyCount;
+    
     @TableField(exist = false)
     private Article article;
 }
@@ -45,6 +45,11 @@ public class Notification {
      */
     private Integer isRead;
     
+    /**
+     * 合并的触发人数：点赞/收藏/关注在聚合窗口内合并为一条，单条通知为 1
+     */
+    private Integer aggregateCount;
+    
     @TableField(fill = FieldFill.INSERT)
     private LocalDateTime createdAt;
     
@@ -3,7 +3,76 @@ package com.campus.news.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.campus.news.entity.Article;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface ArticleMapper extends BaseMapper<Article> {
+    
+    /**
+     * 批量累加浏览量（key: articleId, value: 增量），一条 UPDATE 完成整批
+     */
+    @Update("<script>" +
+            "UPDATE article SET view_count = view_count + CASE id " +
+            "<foreach collection='deltas' index='id' item='delta'>WHEN #{id} THEN #{delta} </foreach>" +
+            "END WHERE id IN " +
+            "<foreach collection='deltas' index='id' item='delta' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int batchIncrementViewCount(@Param("deltas") Map<Long, Long> deltas);
+    
+    /**
+     * 点赞数与 article_like 实际记录数不一致的文章ID（对账用）
+     */
+    @Select("SELECT a.id FROM article a " +
+            "LEFT JOIN (SELECT article_id, COUNT(*) AS cnt FROM article_like GROUP BY article_id) l " +
+            "ON l.article_id = a.id WHERE COALESCE(a.like_count, 0) <> COALESCE(l.cnt, 0)")
+    List<Long> selectLikeCountDriftIds();
+    
+    /**
+     * 评论数与 comment 表有效评论数不一致的文章ID（对账用）
+     */
+    @Select("SELECT a.id FROM article a " +
+            "LEFT JOIN (SELECT article_id, COUNT(*) AS cnt FROM comment WHERE status = 1 GROUP BY article_id) c " +
+            "ON c.article_id = a.id WHERE COALESCE(a.comment_count, 0) <> COALESCE(c.cnt, 0)")
+    List<Long> selectCommentCountDriftIds();
+    
+    @Update("UPDATE article SET like_count = " +
+            "(SELECT COUNT(*) FROM article_like WHERE article_id = #{id}) WHERE id = #{id}")
+    int recomputeLikeCount(@Param("id") Long id);
+    
+    @Update("UPDATE article SET comment_count = " +
+            "(SELECT COUNT(*) FROM comment WHERE article_id = #{id} AND status = 1) WHERE id = #{id}")
+    int recomputeCommentCount(@Param("id") Long id);
+    
+    /**
+     * 文章当前最火评论：点赞数最高、同分取最早的一条有效评论
+     */
+    String HOT_COMMENT_SUBQUERY = "(SELECT c.id FROM comment c WHERE c.article_id = a.id AND c.status = 1 " +
+            "ORDER BY c.like_count DESC, c.id ASC LIMIT 1)";
+    
+    /**
+     * 文章还没有最火评论时以新评论作为最火评论（新评论点赞数为 0，不会超过已有评论）
+     */
+    @Update("UPDATE article SET hot_comment_id = #{commentId} WHERE id = #{articleId} AND hot_comment_id IS NULL")
+    int offerHotComment(@Param("articleId") Long articleId, @Param("commentId") Long commentId);
+    
+    /**
+     * 最火评论指向 commentId 时重新计算（评论被删除或点赞数下降后调用）
+     */
+    @Update("UPDATE article a SET a.hot_comment_id = " + HOT_COMMENT_SUBQUERY +
+            " WHERE a.id = #{articleId} AND a.hot_comment_id = #{commentId}")
+    int recomputeHotCommentIfPointsTo(@Param("articleId") Long articleId, @Param("commentId") Long commentId);
+    
+    /**
+     * 最火评论指针与实际不一致的文章ID（对账用）
+     */
+    @Select("SELECT a.id FROM article a WHERE NOT (a.hot_comment_id <=> " + HOT_COMMENT_SUBQUERY + ")")
+    List<Long> selectHotCommentDriftIds();
+    
+    @Update("UPDATE article a SET a.hot_comment_id = " + HOT_COMMENT_SUBQUERY + " WHERE a.id = #{id}")
+    int recomputeHotComment(@Param("id") Long id);
 }
@@ -3,7 +3,36 @@ package com.campus.news.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.campus.news.entity.Comment;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 @Mapper
 public interface CommentMapper extends BaseMapper<Comment> {
+    
+    /**
+     * 一次查询取一页顶级评论（按ID倒序，cursor 为上一页最后一条的ID）及每条顶级评论的前 replyLimit 条回复，
+     * 回复行的 reply_count 为该顶级评论下的回复总数
+     */
+    @Select("<script>" +
+            "SELECT c.id, c.article_id, c.user_id, c.content, c.parent_id, c.reply_to_user_id, c.root_id, " +
+            "c.like_count, c.status, c.created_at, c.updated_at, 0 AS reply_count " +
+            "FROM comment c JOIN (" + TOP_LEVEL_PAGE + ") p ON c.id = p.id " +
+            "UNION ALL " +
+            "SELECT id, article_id, user_id, content, parent_id, reply_to_user_id, root_id, " +
+            "like_count, status, created_at, updated_at, reply_count FROM (" +
+            "  SELECT c.*, ROW_NUMBER() OVER (PARTITION BY c.root_id ORDER BY c.id) AS rn, " +
+            "  COUNT(*) OVER (PARTITION BY c.root_id) AS reply_count " +
+            "  FROM comment c JOIN (" + TOP_LEVEL_PAGE + ") p ON c.root_id = p.id WHERE c.status = 1" +
+            ") r WHERE r.rn &lt;= #{replyLimit}" +
+            "</script>")
+    List<Comment> selectCommentPage(@Param("articleId") Long articleId,
+                                    @Param("cursor") Long cursor,
+                                    @Param("limit") int limit,
+                                    @Param("replyLimit") int replyLimit);
+    
+    String TOP_LEVEL_PAGE = "SELECT id FROM comment WHERE article_id = #{articleId} AND root_id IS NULL AND status = 1 " +
+            "<if test='cursor != null'>AND id &lt; #{cursor} </if>" +
+            "ORDER BY id DESC LIMIT #{limit}";
 }
@@ -2,8 +2,25 @@ package com.campus.news.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.campus.news.entity.Notification;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 @Mapper
 public interface NotificationMapper extends BaseMapper<Notification> {
+
+    /**
+     * 批量插入通知，一条 INSERT 完成整批，自增ID回填到各对象
+     */
+    @Insert("<script>" +
+            "INSERT INTO notification (user_id, from_user_id, type, article_id, comment_id, content, is_read, aggregate_count, created_at) VALUES " +
+            "<foreach collection='notifications' item='n' separator=','>" +
+            "(#{n.userId}, #{n.fromUserId}, #{n.type}, #{n.articleId}, #{n.commentId}, #{n.content}, #{n.isRead}, #{n.aggregateCount}, #{n.createdAt})" +
+            "</foreach>" +
+            "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "notifications.id", keyColumn = "id")
+    int insertBatch(@Param("notifications") List<Notification> notifications);
 }
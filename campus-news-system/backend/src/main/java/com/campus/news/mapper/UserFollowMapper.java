@@ -3,7 +3,25 @@ package com.campus.news.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.campus.news.entity.UserFollow;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 @Mapper
 public interface UserFollowMapper extends BaseMapper<UserFollow> {
+    
+    /**
+     * 用户关注的人中粉丝数低于 threshold 的（发布时推送到粉丝时间线）
+     */
+    @Select("SELECT uf.following_id FROM user_follow uf JOIN user u ON u.id = uf.following_id " +
+            "WHERE uf.follower_id = #{userId} AND COALESCE(u.follower_count, 0) < #{threshold}")
+    List<Long> selectOrdinaryFollowingIds(@Param("userId") Long userId, @Param("threshold") int threshold);
+    
+    /**
+     * 用户关注的人中粉丝数不低于 threshold 的（读取时间线时再合并其文章）
+     */
+    @Select("SELECT uf.following_id FROM user_follow uf JOIN user u ON u.id = uf.following_id " +
+            "WHERE uf.follower_id = #{userId} AND COALESCE(u.follower_count, 0) >= #{threshold}")
+    List<Long> selectPopularFollowingIds(@Param("userId") Long userId, @Param("threshold") int threshold);
 }
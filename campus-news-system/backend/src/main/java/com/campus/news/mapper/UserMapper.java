@@ -2,12 +2,40 @@ package com.campus.news.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.campus.news.entity.User;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
 
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
     
     @Select("SELECT * FROM user WHERE username = #{username}")
     User findByUsername(String username);
+    
+    /**
+     * 粉丝数与 user_follow 实际记录数不一致的用户ID（对账用）
+     */
+    @Select("SELECT u.id FROM user u " +
+            "LEFT JOIN (SELECT following_id, COUNT(*) AS cnt FROM user_follow GROUP BY following_id) f " +
+            "ON f.following_id = u.id WHERE COALESCE(u.follower_count, 0) <> COALESCE(f.cnt, 0)")
+    List<Long> selectFollowerCountDriftIds();
+    
+    /**
+     * 关注数与 user_follow 实际记录数不一致的用户ID（对账用）
+     */
+    @Select("SELECT u.id FROM user u " +
+            "LEFT JOIN (SELECT follower_id, COUNT(*) AS cnt FROM user_follow GROUP BY follower_id) f " +
+            "ON f.follower_id = u.id WHERE COALESCE(u.following_count, 0) <> COALESCE(f.cnt, 0)")
+    List<Long> selectFollowingCountDriftIds();
+    
+    @Update("UPDATE user SET follower_count = " +
+            "(SELECT COUNT(*) FROM user_follow WHERE following_id = #{id}) WHERE id = #{id}")
+    int recomputeFollowerCount(@Param("id") Long id);
+    
+    @Update("UPDATE user SET following_count = " +
+            "(SELECT COUNT(*) FROM user_follow WHERE follower_id = #{id}) WHERE id = #{id}")
+    int recomputeFollowingCount(@Param("id") Long id);
 }
@@ -3,7 +3,26 @@ package com.campus.news.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.campus.news.entity.VideoComment;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
 
 @Mapper
 public interface VideoCommentMapper extends BaseMapper<VideoComment> {
+    
+    /**
+     * 批量获取多条评论各自的前 limit 条回复（按发布时间正序）
+     */
+    @Select("<script>" +
+            "SELECT id, video_id, user_id, content, parent_id, reply_to_user_id, like_count, status, " +
+            "created_at, updated_at FROM (" +
+            "  SELECT c.*, ROW_NUMBER() OVER (PARTITION BY c.parent_id ORDER BY c.created_at ASC, c.id ASC) AS rn " +
+            "  FROM video_comment c WHERE c.status = 1 AND c.parent_id IN " +
+            "  <foreach collection='parentIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            ") t WHERE t.rn &lt;= #{limit} ORDER BY parent_id, rn" +
+            "</script>")
+    List<VideoComment> selectTopRepliesByParentIds(@Param("parentIds") Collection<Long> parentIds,
+                                                   @Param("limit") int limit);
 }
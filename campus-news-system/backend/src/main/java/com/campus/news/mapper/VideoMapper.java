@@ -3,7 +3,22 @@ package com.campus.news.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.campus.news.entity.Video;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Map;
 
 @Mapper
 public interface VideoMapper extends BaseMapper<Video> {
+    
+    /**
+     * 批量累加浏览量（key: videoId, value: 增量），一条 UPDATE 完成整批
+     */
+    @Update("<script>" +
+            "UPDATE video SET view_count = view_count + CASE id " +
+            "<foreach collection='deltas' index='id' item='delta'>WHEN #{id} THEN #{delta} </foreach>" +
+            "END WHERE id IN " +
+            "<foreach collection='deltas' index='id' item='delta' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int batchIncrementViewCount(@Param("deltas") Map<Long, Long> deltas);
 }
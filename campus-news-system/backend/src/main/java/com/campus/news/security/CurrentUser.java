@@ -0,0 +1,15 @@
+package com.campus.news.security;
+
+import java.lang.annotation.*;
+
+/**
+ * 注入当前登录用户ID（Long），取自认证时解析好的 {@link LoginUser}，不查数据库
+ * required = false 时未登录注入 null，用于公开接口中的"是否已点赞"等可选信息
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+
+    boolean required() default true;
+}
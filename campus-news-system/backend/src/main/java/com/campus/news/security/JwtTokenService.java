@@ -0,0 +1,153 @@
+package com.campus.news.security;
+
+import com.campus.news.entity.Role;
+import com.campus.news.service.RoleService;
+import com.campus.news.util.JwtUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JWT 认证服务
+ * 用户ID和角色直接取自令牌声明，不再逐请求查库；已验证的令牌在本地短暂缓存，
+ * 命中时连签名校验也省掉。封禁或角色变更时写入 Redis 撤销时间点，早于该时间签发的令牌一律失效。
+ */
+@Slf4j
+@Service
+public class JwtTokenService {
+
+    private static final String REVOKED_KEY_PREFIX = "auth:revoked:";
+
+    private final JwtUtil jwtUtil;
+    private final RoleService roleService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Cache<String, VerifiedToken> verifiedCache;
+    private final boolean revocationFailOpen;
+
+    public JwtTokenService(JwtUtil jwtUtil,
+                           RoleService roleService,
+                           StringRedisTemplate stringRedisTemplate,
+                           @Value("${jwt.verified-cache.ttl-seconds:30}") long ttlSeconds,
+                           @Value("${jwt.verified-cache.max-size:10000}") long maxSize,
+                           @Value("${jwt.revocation.fail-open:false}") boolean revocationFailOpen) {
+        this.jwtUtil = jwtUtil;
+        this.roleService = roleService;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.revocationFailOpen = revocationFailOpen;
+        this.verifiedCache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * 解析并校验令牌，返回已认证用户；令牌无效、过期或已被撤销时返回 null
+     */
+    public LoginUser authenticate(String token) {
+        VerifiedToken cached = verifiedCache.getIfPresent(token);
+        if (cached != null) {
+            if (cached.expiresAt() > System.currentTimeMillis()) {
+                return cached.loginUser();
+            }
+            verifiedCache.invalidate(token);
+            return null;
+        }
+
+        Claims claims;
+        try {
+            claims = jwtUtil.parseToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+
+        Long userId = claims.get("userId", Long.class);
+        if (userId == null) {
+            return null;
+        }
+        Boolean revoked = isRevoked(userId, claims.getIssuedAt().getTime());
+        if (Boolean.TRUE.equals(revoked) || (revoked == null && !revocationFailOpen)) {
+            return null;
+        }
+
+        LoginUser loginUser = new LoginUser(userId, claims.getSubject(), resolveAuthorities(userId, claims));
+        // 撤销状态未能确认时不缓存，Redis 恢复后下一次请求重新检查
+        if (revoked != null) {
+            verifiedCache.put(token, new VerifiedToken(loginUser, claims.getExpiration().getTime()));
+        }
+        return loginUser;
+    }
+
+    /**
+     * 撤销用户在此之前签发的全部令牌（封禁、角色变更时调用）
+     * 处于事务中时提交后才写入，回滚的封禁不会留下撤销记录；
+     * 本节点立即生效，其他节点的已验证缓存最多在 ttl-seconds 后失效
+     */
+    public void revokeUserTokens(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doRevoke(userId);
+                }
+            });
+        } else {
+            doRevoke(userId);
+        }
+    }
+
+    private void doRevoke(Long userId) {
+        long now = System.currentTimeMillis();
+        try {
+            stringRedisTemplate.opsForValue().set(REVOKED_KEY_PREFIX + userId, String.valueOf(now),
+                    Duration.ofMillis(jwtUtil.getExpiration()));
+        } catch (Exception e) {
+            log.warn("写入令牌撤销记录失败 - 用户ID: {}, 原因: {}", userId, e.getMessage());
+        }
+        verifiedCache.asMap().values().removeIf(v -> v.loginUser().getUserId().equals(userId));
+    }
+
+    /**
+     * 签发时间不晚于撤销时间点的令牌视为已撤销。iat 精度为秒，与撤销同一秒内签发的令牌无法区分先后，
+     * 一并视为撤销（撤销后立即重新登录的用户需再登录一次）。Redis 不可用时返回 null
+     */
+    private Boolean isRevoked(Long userId, long issuedAt) {
+        String revokedAt;
+        try {
+            revokedAt = stringRedisTemplate.opsForValue().get(REVOKED_KEY_PREFIX + userId);
+        } catch (Exception e) {
+            log.warn("读取令牌撤销记录失败 - 用户ID: {}, 原因: {}", userId, e.getMessage());
+            return null;
+        }
+        return revokedAt != null && issuedAt / 1000 <= Long.parseLong(revokedAt) / 1000;
+    }
+
+    /**
+     * 新令牌直接读 roles 声明；旧令牌没有该声明，回退查一次角色（结果随令牌一起缓存）
+     */
+    @SuppressWarnings("unchecked")
+    private List<GrantedAuthority> resolveAuthorities(Long userId, Claims claims) {
+        Collection<String> roleNames = claims.get("roles", List.class);
+        if (roleNames == null) {
+            roleNames = roleService.getRolesByUserId(userId).stream().map(Role::getRoleName).toList();
+        }
+        return roleNames.stream()
+                .map(name -> (GrantedAuthority) new SimpleGrantedAuthority("ROLE_" + name))
+                .toList();
+    }
+
+    private record VerifiedToken(LoginUser loginUser, long expiresAt) {
+    }
+}
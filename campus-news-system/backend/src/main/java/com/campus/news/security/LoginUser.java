@@ -0,0 +1,35 @@
+package com.campus.news.security;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 已认证用户（从 JWT 声明构建，不含密码）
+ */
+@Getter
+public class LoginUser implements UserDetails {
+
+    private final Long userId;
+    private final String username;
+    private final List<GrantedAuthority> authorities;
+
+    public LoginUser(Long userId, String username, List<GrantedAuthority> authorities) {
+        this.userId = userId;
+        this.username = username;
+        this.authorities = List.copyOf(authorities);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+}
@@ -0,0 +1,91 @@
+package com.campus.news.service;
+
+import com.campus.news.entity.Article;
+import com.campus.news.entity.College;
+import com.campus.news.entity.Comment;
+import com.campus.news.entity.User;
+import com.campus.news.mapper.CommentMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 文章批量填充服务
+ * 先收集整页文章的关联ID，再按关系各执行一次 IN 查询，避免逐行查询带来的 N+1 问题；
+ * 最火评论读取文章行上维护的 hot_comment_id，按主键批量查询，不再逐篇排序
+ */
+@Service
+@RequiredArgsConstructor
+public class ArticleEnrichService {
+
+    private final UserService userService;
+    private final CollegeService collegeService;
+    private final ArticleLikeService articleLikeService;
+    private final ArticleFavoriteService articleFavoriteService;
+    private final CommentMapper commentMapper;
+
+    /**
+     * 填充单篇文章（详情页）
+     */
+    public void enrichArticle(Article article, Long currentUserId) {
+        if (article != null) {
+            enrichArticles(List.of(article), currentUserId);
+        }
+    }
+
+    /**
+     * 批量填充作者、学院、点赞/收藏状态和最火评论
+     */
+    public List<Article> enrichArticles(List<Article> articles, Long currentUserId) {
+        if (articles == null || articles.isEmpty()) {
+            return articles;
+        }
+
+        List<Long> articleIds = articles.stream().map(Article::getId).toList();
+
+        // 最火评论：按文章上维护的指针主键查询
+        Set<Long> hotCommentIds = articles.stream()
+                .map(Article::getHotCommentId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Comment> hotComments = hotCommentIds.isEmpty() ? Collections.emptyMap()
+                : commentMapper.selectBatchIds(hotCommentIds).stream()
+                        .collect(Collectors.toMap(Comment::getArticleId, c -> c, (a, b) -> a));
+
+        // 作者 + 最火评论的评论者，一次批量查询
+        Set<Long> userIds = new HashSet<>();
+        articles.forEach(a -> userIds.add(a.getAuthorId()));
+        hotComments.values().forEach(c -> userIds.add(c.getUserId()));
+        Map<Long, User> users = userService.getUserInfoMap(userIds);
+
+        Set<Long> collegeIds = articles.stream()
+                .map(Article::getCollegeId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, College> colleges = collegeIds.isEmpty() ? Collections.emptyMap()
+                : collegeService.listByIds(collegeIds).stream()
+                        .collect(Collectors.toMap(College::getId, c -> c));
+
+        Set<Long> likedIds = articleLikeService.getLikedArticleIds(currentUserId, articleIds);
+        Set<Long> favoritedIds = articleFavoriteService.getFavoritedArticleIds(currentUserId, articleIds);
+
+        for (Article article : articles) {
+            article.setAuthor(users.get(article.getAuthorId()));
+            if (article.getCollegeId() != null) {
+                article.setCollege(colleges.get(article.getCollegeId()));
+            }
+            if (currentUserId != null) {
+                article.setIsLiked(likedIds.contains(article.getId()));
+                article.setIsFavorited(favoritedIds.contains(article.getId()));
+            }
+            Comment hotComment = hotComments.get(article.getId());
+            if (hotComment != null) {
+                hotComment.setUser(users.get(hotComment.getUserId()));
+                article.setHotComment(hotComment);
+            }
+        }
+        return articles;
+    }
+}
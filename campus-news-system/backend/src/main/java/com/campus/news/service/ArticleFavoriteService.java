@@ -8,11 +8,15 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Set;
+
 @Service
 @RequiredArgsConstructor
 public class ArticleFavoriteService extends ServiceImpl<ArticleFavoriteMapper, ArticleFavorite> {
     
     private final ArticleFavoriteMapper articleFavoriteMapper;
+    private final InteractionStateService interactionStateService;
     
     @Transactional
     public boolean toggleFavorite(Long articleId, Long userId) {
@@ -23,19 +27,26 @@ public class ArticleFavoriteService extends ServiceImpl<ArticleFavoriteMapper, A
         
         if (existing != null) {
             articleFavoriteMapper.deleteById(existing.getId());
+            interactionStateService.onToggle(InteractionStateService.Type.ARTICLE_FAVORITE, userId, articleId, false);
             return false;
         } else {
             ArticleFavorite favorite = new ArticleFavorite();
             favorite.setArticleId(articleId);
             favorite.setUserId(userId);
             articleFavoriteMapper.insert(favorite);
+            interactionStateService.onToggle(InteractionStateService.Type.ARTICLE_FAVORITE, userId, articleId, true);
             return true;
         }
     }
     
     public boolean isFavorited(Long articleId, Long userId) {
-        QueryWrapper<ArticleFavorite> wrapper = new QueryWrapper<>();
-        wrapper.eq("article_id", articleId).eq("user_id", userId);
-        return articleFavoriteMapper.selectCount(wrapper) > 0;
+        return interactionStateService.contains(InteractionStateService.Type.ARTICLE_FAVORITE, userId, articleId);
+    }
+    
+    /**
+     * 批量判断用户收藏过哪些文章
+     */
+    public Set<Long> getFavoritedArticleIds(Long userId, Collection<Long> articleIds) {
+        return interactionStateService.filter(InteractionStateService.Type.ARTICLE_FAVORITE, userId, articleIds);
     }
 }
@@ -11,12 +11,19 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Set;
+
 @Service
 @RequiredArgsConstructor
 public class ArticleLikeService extends ServiceImpl<ArticleLikeMapper, ArticleLike> {
     
     private final ArticleLikeMapper articleLikeMapper;
     private final ArticleMapper articleMapper;
+    private final CounterService counterService;
+    private final TrendingService trendingService;
+    private final InteractionStateService interactionStateService;
+    private final TopicActivityService topicActivityService;
     @Lazy
     private final RealtimeNotificationService realtimeNotificationService;
     
@@ -30,7 +37,10 @@ public class ArticleLikeService extends ServiceImpl<ArticleLikeMapper, ArticleLi
         if (existing != null) {
             // 取消点赞
             articleLikeMapper.deleteById(existing.getId());
-            updateArticleLikeCount(articleId, -1);
+            counterService.adjustArticleLikeCount(articleId, -1);
+            topicActivityService.articleLikeChanged(articleId);
+            trendingService.record(TrendingService.Board.ARTICLE, articleId, TrendingService.Event.LIKE, -1);
+            interactionStateService.onToggle(InteractionStateService.Type.ARTICLE_LIKE, userId, articleId, false);
             return false;
         } else {
             // 点赞
@@ -38,7 +48,10 @@ public class ArticleLikeService extends ServiceImpl<ArticleLikeMapper, ArticleLi
             like.setArticleId(articleId);
             like.setUserId(userId);
             articleLikeMapper.insert(like);
-            updateArticleLikeCount(articleId, 1);
+            counterService.adjustArticleLikeCount(articleId, 1);
+            topicActivityService.articleLikeChanged(articleId);
+            trendingService.record(TrendingService.Board.ARTICLE, articleId, TrendingService.Event.LIKE, 1);
+            interactionStateService.onToggle(InteractionStateService.Type.ARTICLE_LIKE, userId, articleId, true);
             
             // 🔔 发送实时通知
             Article article = articleMapper.selectById(articleId);
@@ -52,16 +65,13 @@ public class ArticleLikeService extends ServiceImpl<ArticleLikeMapper, ArticleLi
     }
     
     public boolean isLiked(Long articleId, Long userId) {
-        QueryWrapper<ArticleLike> wrapper = new QueryWrapper<>();
-        wrapper.eq("article_id", articleId).eq("user_id", userId);
-        return articleLikeMapper.selectCount(wrapper) > 0;
+        return interactionStateService.contains(InteractionStateService.Type.ARTICLE_LIKE, userId, articleId);
     }
     
-    private void updateArticleLikeCount(Long articleId, int delta) {
-        Article article = articleMapper.selectById(articleId);
-        if (article != null) {
-            article.setLikeCount(article.getLikeCount() + delta);
-            articleMapper.updateById(article);
-        }
+    /**
+     * 批量判断用户点赞过哪些文章
+     */
+    public Set<Long> getLikedArticleIds(Long userId, Collection<Long> articleIds) {
+        return interactionStateService.filter(InteractionStateService.Type.ARTICLE_LIKE, userId, articleIds);
     }
 }
@@ -1,15 +1,18 @@
 package com.campus.news.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.campus.news.common.CursorPageResult;
+import com.campus.news.common.LookaheadPage;
+import com.campus.news.common.FeedCursor;
 import com.campus.news.common.PageResult;
 import com.campus.news.dto.ArticleCreateRequest;
 import com.campus.news.dto.ArticleQueryRequest;
 import com.campus.news.entity.Article;
 import com.campus.news.entity.ArticleFavorite;
 import com.campus.news.entity.ArticleLike;
-import com.campus.news.entity.Comment;
 import com.campus.news.entity.User;
 import com.campus.news.mapper.CommentMapper;
 import com.campus.news.exception.BusinessException;
@@ -20,6 +23,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -28,11 +32,12 @@ public class ArticleService extends ServiceImpl<ArticleMapper, Article> {
     
     private final ArticleMapper articleMapper;
     private final UserService userService;
-    private final CollegeService collegeService;
-    private final ArticleLikeService articleLikeService;
-    private final ArticleFavoriteService articleFavoriteService;
+    private final ArticleEnrichService articleEnrichService;
     private final CommentMapper commentMapper;
     private final TagService tagService;
+    private final ViewCountService viewCountService;
+    private final TrendingService trendingService;
+    private final TimelineService timelineService;
     
     @Transactional
     public Article createArticle(ArticleCreateRequest request, Long userId) {
@@ -85,7 +90,115 @@ public class ArticleService extends ServiceImpl<ArticleMapper, Article> {
     }
     
     public PageResult<Article> getArticleList(ArticleQueryRequest request, Long currentUserId) {
-        Page<Article> page = new Page<>(request.getCurrent(), request.getSize());
+        // 跳过 COUNT 时多取一条判断是否还有下一页
+        Page<Article> page = Boolean.TRUE.equals(request.getSkipCount())
+                ? new LookaheadPage<>(request.getCurrent(), request.getSize())
+                : new Page<>(request.getCurrent(), request.getSize());
+        QueryWrapper<Article> wrapper = buildListWrapper(request);
+        
+        // 首先按置顶排序
+        wrapper.orderByDesc("is_pinned");
+        
+        // 根据排序参数设置排序规则
+        String sortBy = request.getSortBy();
+        boolean isAsc = "asc".equalsIgnoreCase(request.getSortOrder());
+        
+        if ("views".equals(sortBy)) {
+            // 按浏览量(热度)排序
+            if (isAsc) {
+                wrapper.orderByAsc("view_count");
+            } else {
+                wrapper.orderByDesc("view_count");
+            }
+        } else {
+            // 默认按日期排序
+            if (isAsc) {
+                wrapper.orderByAsc("created_at");
+            } else {
+                wrapper.orderByDesc("created_at");
+            }
+        }
+        
+        Page<Article> resultPage = articleMapper.selectPage(page, wrapper);
+        
+        // 批量填充关联数据
+        articleEnrichService.enrichArticles(resultPage.getRecords(), currentUserId);
+        
+        return PageResult.of(resultPage);
+    }
+    
+    /**
+     * 游标分页获取文章列表（无限滚动）
+     * 排序为 (置顶, 排序键, id)，先取置顶段再取非置顶段，每段都从游标位置之后按索引顺序查找，
+     * 不需要像 OFFSET 那样扫描并丢弃前面的所有行
+     */
+    public CursorPageResult<Article> getArticleFeed(ArticleQueryRequest request, Long currentUserId) {
+        int size = FeedCursor.clampSize(request.getSize(), 10);
+        boolean byViews = "views".equals(request.getSortBy());
+        boolean isAsc = "asc".equalsIgnoreCase(request.getSortOrder());
+        String sortColumn = byViews ? "view_count" : "created_at";
+        FeedCursor cursor = FeedCursor.decode(request.getCursor());
+        
+        // 多取一条用于判断是否还有下一页
+        List<Article> records = new ArrayList<>();
+        if (cursor == null || cursor.getPinned() == 1) {
+            QueryWrapper<Article> pinnedWrapper = buildListWrapper(request);
+            pinnedWrapper.eq("is_pinned", 1);
+            applySeek(pinnedWrapper, sortColumn, byViews, isAsc, cursor);
+            pinnedWrapper.last("LIMIT " + (size + 1));
+            records.addAll(articleMapper.selectList(pinnedWrapper));
+        }
+        if (records.size() <= size) {
+            QueryWrapper<Article> normalWrapper = buildListWrapper(request);
+            normalWrapper.and(w -> w.isNull("is_pinned").or().ne("is_pinned", 1));
+            applySeek(normalWrapper, sortColumn, byViews, isAsc,
+                    cursor != null && cursor.getPinned() == 0 ? cursor : null);
+            normalWrapper.last("LIMIT " + (size + 1 - records.size()));
+            records.addAll(articleMapper.selectList(normalWrapper));
+        }
+        
+        boolean hasMore = records.size() > size;
+        if (hasMore) {
+            records = new ArrayList<>(records.subList(0, size));
+        }
+        
+        String nextCursor = null;
+        if (hasMore && !records.isEmpty()) {
+            Article last = records.get(records.size() - 1);
+            int pinned = last.getIsPinned() != null && last.getIsPinned() == 1 ? 1 : 0;
+            String sortKey = byViews ? String.valueOf(last.getViewCount()) : last.getCreatedAt().toString();
+            nextCursor = new FeedCursor(pinned, sortKey, last.getId()).encode();
+        }
+        
+        articleEnrichService.enrichArticles(records, currentUserId);
+        return new CursorPageResult<>(records, nextCursor, hasMore, (long) size);
+    }
+    
+    /**
+     * 在排序键上追加 "位于游标之后" 条件及排序（id 作为并列时的唯一排序键）
+     */
+    private void applySeek(QueryWrapper<Article> wrapper, String sortColumn, boolean byViews,
+                           boolean isAsc, FeedCursor cursor) {
+        if (cursor != null) {
+            Object key = cursor.sortValue(byViews);
+            long id = cursor.getId();
+            if (isAsc) {
+                wrapper.and(w -> w.gt(sortColumn, key).or(o -> o.eq(sortColumn, key).gt("id", id)));
+            } else {
+                wrapper.and(w -> w.lt(sortColumn, key).or(o -> o.eq(sortColumn, key).lt("id", id)));
+            }
+        }
+        if (isAsc) {
+            wrapper.orderByAsc(sortColumn, "id");
+        } else {
+            wrapper.orderByDesc(sortColumn, "id");
+        }
+    }
+    
+    /**
+     * 构建文章列表的筛选条件（不含排序）
+     */
+    private QueryWrapper<Article> buildListWrapper(ArticleQueryRequest request) {
         QueryWrapper<Article> wrapper = new QueryWrapper<>();
         
         if (request.getBoardType() != null) {
@@ -123,38 +236,7 @@ public class ArticleService extends ServiceImpl<ArticleMapper, Article> {
             wrapper.lt("created_at", endDateTime);
         }
         
-        // 首先按置顶排序
-        wrapper.orderByDesc("is_pinned");
-        
-        // 根据排序参数设置排序规则
-        String sortBy = request.getSortBy();
-        boolean isAsc = "asc".equalsIgnoreCase(request.getSortOrder());
-        
-        if ("views".equals(sortBy)) {
-            // 按浏览量(热度)排序
-            if (isAsc) {
-                wrapper.orderByAsc("view_count");
-            } else {
-                wrapper.orderByDesc("view_count");
-            }
-        } else {
-            // 默认按日期排序
-            if (isAsc) {
-                wrapper.orderByAsc("created_at");
-            } else {
-                wrapper.orderByDesc("created_at");
-            }
-        }
-        
-        Page<Article> resultPage = articleMapper.selectPage(page, wrapper);
-        
-        // 填充关联数据
-        resultPage.getRecords().forEach(article -> {
-            enrichArticle(article, currentUserId);
-        });
-        
-        return new PageResult<>(resultPage.getTotal(), resultPage.getRecords(),
-                resultPage.getCurrent(), resultPage.getSize());
+        return wrapper;
     }
     
     public Article getArticleDetail(Long id, Long currentUserId) {
@@ -163,56 +245,15 @@ public class ArticleService extends ServiceImpl<ArticleMapper, Article> {
             throw new BusinessException("文章不存在");
         }
         
-        // 增加浏览量
-        incrementViewCount(id);
-        
-        // 重新获取更新后的浏览量
-        Article updated = articleMapper.selectById(id);
-        if (updated != null) {
-            article.setViewCount(updated.getViewCount());
-        }
+        // 增加浏览量：计数先记在 Redis，定时批量写回，返回实时值
+        long pendingViews = viewCountService.incrementArticleView(id);
+        article.setViewCount((article.getViewCount() == null ? 0 : article.getViewCount()) + (int) pendingViews);
+        trendingService.record(TrendingService.Board.ARTICLE, id, TrendingService.Event.VIEW, 1);
         
-        enrichArticle(article, currentUserId);
+        articleEnrichService.enrichArticle(article, currentUserId);
         return article;
     }
     
-    private void enrichArticle(Article article, Long currentUserId) {
-        article.setAuthor(userService.getUserInfo(article.getAuthorId()));
-        if (article.getCollegeId() != null) {
-            article.setCollege(collegeService.getById(article.getCollegeId()));
-        }
-        
-        if (currentUserId != null) {
-            article.setIsLiked(articleLikeService.isLiked(article.getId(), currentUserId));
-            article.setIsFavorited(articleFavoriteService.isFavorited(article.getId(), currentUserId));
-        }
-        
-        // 查询最火评论（按点赞数降序取第一条）
-        QueryWrapper<Comment> commentWrapper = new QueryWrapper<>();
-        commentWrapper.eq("article_id", article.getId())
-                .orderByDesc("like_count")
-                .last("LIMIT 1");
-        Comment hotComment = commentMapper.selectOne(commentWrapper);
-        if (hotComment != null) {
-            // 填充评论用户信息
-            hotComment.setUser(userService.getUserInfo(hotComment.getUserId()));
-            article.setHotComment(hotComment);
-        }
-    }
-    
-    private void incrementViewCount(Long articleId) {
-        try {
-            // 直接更新数据库浏览量 +1
-            articleMapper.update(null, 
-                new com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper<Article>()
-                    .eq("id", articleId)
-                    .setSql("view_count = view_count + 1")
-            );
-        } catch (Exception ignored) {
-            // 更新失败不影响文章详情正常返回
-        }
-    }
-    
     @Transactional
     public boolean updateArticle(Long id, ArticleCreateRequest request, Long userId) {
         Article article = articleMapper.selectById(id);
@@ -227,12 +268,14 @@ public class ArticleService extends ServiceImpl<ArticleMapper, Article> {
             throw new BusinessException("无权限修改该文章");
         }
         
-        article.setTitle(request.getTitle());
-        article.setContent(request.getContent());
-        article.setSummary(request.getSummary());
-        article.setCoverImage(request.getCoverImage());
-        
-        boolean result = articleMapper.updateById(article) > 0;
+        // 只更新编辑的列，不回写先前读到的计数等字段，避免覆盖并发的原子增量
+        boolean result = articleMapper.update(null, new UpdateWrapper<Article>()
+                .eq("id", id)
+                .set(request.getTitle() != null, "title", request.getTitle())
+                .set(request.getContent() != null, "content", request.getContent())
+                .set(request.getSummary() != null, "summary", request.getSummary())
+                .set(request.getCoverImage() != null, "cover_image", request.getCoverImage())
+                .set("updated_at", LocalDateTime.now())) > 0;
         
         // 更新标签
         if (request.getTags() != null) {
@@ -256,36 +299,43 @@ public class ArticleService extends ServiceImpl<ArticleMapper, Article> {
             throw new BusinessException("无权限删除该文章");
         }
         
+        trendingService.remove(TrendingService.Board.ARTICLE, id);
         return articleMapper.deleteById(id) > 0;
     }
     
     @Transactional
     public boolean togglePinned(Long id, Integer isPinned) {
-        Article article = new Article();
-        article.setId(id);
-        article.setIsPinned(isPinned);
-        return articleMapper.updateById(article) > 0;
+        return articleMapper.update(null, new UpdateWrapper<Article>()
+                .eq("id", id)
+                .set("is_pinned", isPinned)
+                .set("updated_at", LocalDateTime.now())) > 0;
     }
     
     @Transactional
     public boolean approveArticle(Long id, Integer isApproved) {
-        Article article = new Article();
-        article.setId(id);
-        article.setIsApproved(isApproved);
-        return articleMapper.updateById(article) > 0;
+        LocalDateTime now = LocalDateTime.now();
+        boolean result = articleMapper.update(null, new UpdateWrapper<Article>()
+                .eq("id", id)
+                .set("is_approved", isApproved)
+                .set(Integer.valueOf(1).equals(isApproved), "published_at", now)
+                .set("updated_at", now)) > 0;
+        
+        // 审核通过进入热度榜并推送到粉丝时间线，驳回则移出热度榜
+        if (result && Integer.valueOf(1).equals(isApproved)) {
+            Article approved = articleMapper.selectById(id);
+            trendingService.addArticle(approved);
+            timelineService.onArticlePublished(approved);
+        } else if (result) {
+            trendingService.remove(TrendingService.Board.ARTICLE, id);
+        }
+        return result;
     }
 
     /**
-     * 获取热门文章(按浏览量+点赞数排序)
+     * 获取热门文章(按时间衰减热度排序)
      */
     public List<Article> getHotArticles(int count) {
-        QueryWrapper<Article> wrapper = new QueryWrapper<>();
-        wrapper.eq("is_approved", 1)
-               .eq("status", 1)
-               .orderByDesc("view_count")
-               .orderByDesc("like_count")
-               .last("LIMIT " + count);
-        return articleMapper.selectList(wrapper);
+        return trendingService.getTrendingArticles(count);
     }
 
     /**
@@ -3,6 +3,8 @@ package com.campus.news.service;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.campus.news.common.CursorPageResult;
+import com.campus.news.common.LookaheadPage;
 import com.campus.news.common.PageResult;
 import com.campus.news.dto.CommentCreateRequest;
 import com.campus.news.dto.CommentQueryRequest;
@@ -18,7 +20,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -28,6 +31,9 @@ public class CommentService extends ServiceImpl<CommentMapper, Comment> {
     private final UserService userService;
     private final ArticleService articleService;
     private final NotificationService notificationService;
+    private final CounterService counterService;
+    private final TrendingService trendingService;
+    private final TopicActivityService topicActivityService;
     @Lazy
     private final RealtimeNotificationService realtimeNotificationService;
     
@@ -45,8 +51,11 @@ public class CommentService extends ServiceImpl<CommentMapper, Comment> {
         
         commentMapper.insert(comment);
         
-        // 更新文章评论数
-        updateArticleCommentCount(request.getArticleId(), 1);
+        // 更新文章评论数和最火评论
+        counterService.adjustArticleCommentCount(request.getArticleId(), 1);
+        counterService.offerHotComment(request.getArticleId(), comment.getId());
+        trendingService.record(TrendingService.Board.ARTICLE, request.getArticleId(), TrendingService.Event.COMMENT, 1);
+        topicActivityService.articleCommentCreated(comment);
         
         // 🔔 发送实时通知给文章作者
         Article article = articleService.getById(request.getArticleId());
@@ -61,61 +70,135 @@ public class CommentService extends ServiceImpl<CommentMapper, Comment> {
             request.getContent(), 
             userId, 
             request.getArticleId(), 
+            article != null ? article.getTitle() : null,
             comment.getId()
         );
         
         // 如果是回复别人的评论，给被回复者发送通知
         if (request.getReplyToUserId() != null && !request.getReplyToUserId().equals(userId)) {
-            User fromUser = userService.getUserInfo(userId);
-            // 复用上面已查询的 article 变量
-            String content = (fromUser != null ? fromUser.getRealName() : "某用户") 
-                + " 回复了你在「" + (article != null ? article.getTitle() : "某篇文章") + "」的评论";
-            notificationService.createNotification(
+            realtimeNotificationService.sendReplyNotification(
                 request.getReplyToUserId(),
                 userId,
-                "REPLY",
                 request.getArticleId(),
                 comment.getId(),
-                content
+                article != null ? article.getTitle() : null
             );
         }
         
         return comment;
     }
     
+    /**
+     * 获取文章完整评论树：一次查询取出全部评论，一次批量查询用户，在内存中按 rootId 组装
+     */
     public List<Comment> getCommentList(Long articleId) {
         QueryWrapper<Comment> wrapper = new QueryWrapper<>();
         wrapper.eq("article_id", articleId)
-                .isNull("root_id")  // 顶级评论：rootId 为空
-                .orderByDesc("created_at");
+                .orderByAsc("created_at", "id");
+        List<Comment> all = commentMapper.selectList(wrapper);
+        fillUsers(all);
         
-        List<Comment> comments = commentMapper.selectList(wrapper);
-        
-        // 填充用户信息和回复
+        Map<Long, List<Comment>> repliesByRoot = new HashMap<>();
+        List<Comment> comments = new ArrayList<>();
+        for (Comment comment : all) {
+            if (comment.getRootId() == null) {
+                comments.add(comment);
+            } else {
+                repliesByRoot.computeIfAbsent(comment.getRootId(), k -> new ArrayList<>()).add(comment);
+            }
+        }
+        // 顶级评论最新在前，回复按时间正序（包含多级回复）
+        Collections.reverse(comments);
         comments.forEach(comment -> {
-            comment.setUser(userService.getUserInfo(comment.getUserId()));
-            
-            // 获取所有子回复（按 rootId 查询，包含多级回复）
-            QueryWrapper<Comment> replyWrapper = new QueryWrapper<>();
-            replyWrapper.eq("root_id", comment.getId())
-                    .orderByAsc("created_at");
-            List<Comment> replies = commentMapper.selectList(replyWrapper);
-            
-            // 填充回复的用户信息
-            replies.forEach(reply -> {
-                reply.setUser(userService.getUserInfo(reply.getUserId()));
-                // 填充被回复用户的信息
-                if (reply.getReplyToUserId() != null) {
-                    reply.setReplyToUser(userService.getUserInfo(reply.getReplyToUserId()));
-                }
-            });
-            
+            List<Comment> replies = repliesByRoot.getOrDefault(comment.getId(), new ArrayList<>());
             comment.setReplies(replies);
+            comment.setReplyCount(replies.size());
         });
-        
         return comments;
     }
     
+    /**
+     * 游标分页获取顶级评论，每条附带前 replyLimit 条回复；cursor 为上一页返回的 nextCursor
+     */
+    public CursorPageResult<Comment> getCommentPage(Long articleId, Long cursor, Integer size, Integer replyLimit) {
+        int pageSize = size == null || size <= 0 ? 20 : Math.min(size, 50);
+        int replies = replyLimit == null || replyLimit < 0 ? 3 : Math.min(replyLimit, 20);
+        
+        // 多取一条顶级评论用于判断是否还有下一页
+        List<Comment> rows = commentMapper.selectCommentPage(articleId, cursor, pageSize + 1, replies);
+        fillUsers(rows);
+        
+        Map<Long, List<Comment>> repliesByRoot = new HashMap<>();
+        List<Comment> comments = new ArrayList<>();
+        for (Comment row : rows) {
+            if (row.getRootId() == null) {
+                comments.add(row);
+            } else {
+                repliesByRoot.computeIfAbsent(row.getRootId(), k -> new ArrayList<>()).add(row);
+            }
+        }
+        comments.sort(Comparator.comparing(Comment::getId).reversed());
+        
+        boolean hasMore = comments.size() > pageSize;
+        if (hasMore) {
+            comments = new ArrayList<>(comments.subList(0, pageSize));
+        }
+        for (Comment comment : comments) {
+            List<Comment> list = repliesByRoot.getOrDefault(comment.getId(), new ArrayList<>());
+            list.sort(Comparator.comparing(Comment::getId));
+            comment.setReplies(list);
+            comment.setReplyCount(list.isEmpty() ? 0 : list.get(0).getReplyCount());
+        }
+        
+        String nextCursor = hasMore ? String.valueOf(comments.get(comments.size() - 1).getId()) : null;
+        return new CursorPageResult<>(comments, nextCursor, hasMore, (long) pageSize);
+    }
+    
+    /**
+     * 加载更多回复：按ID正序取 rootId 下 afterId 之后的回复，走 idx_root 索引范围扫描
+     */
+    public CursorPageResult<Comment> getReplies(Long rootId, Long afterId, Integer size) {
+        int pageSize = size == null || size <= 0 ? 10 : Math.min(size, 50);
+        QueryWrapper<Comment> wrapper = new QueryWrapper<>();
+        wrapper.eq("root_id", rootId)
+                .gt(afterId != null, "id", afterId)
+                .orderByAsc("id")
+                .last("LIMIT " + (pageSize + 1));
+        List<Comment> replies = commentMapper.selectList(wrapper);
+        
+        boolean hasMore = replies.size() > pageSize;
+        if (hasMore) {
+            replies = new ArrayList<>(replies.subList(0, pageSize));
+        }
+        fillUsers(replies);
+        
+        String nextCursor = hasMore ? String.valueOf(replies.get(replies.size() - 1).getId()) : null;
+        return new CursorPageResult<>(replies, nextCursor, hasMore, (long) pageSize);
+    }
+    
+    /**
+     * 批量填充评论者和被回复者
+     */
+    private void fillUsers(List<Comment> comments) {
+        if (comments.isEmpty()) {
+            return;
+        }
+        Set<Long> userIds = new HashSet<>();
+        for (Comment comment : comments) {
+            userIds.add(comment.getUserId());
+            if (comment.getReplyToUserId() != null) {
+                userIds.add(comment.getReplyToUserId());
+            }
+        }
+        Map<Long, User> users = userService.getUserInfoMap(userIds);
+        for (Comment comment : comments) {
+            comment.setUser(users.get(comment.getUserId()));
+            if (comment.getReplyToUserId() != null) {
+                comment.setReplyToUser(users.get(comment.getReplyToUserId()));
+            }
+        }
+    }
+    
     @Transactional
     public boolean deleteComment(Long id, Long userId) {
         Comment comment = commentMapper.selectById(id);
@@ -128,21 +211,18 @@ public class CommentService extends ServiceImpl<CommentMapper, Comment> {
         }
         
         commentMapper.deleteById(id);
-        updateArticleCommentCount(comment.getArticleId(), -1);
+        counterService.adjustArticleCommentCount(comment.getArticleId(), -1);
+        counterService.refreshHotCommentIfRemoved(comment.getArticleId(), id);
+        trendingService.record(TrendingService.Board.ARTICLE, comment.getArticleId(), TrendingService.Event.COMMENT, -1);
         
         return true;
     }
     
-    private void updateArticleCommentCount(Long articleId, int delta) {
-        Article article = articleService.getById(articleId);
-        if (article != null) {
-            article.setCommentCount(article.getCommentCount() + delta);
-            articleService.updateById(article);
-        }
-    }
-    
     public PageResult<Comment> getCommentHistory(CommentQueryRequest request, Long userId) {
-        Page<Comment> page = new Page<>(request.getCurrent(), request.getSize());
+        // 跳过 COUNT 时多取一条判断是否还有下一页
+        Page<Comment> page = Boolean.TRUE.equals(request.getSkipCount())
+                ? new LookaheadPage<>(request.getCurrent(), request.getSize())
+                : new Page<>(request.getCurrent(), request.getSize());
         QueryWrapper<Comment> wrapper = new QueryWrapper<>();
         wrapper.eq("status", 1);
         
@@ -173,20 +253,16 @@ public class CommentService extends ServiceImpl<CommentMapper, Comment> {
         wrapper.orderByDesc("created_at");
         
         Page<Comment> resultPage = commentMapper.selectPage(page, wrapper);
-        resultPage.getRecords().forEach(comment -> enrichComment(comment));
+        List<Comment> records = resultPage.getRecords();
+        fillUsers(records);
         
-        return new PageResult<>(resultPage.getTotal(), resultPage.getRecords(),
-                resultPage.getCurrent(), resultPage.getSize());
-    }
-    
-    private void enrichComment(Comment comment) {
-        // 填充评论用户
-        comment.setUser(userService.getUserInfo(comment.getUserId()));
-        if (comment.getReplyToUserId() != null) {
-            comment.setReplyToUser(userService.getUserInfo(comment.getReplyToUserId()));
-        }
         // 填充文章
-        Article article = articleService.getById(comment.getArticleId());
-        comment.setArticle(article);
+        Set<Long> articleIds = records.stream().map(Comment::getArticleId).collect(Collectors.toSet());
+        Map<Long, Article> articles = articleIds.isEmpty() ? Collections.emptyMap()
+                : articleService.listByIds(articleIds).stream()
+                        .collect(Collectors.toMap(Article::getId, a -> a));
+        records.forEach(comment -> comment.setArticle(articles.get(comment.getArticleId())));
+        
+        return PageResult.of(resultPage);
     }
 }
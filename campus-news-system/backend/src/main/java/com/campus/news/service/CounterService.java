@@ -0,0 +1,109 @@
+package com.campus.news.service;
+
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.campus.news.entity.Article;
+import com.campus.news.entity.User;
+import com.campus.news.mapper.ArticleMapper;
+import com.campus.news.mapper.UserMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 计数器服务
+ * 点赞数、评论数、关注数/粉丝数统一用 SQL 原子增量更新（col = col + delta），
+ * 不再先查后改，避免并发下丢失更新；定时对账任务按明细表重新计算出现偏差的计数。
+ * 文章的最火评论指针（hot_comment_id）同样在这里维护和对账。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CounterService {
+
+    private final ArticleMapper articleMapper;
+    private final UserMapper userMapper;
+    private final UserCacheService userCacheService;
+
+    public void adjustArticleLikeCount(Long articleId, int delta) {
+        articleMapper.update(null, new UpdateWrapper<Article>()
+                .eq("id", articleId)
+                .setSql("like_count = GREATEST(COALESCE(like_count, 0) + " + delta + ", 0)"));
+    }
+
+    public void adjustArticleCommentCount(Long articleId, int delta) {
+        articleMapper.update(null, new UpdateWrapper<Article>()
+                .eq("id", articleId)
+                .setSql("comment_count = GREATEST(COALESCE(comment_count, 0) + " + delta + ", 0)"));
+    }
+
+    /**
+     * 新增评论后调用：文章尚无最火评论时指向该评论
+     */
+    public void offerHotComment(Long articleId, Long commentId) {
+        articleMapper.offerHotComment(articleId, commentId);
+    }
+
+    /**
+     * 删除评论后调用：被删的正是最火评论时重新选出一条
+     */
+    public void refreshHotCommentIfRemoved(Long articleId, Long commentId) {
+        articleMapper.recomputeHotCommentIfPointsTo(articleId, commentId);
+    }
+
+    /**
+     * 关注关系变化时同时调整关注者的关注数和被关注者的粉丝数
+     */
+    public void adjustFollowCounts(Long followerId, Long followingId, int delta) {
+        userMapper.update(null, new UpdateWrapper<User>()
+                .eq("id", followerId)
+                .setSql("following_count = GREATEST(COALESCE(following_count, 0) + " + delta + ", 0)"));
+        userMapper.update(null, new UpdateWrapper<User>()
+                .eq("id", followingId)
+                .setSql("follower_count = GREATEST(COALESCE(follower_count, 0) + " + delta + ", 0)"));
+        userCacheService.evict(followerId);
+        userCacheService.evict(followingId);
+    }
+
+    /**
+     * 计数对账：找出与明细表不一致的行，逐行按明细重新计算
+     */
+    @Scheduled(cron = "${counter.reconcile-cron:0 30 4 * * ?}")
+    public void reconcile() {
+        int fixed = reconcile("文章点赞数", articleMapper::selectLikeCountDriftIds, articleMapper::recomputeLikeCount)
+                + reconcile("文章评论数", articleMapper::selectCommentCountDriftIds, articleMapper::recomputeCommentCount)
+                + reconcile("最火评论", articleMapper::selectHotCommentDriftIds, articleMapper::recomputeHotComment)
+                + reconcile("粉丝数", userMapper::selectFollowerCountDriftIds, id -> {
+                    int rows = userMapper.recomputeFollowerCount(id);
+                    userCacheService.evict(id);
+                    return rows;
+                })
+                + reconcile("关注数", userMapper::selectFollowingCountDriftIds, id -> {
+                    int rows = userMapper.recomputeFollowingCount(id);
+                    userCacheService.evict(id);
+                    return rows;
+                });
+        log.info("计数对账完成，共修正 {} 行", fixed);
+    }
+
+    private int reconcile(String name, Supplier<List<Long>> driftQuery, Function<Long, Integer> recompute) {
+        try {
+            List<Long> ids = driftQuery.get();
+            for (Long id : ids) {
+                // 在 UPDATE 内用子查询重新计数，期间发生的新增量不会被覆盖
+                recompute.apply(id);
+            }
+            if (!ids.isEmpty()) {
+                log.warn("{}存在偏差，已修正 {} 行", name, ids.size());
+            }
+            return ids.size();
+        } catch (Exception e) {
+            log.error("{}对账失败: {}", name, e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.campus.news.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.campus.news.entity.UserFollow;
+import com.campus.news.mapper.UserFollowMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 关注关系图内存索引
+ * 基础图按 CSR 方式存成有序 long 数组（用户ID -> 邻接区间），关注/粉丝两个方向各一份，
+ * 共同关注、二度关注、可能认识的人都在内存中完成，不查数据库。
+ * toggleFollow 提交后把变更记入增量表，查询时叠加到基础图上；定时从 user_follow 全量重建基础图，
+ * 同时合并其他节点产生的变更，重建前已存在的增量随之清除。
+ */
+@Slf4j
+@Service
+public class FollowGraphService {
+
+    private static final long[] EMPTY = new long[0];
+
+    /**
+     * 可能认识的人：与当前用户有 mutualCount 个共同关注
+     */
+    public record Suggestion(long userId, int mutualCount) {
+    }
+
+    /**
+     * 不可变的邻接表：nodes 升序，nodes[i] 的邻居为 targets[offsets[i], offsets[i + 1])，区间内升序
+     */
+    private record Csr(long[] nodes, int[] offsets, long[] targets) {
+
+        long[] neighbors(long id) {
+            int i = Arrays.binarySearch(nodes, id);
+            return i < 0 ? EMPTY : Arrays.copyOfRange(targets, offsets[i], offsets[i + 1]);
+        }
+
+        int degree(long id) {
+            int i = Arrays.binarySearch(nodes, id);
+            return i < 0 ? 0 : offsets[i + 1] - offsets[i];
+        }
+
+        static Csr build(long[] from, long[] to) {
+            long[] nodes = Arrays.stream(from).distinct().sorted().toArray();
+            int[] offsets = new int[nodes.length + 1];
+            for (long id : from) {
+                offsets[Arrays.binarySearch(nodes, id) + 1]++;
+            }
+            for (int i = 0; i < nodes.length; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            long[] targets = new long[to.length];
+            int[] cursor = Arrays.copyOf(offsets, nodes.length);
+            for (int e = 0; e < from.length; e++) {
+                targets[cursor[Arrays.binarySearch(nodes, from[e])]++] = to[e];
+            }
+            for (int i = 0; i < nodes.length; i++) {
+                Arrays.sort(targets, offsets[i], offsets[i + 1]);
+            }
+            return new Csr(nodes, offsets, targets);
+        }
+    }
+
+    private record Change(boolean added, long version) {
+    }
+
+    private final UserFollowMapper userFollowMapper;
+
+    private volatile Csr following;
+    private volatile Csr followers;
+    private final Map<Long, Map<Long, Change>> followingDelta = new ConcurrentHashMap<>();
+    private final Map<Long, Map<Long, Change>> followerDelta = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    public FollowGraphService(UserFollowMapper userFollowMapper) {
+        this.userFollowMapper = userFollowMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("关注关系图初始化失败，首次查询时重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定时全量重建基础图
+     */
+    @Scheduled(fixedDelayString = "${follow-graph.rebuild-interval-ms:600000}",
+            initialDelayString = "${follow-graph.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        long startVersion = version.get();
+        List<UserFollow> edges = userFollowMapper.selectList(new QueryWrapper<UserFollow>()
+                .select("follower_id", "following_id"));
+        long[] src = new long[edges.size()];
+        long[] dst = new long[edges.size()];
+        for (int i = 0; i < edges.size(); i++) {
+            src[i] = edges.get(i).getFollowerId();
+            dst[i] = edges.get(i).getFollowingId();
+        }
+        Csr newFollowing = Csr.build(src, dst);
+        Csr newFollowers = Csr.build(dst, src);
+        following = newFollowing;
+        followers = newFollowers;
+
+        // 重建开始前提交的变更已包含在新的基础图中
+        pruneDelta(followingDelta, startVersion);
+        pruneDelta(followerDelta, startVersion);
+        log.info("关注关系图重建完成 - 用户: {}, 关系: {}", newFollowing.nodes().length, edges.size());
+    }
+
+    /**
+     * 关注/取关后调用，事务提交后记入增量
+     */
+    public void onToggle(Long followerId, Long followingId, boolean followed) {
+        Runnable apply = () -> {
+            Change change = new Change(followed, version.incrementAndGet());
+            record(followingDelta, followerId, followingId, change);
+            record(followerDelta, followingId, followerId, change);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * userId 关注的人（升序）
+     */
+    public long[] getFollowing(long userId) {
+        ensureLoaded();
+        return overlay(following.neighbors(userId), followingDelta.get(userId));
+    }
+
+    /**
+     * userId 的粉丝（升序）
+     */
+    public long[] getFollowers(long userId) {
+        ensureLoaded();
+        return overlay(followers.neighbors(userId), followerDelta.get(userId));
+    }
+
+    public boolean isFollowing(long followerId, long followingId) {
+        return Arrays.binarySearch(getFollowing(followerId), followingId) >= 0;
+    }
+
+    /**
+     * 互相关注的用户：关注列表与粉丝列表的有序归并求交
+     */
+    public long[] getMutualFollows(long userId) {
+        long[] out = getFollowing(userId);
+        long[] in = getFollowers(userId);
+        long[] result = new long[Math.min(out.length, in.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < out.length && j < in.length) {
+            if (out[i] < in[j]) {
+                i++;
+            } else if (out[i] > in[j]) {
+                j++;
+            } else {
+                result[n++] = out[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * 可能认识的人：我关注的人所关注的、我还没关注的用户，按共同关注数排序，同分时粉丝多的优先
+     */
+    public List<Suggestion> getPeopleYouMayKnow(long userId, int limit) {
+        long[] direct = getFollowing(userId);
+        Map<Long, Integer> counts = new HashMap<>();
+        for (long friend : direct) {
+            for (long candidate : getFollowing(friend)) {
+                if (candidate != userId && Arrays.binarySearch(direct, candidate) < 0) {
+                    counts.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        Csr in = followers;
+        return counts.entrySet().stream()
+                .sorted(Comparator.<Map.Entry<Long, Integer>>comparingInt(Map.Entry::getValue).reversed()
+                        .thenComparing(e -> -in.degree(e.getKey())))
+                .limit(limit)
+                .map(e -> new Suggestion(e.getKey(), e.getValue()))
+                .toList();
+    }
+
+    private void ensureLoaded() {
+        if (following == null) {
+            synchronized (this) {
+                if (following == null) {
+                    rebuild();
+                }
+            }
+        }
+    }
+
+    /**
+     * 在基础邻居上叠加增量，结果保持升序
+     */
+    private static long[] overlay(long[] base, Map<Long, Change> delta) {
+        if (delta == null || delta.isEmpty()) {
+            return base;
+        }
+        TreeSet<Long> merged = new TreeSet<>();
+        for (long id : base) {
+            merged.add(id);
+        }
+        delta.forEach((id, change) -> {
+            if (change.added()) {
+                merged.add(id);
+            } else {
+                merged.remove(id);
+            }
+        });
+        return merged.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * 增量表的增删都在 compute 内完成，与清理并发时不会丢失变更
+     */
+    private static void record(Map<Long, Map<Long, Change>> delta, Long userId, Long otherId, Change change) {
+        delta.compute(userId, (k, changes) -> {
+            Map<Long, Change> result = changes == null ? new ConcurrentHashMap<>() : changes;
+            result.put(otherId, change);
+            return result;
+        });
+    }
+
+    private static void pruneDelta(Map<Long, Map<Long, Change>> delta, long upToVersion) {
+        for (Long userId : delta.keySet()) {
+            delta.computeIfPresent(userId, (k, changes) -> {
+                changes.values().removeIf(c -> c.version() <= upToVersion);
+                return changes.isEmpty() ? null : changes;
+            });
+        }
+    }
+}
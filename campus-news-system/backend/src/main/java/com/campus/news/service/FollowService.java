@@ -9,15 +9,19 @@ import com.campus.news.entity.UserFollow;
 import com.campus.news.mapper.ArticleMapper;
 import com.campus.news.mapper.UserFollowMapper;
 import com.campus.news.mapper.UserMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.time.Duration;
+import java.util.*;
 import java.util.stream.Collectors;
 
 /**
@@ -30,9 +34,48 @@ public class FollowService {
     private final UserFollowMapper userFollowMapper;
     private final UserMapper userMapper;
     private final ArticleMapper articleMapper;
+    private final ArticleEnrichService articleEnrichService;
+    private final CounterService counterService;
+    private final TimelineService timelineService;
+    private final UserService userService;
+    private final FollowGraphService followGraphService;
     @Lazy
     private final RealtimeNotificationService realtimeNotificationService;
     
+    @Value("${follow.page-cache.min-followers:1000}")
+    private int pageCacheMinFollowers;
+    
+    @Value("${follow.page-cache.ttl-seconds:30}")
+    private long pageCacheTtlSeconds;
+    
+    @Value("${follow.page-cache.max-size:10000}")
+    private long pageCacheMaxSize;
+    
+    /**
+     * 热门账号的关注/粉丝分页缓存（只缓存用户ID，用户资料走用户缓存，关注状态按当前用户实时查询）
+     */
+    private Cache<String, FollowPage> pageCache;
+    
+    /**
+     * 关注动态总数（用户ID -> 关注的人已发布的文章数）：时间线分页和数据库分页共用，翻页过程中总数保持一致
+     */
+    private Cache<Long, Long> followingArticleCountCache;
+    
+    private record FollowPage(List<Long> userIds, long total) {
+    }
+    
+    @PostConstruct
+    public void init() {
+        pageCache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(pageCacheTtlSeconds))
+                .maximumSize(pageCacheMaxSize)
+                .build();
+        followingArticleCountCache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(pageCacheTtlSeconds))
+                .maximumSize(pageCacheMaxSize)
+                .build();
+    }
+    
     /**
      * 关注/取消关注用户
      */
@@ -52,7 +95,8 @@ public class FollowService {
             // 取消关注
             userFollowMapper.deleteById(existing.getId());
             // 更新计数
-            updateFollowCount(followerId, followingId, -1);
+            counterService.adjustFollowCounts(followerId, followingId, -1);
+            onFollowChanged(followerId, followingId, false);
             return false;
         } else {
             // 添加关注
@@ -61,7 +105,8 @@ public class FollowService {
             follow.setFollowingId(followingId);
             userFollowMapper.insert(follow);
             // 更新计数
-            updateFollowCount(followerId, followingId, 1);
+            counterService.adjustFollowCounts(followerId, followingId, 1);
+            onFollowChanged(followerId, followingId, true);
             
             // 🔔 发送实时通知
             realtimeNotificationService.sendFollowNotification(followingId, followerId);
@@ -70,27 +115,6 @@ public class FollowService {
         }
     }
     
-    /**
-     * 更新关注数和粉丝数
-     */
-    private void updateFollowCount(Long followerId, Long followingId, int delta) {
-        // 更新关注者的关注数
-        User follower = userMapper.selectById(followerId);
-        if (follower != null) {
-            int newCount = (follower.getFollowingCount() == null ? 0 : follower.getFollowingCount()) + delta;
-            follower.setFollowingCount(Math.max(0, newCount));
-            userMapper.updateById(follower);
-        }
-        
-        // 更新被关注者的粉丝数
-        User following = userMapper.selectById(followingId);
-        if (following != null) {
-            int newCount = (following.getFollowerCount() == null ? 0 : following.getFollowerCount()) + delta;
-            following.setFollowerCount(Math.max(0, newCount));
-            userMapper.updateById(following);
-        }
-    }
-    
     /**
      * 检查是否已关注
      */
@@ -102,62 +126,169 @@ public class FollowService {
     }
     
     /**
-     * 获取关注列表（我关注的人）
+     * 获取关注列表（userId 关注的人），isFollowed 表示当前用户是否关注了列表中的用户
      */
-    public PageResult<User> getFollowingList(Long userId, int current, int size) {
-        // 获取关注的用户ID列表
-        QueryWrapper<UserFollow> followWrapper = new QueryWrapper<>();
-        followWrapper.eq("follower_id", userId)
-                     .orderByDesc("created_at");
-        
-        Page<UserFollow> followPage = new Page<>(current, size);
-        Page<UserFollow> followResult = userFollowMapper.selectPage(followPage, followWrapper);
-        
-        List<User> users = new ArrayList<>();
-        for (UserFollow follow : followResult.getRecords()) {
-            User user = userMapper.selectById(follow.getFollowingId());
-            if (user != null) {
-                user.setPassword(null);
-                user.setIsFollowed(true);
-                users.add(user);
-            }
-        }
-        
-        return new PageResult<>(followResult.getTotal(), users, followResult.getCurrent(), followResult.getSize());
+    public PageResult<User> getFollowingList(Long userId, int current, int size, Long currentUserId) {
+        FollowPage page = getFollowPage(false, userId, current, size);
+        return toUserPage(page, current, size, userId.equals(currentUserId), currentUserId);
     }
     
     /**
      * 获取粉丝列表
      */
     public PageResult<User> getFollowerList(Long userId, int current, int size, Long currentUserId) {
-        // 获取粉丝的用户ID列表
-        QueryWrapper<UserFollow> followWrapper = new QueryWrapper<>();
-        followWrapper.eq("following_id", userId)
-                     .orderByDesc("created_at");
-        
-        Page<UserFollow> followPage = new Page<>(current, size);
-        Page<UserFollow> followResult = userFollowMapper.selectPage(followPage, followWrapper);
+        FollowPage page = getFollowPage(true, userId, current, size);
+        return toUserPage(page, current, size, false, currentUserId);
+    }
+    
+    /**
+     * 批量判断 currentUserId 关注了 userIds 中的哪些人（一次 uk_follow 索引查询）
+     */
+    public Set<Long> getFollowedIds(Long currentUserId, Collection<Long> userIds) {
+        if (currentUserId == null || userIds == null || userIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        QueryWrapper<UserFollow> wrapper = new QueryWrapper<>();
+        wrapper.select("following_id")
+               .eq("follower_id", currentUserId)
+               .in("following_id", userIds);
+        return userFollowMapper.selectObjs(wrapper).stream()
+                .map(id -> ((Number) id).longValue())
+                .collect(Collectors.toSet());
+    }
+    
+    /**
+     * 关注关系分页（只含用户ID）；粉丝数达到阈值的热门账号按页缓存
+     */
+    private FollowPage getFollowPage(boolean followers, Long userId, int current, int size) {
+        if (!isPopular(userId)) {
+            return queryFollowPage(followers, userId, current, size);
+        }
+        String key = pageKey(followers, userId) + current + ":" + size;
+        return pageCache.get(key, k -> queryFollowPage(followers, userId, current, size));
+    }
+    
+    private FollowPage queryFollowPage(boolean followers, Long userId, int current, int size) {
+        String ownerColumn = followers ? "following_id" : "follower_id";
+        QueryWrapper<UserFollow> wrapper = new QueryWrapper<>();
+        wrapper.eq(ownerColumn, userId)
+               .orderByDesc("created_at");
+        Page<UserFollow> result = userFollowMapper.selectPage(new Page<>(current, size), wrapper);
+        List<Long> userIds = result.getRecords().stream()
+                .map(f -> followers ? f.getFollowerId() : f.getFollowingId())
+                .toList();
+        return new FollowPage(userIds, result.getTotal());
+    }
+    
+    /**
+     * 一次批量查询用户（走用户缓存），一次查询当前用户的关注状态
+     */
+    private PageResult<User> toUserPage(FollowPage page, int current, int size,
+                                        boolean allFollowed, Long currentUserId) {
+        Map<Long, User> users = userService.getUserInfoMap(page.userIds());
+        Set<Long> followedIds = allFollowed ? Collections.emptySet()
+                : getFollowedIds(currentUserId, page.userIds());
         
-        List<User> users = new ArrayList<>();
-        for (UserFollow follow : followResult.getRecords()) {
-            User user = userMapper.selectById(follow.getFollowerId());
+        List<User> records = new ArrayList<>();
+        for (Long id : page.userIds()) {
+            User user = users.get(id);
             if (user != null) {
-                user.setPassword(null);
-                // 检查当前用户是否关注了这个粉丝
-                if (currentUserId != null) {
-                    user.setIsFollowed(isFollowing(currentUserId, user.getId()));
+                if (allFollowed) {
+                    user.setIsFollowed(true);
+                } else if (currentUserId != null) {
+                    user.setIsFollowed(followedIds.contains(id));
                 }
-                users.add(user);
+                records.add(user);
             }
         }
-        
-        return new PageResult<>(followResult.getTotal(), users, followResult.getCurrent(), followResult.getSize());
+        return new PageResult<>(page.total(), records, (long) current, (long) size);
+    }
+    
+    private boolean isPopular(Long userId) {
+        User user = userService.getUserInfoMap(List.of(userId)).get(userId);
+        return user != null && user.getFollowerCount() != null
+                && user.getFollowerCount() >= pageCacheMinFollowers;
+    }
+    
+    /**
+     * 关注关系写入后调用：失效关注者的时间线和双方的关注/粉丝分页缓存，并更新内存关注图
+     */
+    public void onFollowChanged(Long followerId, Long followingId, boolean followed) {
+        timelineService.invalidate(followerId);
+        evictFollowPages(followerId, followingId);
+        followGraphService.onToggle(followerId, followingId, followed);
+    }
+    
+    /**
+     * 失效双方的关注/粉丝分页缓存；如处于事务中，提交后再删一次，防止并发请求在提交前把旧分页写回缓存
+     */
+    private void evictFollowPages(Long followerId, Long followingId) {
+        doEvictFollowPages(followerId, followingId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvictFollowPages(followerId, followingId);
+                }
+            });
+        }
+    }
+    
+    private void doEvictFollowPages(Long followerId, Long followingId) {
+        String followingPrefix = pageKey(false, followerId);
+        String followerPrefix = pageKey(true, followingId);
+        pageCache.asMap().keySet().removeIf(k -> k.startsWith(followingPrefix) || k.startsWith(followerPrefix));
+        followingArticleCountCache.invalidate(followerId);
+    }
+    
+    private static String pageKey(boolean followers, Long userId) {
+        return (followers ? "followers:" : "following:") + userId + ":";
     }
     
     /**
      * 获取关注的人发布的文章（动态流）
+     * 从时间线取一页文章ID后批量查询；时间线不可用或翻页超出时间线长度时回退到数据库查询
      */
     public PageResult<Article> getFollowingArticles(Long userId, int current, int size) {
+        TimelineService.TimelinePage timeline = timelineService.getPage(userId, current, size);
+        if (timeline == null) {
+            return getFollowingArticlesFromDatabase(userId, current, size);
+        }
+        
+        List<Article> articles = new ArrayList<>();
+        if (!timeline.articleIds().isEmpty()) {
+            Map<Long, Article> byId = articleMapper.selectBatchIds(timeline.articleIds()).stream()
+                    .filter(a -> Integer.valueOf(1).equals(a.getIsApproved()))
+                    .collect(Collectors.toMap(Article::getId, a -> a));
+            timeline.articleIds().stream()
+                    .map(byId::get)
+                    .filter(Objects::nonNull)
+                    .forEach(articles::add);
+        }
+        articleEnrichService.enrichArticles(articles, userId);
+        
+        // 时间线只保留最近 max-length 条，总数按数据库计数返回，与超出后回退数据库的分页一致
+        long total = countFollowingArticles(userId, null);
+        return new PageResult<>(total, articles, (long) current, (long) size);
+    }
+    
+    /**
+     * 关注的人已发布的文章总数，按用户缓存 page-cache.ttl-seconds；followingIds 为空时从关注关系图读取
+     */
+    private long countFollowingArticles(Long userId, List<Long> followingIds) {
+        return followingArticleCountCache.get(userId, id -> {
+            List<Long> authorIds = followingIds != null ? followingIds
+                    : Arrays.stream(followGraphService.getFollowing(id)).boxed().toList();
+            if (authorIds.isEmpty()) {
+                return 0L;
+            }
+            return articleMapper.selectCount(new QueryWrapper<Article>()
+                    .in("author_id", authorIds)
+                    .eq("is_approved", 1));
+        });
+    }
+    
+    private PageResult<Article> getFollowingArticlesFromDatabase(Long userId, int current, int size) {
         // 获取关注的用户ID列表
         QueryWrapper<UserFollow> followWrapper = new QueryWrapper<>();
         followWrapper.eq("follower_id", userId);
@@ -175,56 +306,52 @@ public class FollowService {
         QueryWrapper<Article> articleWrapper = new QueryWrapper<>();
         articleWrapper.in("author_id", followingIds)
                       .eq("is_approved", 1)
-                      .orderByDesc("created_at");
+                      .orderByDesc("published_at");
         
-        Page<Article> page = new Page<>(current, size);
+        // 总数与时间线分页共用同一个计数
+        Page<Article> page = new Page<>(current, size, false);
         Page<Article> result = articleMapper.selectPage(page, articleWrapper);
         
-        // 填充作者信息
-        for (Article article : result.getRecords()) {
-            User author = userMapper.selectById(article.getAuthorId());
-            if (author != null) {
-                author.setPassword(null);
-                article.setAuthor(author);
-            }
-        }
+        // 批量填充作者等关联信息
+        articleEnrichService.enrichArticles(result.getRecords(), userId);
         
-        return new PageResult<>(result.getTotal(), result.getRecords(), result.getCurrent(), result.getSize());
+        long total = countFollowingArticles(userId, followingIds);
+        return new PageResult<>(total, result.getRecords(), result.getCurrent(), result.getSize());
     }
     
     /**
      * 获取推荐用户（可以关注的用户）
+     * 优先按关注关系图推荐共同关注多的人，不足时用粉丝数最多的用户补齐
      */
     public List<User> getRecommendUsers(Long userId, int limit) {
-        // 获取已关注的用户ID
-        QueryWrapper<UserFollow> followWrapper = new QueryWrapper<>();
-        followWrapper.eq("follower_id", userId);
-        List<UserFollow> follows = userFollowMapper.selectList(followWrapper);
-        List<Long> excludeIds = follows.stream()
-                .map(UserFollow::getFollowingId)
-                .collect(Collectors.toList());
-        excludeIds.add(userId); // 排除自己
+        List<Long> candidateIds = new ArrayList<>();
+        followGraphService.getPeopleYouMayKnow(userId, limit)
+                .forEach(s -> candidateIds.add(s.userId()));
         
-        // 查询有发布文章的用户（简化查询）
-        QueryWrapper<User> userWrapper = new QueryWrapper<>();
-        if (!excludeIds.isEmpty()) {
-            userWrapper.notIn("id", excludeIds);
+        if (candidateIds.size() < limit) {
+            List<Long> excludeIds = new ArrayList<>(candidateIds);
+            for (long id : followGraphService.getFollowing(userId)) {
+                excludeIds.add(id);
+            }
+            excludeIds.add(userId); // 排除自己
+            
+            QueryWrapper<User> userWrapper = new QueryWrapper<>();
+            userWrapper.select("id")
+                       .notIn("id", excludeIds)
+                       .orderByDesc("follower_count")
+                       .last("LIMIT " + (limit - candidateIds.size()));
+            userMapper.selectObjs(userWrapper).forEach(id -> candidateIds.add(((Number) id).longValue()));
         }
-        userWrapper.orderByDesc("follower_count")
-                   .last("LIMIT " + (limit * 2)); // 多查一些以便筛选
-        
-        List<User> users = userMapper.selectList(userWrapper);
         
+        Map<Long, User> users = userService.getUserInfoMap(candidateIds);
         List<User> recommendUsers = new ArrayList<>();
-        for (User user : users) {
+        for (Long id : candidateIds) {
+            User user = users.get(id);
             if (user != null) {
-                user.setPassword(null);
                 user.setIsFollowed(false);
                 recommendUsers.add(user);
-                if (recommendUsers.size() >= limit) break;
             }
         }
-        
         return recommendUsers;
     }
     
@@ -0,0 +1,203 @@
+package com.campus.news.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.campus.news.mapper.ArticleFavoriteMapper;
+import com.campus.news.mapper.ArticleLikeMapper;
+import com.campus.news.mapper.VideoCommentLikeMapper;
+import com.campus.news.mapper.VideoLikeMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 用户互动状态服务（点赞、收藏）
+ * 每个用户每种互动在 Redis 中维护一个 Set（interact:{type}:{userId}），首次访问时从数据库整体加载；
+ * 批量判断"这 N 个ID中用户点赞过哪些"只需一次 SMISMEMBER。点赞/收藏切换在事务提交后同步到 Set。
+ * Set 中始终带一个哨兵成员，用来区分"已加载但为空"和"未加载"。
+ * 每个 Set 另有一个版本号（interact:ver:{type}:{userId}），切换时递增；加载前先读版本号，
+ * 写入时版本号已变化说明数据库快照可能早于某次切换，放弃写入，避免旧快照在缓存中保留到过期。
+ */
+@Slf4j
+@Service
+public class InteractionStateService {
+
+    public enum Type {
+        ARTICLE_LIKE("article_like", "article_id"),
+        ARTICLE_FAVORITE("article_favorite", "article_id"),
+        VIDEO_LIKE("video_like", "video_id"),
+        VIDEO_COMMENT_LIKE("video_comment_like", "comment_id");
+
+        private final String key;
+        private final String targetColumn;
+
+        Type(String key, String targetColumn) {
+            this.key = key;
+            this.targetColumn = targetColumn;
+        }
+    }
+
+    private static final String KEY_PREFIX = "interact:";
+    private static final String VERSION_PREFIX = "interact:ver:";
+    private static final String LOADED_MARKER = "-1";
+
+    /**
+     * 版本号未变化时整体写入 Set 并设置过期；分批 SADD，避免成员过多超出 Lua 栈
+     */
+    private static final DefaultRedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[1] then return 0 end " +
+            "redis.call('DEL', KEYS[1]) " +
+            "for i = 3, #ARGV, 500 do " +
+            "  redis.call('SADD', KEYS[1], unpack(ARGV, i, math.min(i + 499, #ARGV))) " +
+            "end " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2]) " +
+            "return 1",
+            Long.class);
+
+    /**
+     * 递增版本号，Set 已存在时就地增删成员（保留原有过期时间），不存在时不创建
+     */
+    private static final DefaultRedisScript<Long> TOGGLE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[2]) " +
+            "redis.call('EXPIRE', KEYS[2], ARGV[3]) " +
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end " +
+            "if ARGV[2] == '1' then redis.call('SADD', KEYS[1], ARGV[1]) " +
+            "else redis.call('SREM', KEYS[1], ARGV[1]) end " +
+            "return 1",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Map<Type, BaseMapper<?>> mappers = new EnumMap<>(Type.class);
+    private final Duration ttl;
+
+    public InteractionStateService(StringRedisTemplate stringRedisTemplate,
+                                   ArticleLikeMapper articleLikeMapper,
+                                   ArticleFavoriteMapper articleFavoriteMapper,
+                                   VideoLikeMapper videoLikeMapper,
+                                   VideoCommentLikeMapper videoCommentLikeMapper,
+                                   @Value("${interaction.cache-ttl-hours:24}") long ttlHours) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.mappers.put(Type.ARTICLE_LIKE, articleLikeMapper);
+        this.mappers.put(Type.ARTICLE_FAVORITE, articleFavoriteMapper);
+        this.mappers.put(Type.VIDEO_LIKE, videoLikeMapper);
+        this.mappers.put(Type.VIDEO_COMMENT_LIKE, videoCommentLikeMapper);
+        this.ttl = Duration.ofHours(ttlHours);
+    }
+
+    public boolean contains(Type type, Long userId, Long targetId) {
+        return !filter(type, userId, List.of(targetId)).isEmpty();
+    }
+
+    /**
+     * 返回 targetIds 中用户已互动过的ID（一次 Redis 往返）
+     */
+    public Set<Long> filter(Type type, Long userId, Collection<Long> targetIds) {
+        if (userId == null || targetIds == null || targetIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String key = key(type, userId);
+        try {
+            List<Object> members = new ArrayList<>(targetIds.size() + 1);
+            members.add(LOADED_MARKER);
+            targetIds.forEach(id -> members.add(String.valueOf(id)));
+            Map<Object, Boolean> result = stringRedisTemplate.opsForSet().isMember(key, members.toArray());
+
+            if (result == null || !Boolean.TRUE.equals(result.get(LOADED_MARKER))) {
+                Set<Long> all = load(type, userId, key);
+                return targetIds.stream().filter(all::contains).collect(Collectors.toSet());
+            }
+            return targetIds.stream()
+                    .filter(id -> Boolean.TRUE.equals(result.get(String.valueOf(id))))
+                    .collect(Collectors.toSet());
+        } catch (Exception e) {
+            log.warn("读取互动状态缓存失败，回退数据库 - {}:{}, 原因: {}", type.key, userId, e.getMessage());
+            return queryDatabase(type, userId, targetIds);
+        }
+    }
+
+    /**
+     * 点赞/收藏状态变化后调用，事务提交后再更新 Set，避免回滚造成不一致
+     */
+    public void onToggle(Type type, Long userId, Long targetId, boolean active) {
+        Runnable sync = () -> {
+            String key = key(type, userId);
+            try {
+                // 尚未加载的用户只递增版本号，正在进行的加载会放弃写入
+                stringRedisTemplate.execute(TOGGLE_SCRIPT, List.of(key, versionKey(type, userId)),
+                        String.valueOf(targetId), active ? "1" : "0", String.valueOf(ttl.toSeconds()));
+            } catch (Exception e) {
+                log.warn("同步互动状态缓存失败，删除缓存 - {}:{}, 原因: {}", type.key, userId, e.getMessage());
+                evict(key);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    sync.run();
+                }
+            });
+        } else {
+            sync.run();
+        }
+    }
+
+    /**
+     * 先读版本号再查数据库，写入时版本号未变才缓存
+     */
+    private Set<Long> load(Type type, Long userId, String key) {
+        String versionKey = versionKey(type, userId);
+        String version = stringRedisTemplate.opsForValue().get(versionKey);
+        Set<Long> all = queryDatabase(type, userId, null);
+        List<String> args = new ArrayList<>(all.size() + 3);
+        args.add(version != null ? version : "0");
+        args.add(String.valueOf(ttl.toSeconds()));
+        args.add(LOADED_MARKER);
+        all.forEach(id -> args.add(String.valueOf(id)));
+        Long written = stringRedisTemplate.execute(LOAD_SCRIPT, List.of(key, versionKey), args.toArray());
+        if (written == null || written == 0) {
+            log.debug("加载期间互动状态已变化，本次不缓存 - {}:{}", type.key, userId);
+        }
+        return all;
+    }
+
+    /**
+     * targetIds 为 null 时查询用户的全部互动记录
+     */
+    @SuppressWarnings("unchecked")
+    private Set<Long> queryDatabase(Type type, Long userId, Collection<Long> targetIds) {
+        QueryWrapper<Object> wrapper = new QueryWrapper<>();
+        wrapper.select(type.targetColumn).eq("user_id", userId);
+        if (targetIds != null) {
+            wrapper.in(type.targetColumn, targetIds);
+        }
+        List<Object> ids = ((BaseMapper<Object>) mappers.get(type)).selectObjs(wrapper);
+        return ids.stream()
+                .map(id -> ((Number) id).longValue())
+                .collect(Collectors.toSet());
+    }
+
+    private void evict(String key) {
+        try {
+            stringRedisTemplate.delete(key);
+        } catch (Exception ignored) {
+            // Redis 不可用时缓存会随 TTL 过期
+        }
+    }
+
+    private String key(Type type, Long userId) {
+        return KEY_PREFIX + type.key + ":" + userId;
+    }
+
+    private String versionKey(Type type, Long userId) {
+        return VERSION_PREFIX + type.key + ":" + userId;
+    }
+}
@@ -1,9 +1,9 @@
 package com.campus.news.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
-import com.campus.news.entity.Article;
 import com.campus.news.entity.Notification;
 import com.campus.news.entity.User;
 import com.campus.news.mapper.ArticleMapper;
@@ -13,7 +13,9 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -21,9 +23,13 @@ import java.util.regex.Pattern;
 @RequiredArgsConstructor
 public class NotificationService {
     
+    private static final Pattern MENTION_PATTERN = Pattern.compile("@([^\\s@]+)");
+    
     private final NotificationMapper notificationMapper;
     private final UserMapper userMapper;
     private final ArticleMapper articleMapper;
+    private final RealtimeNotificationService realtimeNotificationService;
+    private final UnreadCountService unreadCountService;
     
     /**
      * 创建通知
@@ -46,47 +52,38 @@ public class NotificationService {
         notification.setCreatedAt(LocalDateTime.now());
         
         notificationMapper.insert(notification);
+        unreadCountService.increment(userId);
     }
     
     /**
-     * 解析评论中的 @ 提及并创建通知
+     * 解析评论中的 @ 提及，被提及的用户一次查出，通知交给实时通知管道在事务提交后异步生成
      */
     public void parseAndNotifyMentions(String commentContent, Long fromUserId, 
-                                        Long articleId, Long commentId) {
+                                        Long articleId, String articleTitle, Long commentId) {
         // 匹配 @用户名 格式
-        Pattern pattern = Pattern.compile("@([^\\s@]+)");
-        Matcher matcher = pattern.matcher(commentContent);
-        
+        Matcher matcher = MENTION_PATTERN.matcher(commentContent);
+        Set<String> mentionedNames = new LinkedHashSet<>();
         while (matcher.find()) {
-            String mentionedName = matcher.group(1);
-            
-            // 查找被提及的用户
-            LambdaQueryWrapper<User> wrapper = new LambdaQueryWrapper<>();
-            wrapper.eq(User::getRealName, mentionedName);
-            User mentionedUser = userMapper.selectOne(wrapper);
-            
-            if (mentionedUser != null) {
-                // 获取文章信息
-                Article article = articleMapper.selectById(articleId);
-                String articleTitle = article != null ? article.getTitle() : "某篇文章";
-                
-                // 获取发送者信息
-                User fromUser = userMapper.selectById(fromUserId);
-                String fromName = fromUser != null ? fromUser.getRealName() : "某用户";
-                
-                String content = fromName + " 在文章「" + articleTitle + "」中@了你";
-                
-                createNotification(mentionedUser.getId(), fromUserId, "MENTION", 
-                                 articleId, commentId, content);
-            }
+            mentionedNames.add(matcher.group(1));
+        }
+        if (mentionedNames.isEmpty()) {
+            return;
+        }
+        
+        List<Object> mentionedIds = userMapper.selectObjs(new QueryWrapper<User>()
+                .select("id")
+                .in("real_name", mentionedNames));
+        for (Object id : mentionedIds) {
+            realtimeNotificationService.sendMentionNotification(
+                    ((Number) id).longValue(), fromUserId, articleId, commentId, articleTitle);
         }
     }
     
     /**
      * 获取用户的通知列表
      */
-    public Page<Notification> getNotifications(Long userId, Integer current, Integer size) {
-        Page<Notification> page = new Page<>(current, size);
+    public Page<Notification> getNotifications(Long userId, Integer current, Integer size, boolean skipCount) {
+        Page<Notification> page = new Page<>(current, size, !skipCount);
         
         LambdaQueryWrapper<Notification> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(Notification::getUserId, userId)
@@ -108,13 +105,10 @@ public class NotificationService {
     }
     
     /**
-     * 获取未读通知数量
+     * 获取未读通知数量（Redis 计数）
      */
     public Long getUnreadCount(Long userId) {
-        LambdaQueryWrapper<Notification> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Notification::getUserId, userId)
-               .eq(Notification::getIsRead, 0);
-        return notificationMapper.selectCount(wrapper);
+        return unreadCountService.get(userId);
     }
     
     /**
@@ -124,8 +118,12 @@ public class NotificationService {
         LambdaUpdateWrapper<Notification> wrapper = new LambdaUpdateWrapper<>();
         wrapper.eq(Notification::getId, notificationId)
                .eq(Notification::getUserId, userId)
+               .eq(Notification::getIsRead, 0)
                .set(Notification::getIsRead, 1);
-        notificationMapper.update(null, wrapper);
+        // 只有确实从未读变为已读时才扣减计数
+        if (notificationMapper.update(null, wrapper) > 0) {
+            unreadCountService.adjust(userId, -1);
+        }
     }
     
     /**
@@ -137,5 +135,6 @@ public class NotificationService {
                .eq(Notification::getIsRead, 0)
                .set(Notification::getIsRead, 1);
         notificationMapper.update(null, wrapper);
+        unreadCountService.reset(userId);
     }
 }
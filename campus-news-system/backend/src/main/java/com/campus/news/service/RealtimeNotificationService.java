@@ -1,176 +1,640 @@
 package com.campus.news.service;
 
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.campus.news.entity.Notification;
 import com.campus.news.entity.User;
-import com.campus.news.mapper.UserMapper;
+import com.campus.news.mapper.NotificationMapper;
 import com.campus.news.websocket.NotificationWebSocketHandler;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.annotation.Lazy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 /**
  * 实时通知服务
- * 统一处理 WebSocket 实时消息推送 + 数据库持久化
+ * 点赞、评论、关注等操作只在事务提交后把通知事件放入有界队列，立即返回；
+ * 后台线程批量取出事件，一次批量查询发送者、一次批量 INSERT 持久化，再 WebSocket 推送。
+ * 队列满时短暂等待，仍满则由调用线程同步处理（背压），通知不会被丢弃。
+ * <p>
+ * 点赞、收藏、关注在聚合窗口内按（接收者, 类型, 文章）合并为一条通知，
+ * 后续事件只在内存中累加人数，按固定间隔回写一次（"张三、李四 等 50 人赞了你的文章"）。
+ * 推送按接收者限流：间隔内的多条推送合并为一条摘要。
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class RealtimeNotificationService {
-    
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Set<String> AGGREGATE_TYPES = Set.of("LIKE", "FAVORITE", "FOLLOW");
+    private static final int RECENT_ACTORS = 2;
+    private static final long MAINTAIN_INTERVAL_MS = 500;
+
+    /**
+     * 通知事件：只携带ID和原始文本，发送者名称、头像在后台线程批量补齐
+     */
+    private record NotificationEvent(String type, Long targetUserId, Long fromUserId, Long articleId,
+                                     Long commentId, String articleTitle, String text, LocalDateTime createdAt) {
+    }
+
+    private record AggregateKey(Long targetUserId, String type, Long articleId) {
+    }
+
+    /**
+     * 聚合中的通知：对应数据库中的一行，记录去重后的触发人和最近的两位触发人名称
+     */
+    private static final class Aggregate {
+        final NotificationEvent first;
+        final long expiresAt;
+        final Set<Long> actorIds = new HashSet<>();
+        final Deque<String> recentNames = new ArrayDeque<>(RECENT_ACTORS);
+        User latestSender;
+        LocalDateTime latestAt;
+        Long notificationId;
+        int flushedCount;
+        long flushedAt;
+
+        Aggregate(NotificationEvent first, long expiresAt) {
+            this.first = first;
+            this.expiresAt = expiresAt;
+        }
+
+        void add(NotificationEvent event, User sender) {
+            if (!actorIds.add(sender.getId())) {
+                return;
+            }
+            if (recentNames.size() == RECENT_ACTORS) {
+                recentNames.removeLast();
+            }
+            recentNames.addFirst(displayName(sender));
+            latestSender = sender;
+            latestAt = event.createdAt();
+        }
+
+        int count() {
+            return actorIds.size();
+        }
+
+        boolean dirty() {
+            return count() != flushedCount;
+        }
+
+        String actors() {
+            String names = String.join("、", recentNames);
+            return count() > RECENT_ACTORS ? names + " 等 " + count() + " 人" : names;
+        }
+    }
+
+    /**
+     * 单个接收者的推送限流状态：间隔内被推迟的推送只保留条数和最后一条
+     */
+    private static final class PushState {
+        long lastPushAt;
+        int deferredCount;
+        Map<String, Object> lastDeferred;
+    }
+
     private final NotificationWebSocketHandler webSocketHandler;
-    private final UserMapper userMapper;
-    @Lazy
-    private final NotificationService notificationService;
-    
+    private final NotificationMapper notificationMapper;
+    private final UserService userService;
+    private final UnreadCountService unreadCountService;
+    private final BlockingQueue<NotificationEvent> queue;
+    private final int batchSize;
+    private final long offerTimeoutMs;
+    private final long aggregateWindowMs;
+    private final long aggregateFlushMs;
+    private final long pushIntervalMs;
+
+    // 只在持有本对象锁的 process/maintain 中修改；用并发 Map 是为了统计接口不加锁读取大小
+    private final Map<AggregateKey, Aggregate> aggregates = new ConcurrentHashMap<>();
+    private final Map<Long, PushState> pushStates = new ConcurrentHashMap<>();
+    private long lastMaintainAt;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+    private final LongAdder aggregateUpdates = new LongAdder();
+    private final LongAdder pushed = new LongAdder();
+    private final LongAdder pushDeferred = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public RealtimeNotificationService(NotificationWebSocketHandler webSocketHandler,
+                                       NotificationMapper notificationMapper,
+                                       UserService userService,
+                                       UnreadCountService unreadCountService,
+                                       @Value("${notification.queue-capacity:10000}") int queueCapacity,
+                                       @Value("${notification.batch-size:200}") int batchSize,
+                                       @Value("${notification.offer-timeout-ms:50}") long offerTimeoutMs,
+                                       @Value("${notification.aggregate-window-seconds:300}") long aggregateWindowSeconds,
+                                       @Value("${notification.aggregate-flush-ms:5000}") long aggregateFlushMs,
+                                       @Value("${notification.push-interval-ms:3000}") long pushIntervalMs) {
+        this.webSocketHandler = webSocketHandler;
+        this.notificationMapper = notificationMapper;
+        this.userService = userService;
+        this.unreadCountService = unreadCountService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.aggregateWindowMs = TimeUnit.SECONDS.toMillis(aggregateWindowSeconds);
+        this.aggregateFlushMs = aggregateFlushMs;
+        this.pushIntervalMs = pushIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::runWorker, "notification-dispatcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 停止接收新批次，处理完队列中剩余的事件、写回聚合中的通知后退出
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+        if (!queue.isEmpty()) {
+            log.warn("通知队列关闭时仍有 {} 条未处理", queue.size());
+        }
+    }
+
     /**
      * 发送点赞通知
-     * 
+     *
      * @param targetUserId 被点赞文章的作者ID
      * @param likerUserId 点赞者ID
      * @param articleId 文章ID
      * @param articleTitle 文章标题
      */
     public void sendLikeNotification(Long targetUserId, Long likerUserId, Long articleId, String articleTitle) {
-        // 不给自己发通知
-        if (targetUserId.equals(likerUserId)) return;
-        
-        User liker = userMapper.selectById(likerUserId);
-        if (liker == null) return;
-        
-        String likerName = liker.getRealName() != null ? liker.getRealName() : liker.getUsername();
-        String content = String.format("%s 赞了你的文章《%s》", likerName, truncate(articleTitle, 20));
-        
-        // 💾 保存到数据库
-        notificationService.createNotification(targetUserId, likerUserId, "LIKE", articleId, null, content);
-        
-        // 📨 发送实时推送
-        Map<String, Object> notification = new HashMap<>();
-        notification.put("type", "LIKE");
-        notification.put("title", "收到新点赞");
-        notification.put("content", content);
-        notification.put("articleId", articleId);
-        notification.put("fromUserId", likerUserId);
-        notification.put("fromUserName", likerName);
-        notification.put("fromUserAvatar", liker.getAvatar());
-        notification.put("timestamp", formatTime());
-        
-        webSocketHandler.sendNotificationToUser(targetUserId, notification);
+        publish("LIKE", targetUserId, likerUserId, articleId, null, articleTitle, null);
     }
-    
+
     /**
      * 发送评论通知
-     * 
+     *
      * @param targetUserId 被评论文章的作者ID
      * @param commenterUserId 评论者ID
      * @param articleId 文章ID
      * @param articleTitle 文章标题
      * @param commentContent 评论内容
      */
-    public void sendCommentNotification(Long targetUserId, Long commenterUserId, Long articleId, 
-                                         String articleTitle, String commentContent) {
-        // 不给自己发通知
-        if (targetUserId.equals(commenterUserId)) return;
-        
-        User commenter = userMapper.selectById(commenterUserId);
-        if (commenter == null) return;
-        
-        String commenterName = commenter.getRealName() != null ? commenter.getRealName() : commenter.getUsername();
-        String content = String.format("%s 评论了你的文章《%s》：%s", 
-                commenterName, truncate(articleTitle, 15), truncate(commentContent, 30));
-        
-        // 💾 保存到数据库
-        notificationService.createNotification(targetUserId, commenterUserId, "COMMENT", articleId, null, content);
-        
-        // 📨 发送实时推送
-        Map<String, Object> notification = new HashMap<>();
-        notification.put("type", "COMMENT");
-        notification.put("title", "收到新评论");
-        notification.put("content", content);
-        notification.put("articleId", articleId);
-        notification.put("fromUserId", commenterUserId);
-        notification.put("fromUserName", commenterName);
-        notification.put("fromUserAvatar", commenter.getAvatar());
-        notification.put("timestamp", formatTime());
-        
-        webSocketHandler.sendNotificationToUser(targetUserId, notification);
+    public void sendCommentNotification(Long targetUserId, Long commenterUserId, Long articleId,
+                                        String articleTitle, String commentContent) {
+        publish("COMMENT", targetUserId, commenterUserId, articleId, null, articleTitle, commentContent);
     }
-    
+
+    /**
+     * 发送回复通知
+     *
+     * @param targetUserId 被回复的评论作者ID
+     * @param replierUserId 回复者ID
+     * @param articleId 文章ID
+     * @param commentId 回复评论ID
+     * @param articleTitle 文章标题
+     */
+    public void sendReplyNotification(Long targetUserId, Long replierUserId, Long articleId,
+                                      Long commentId, String articleTitle) {
+        publish("REPLY", targetUserId, replierUserId, articleId, commentId, articleTitle, null);
+    }
+
+    /**
+     * 发送 @ 提及通知
+     */
+    public void sendMentionNotification(Long targetUserId, Long fromUserId, Long articleId,
+                                        Long commentId, String articleTitle) {
+        publish("MENTION", targetUserId, fromUserId, articleId, commentId, articleTitle, null);
+    }
+
     /**
      * 发送关注通知
-     * 
+     *
      * @param targetUserId 被关注者ID
      * @param followerUserId 关注者ID
      */
     public void sendFollowNotification(Long targetUserId, Long followerUserId) {
-        User follower = userMapper.selectById(followerUserId);
-        if (follower == null) return;
-        
-        String followerName = follower.getRealName() != null ? follower.getRealName() : follower.getUsername();
-        String content = String.format("%s 关注了你", followerName);
-        
-        // 💾 保存到数据库
-        notificationService.createNotification(targetUserId, followerUserId, "FOLLOW", null, null, content);
-        
-        // 📨 发送实时推送
-        Map<String, Object> notification = new HashMap<>();
-        notification.put("type", "FOLLOW");
-        notification.put("title", "新粉丝");
-        notification.put("content", content);
-        notification.put("fromUserId", followerUserId);
-        notification.put("fromUserName", followerName);
-        notification.put("fromUserAvatar", follower.getAvatar());
-        notification.put("timestamp", formatTime());
-        
-        webSocketHandler.sendNotificationToUser(targetUserId, notification);
+        publish("FOLLOW", targetUserId, followerUserId, null, null, null, null);
     }
-    
+
     /**
      * 发送收藏通知
      */
     public void sendFavoriteNotification(Long targetUserId, Long userId, Long articleId, String articleTitle) {
-        if (targetUserId.equals(userId)) return;
-        
-        User user = userMapper.selectById(userId);
-        if (user == null) return;
-        
-        String userName = user.getRealName() != null ? user.getRealName() : user.getUsername();
-        String content = String.format("%s 收藏了你的文章《%s》", userName, truncate(articleTitle, 20));
-        
-        // 💾 保存到数据库
-        notificationService.createNotification(targetUserId, userId, "FAVORITE", articleId, null, content);
-        
-        // 📨 发送实时推送
-        Map<String, Object> notification = new HashMap<>();
-        notification.put("type", "FAVORITE");
-        notification.put("title", "文章被收藏");
-        notification.put("content", content);
-        notification.put("articleId", articleId);
-        notification.put("fromUserId", userId);
-        notification.put("fromUserName", userName);
-        notification.put("fromUserAvatar", user.getAvatar());
-        notification.put("timestamp", formatTime());
-        
-        webSocketHandler.sendNotificationToUser(targetUserId, notification);
+        publish("FAVORITE", targetUserId, userId, articleId, null, articleTitle, null);
     }
-    
+
     /**
-     * 发送系统通知（广播）
+     * 发送系统通知（广播），返回本节点的送达/失败/跳过统计
      */
-    public void sendSystemNotification(String title, String content) {
+    public CompletableFuture<NotificationWebSocketHandler.BroadcastResult> sendSystemNotification(String title, String content) {
         Map<String, Object> notification = new HashMap<>();
         notification.put("type", "SYSTEM");
         notification.put("title", title);
         notification.put("content", content);
-        notification.put("timestamp", formatTime());
-        
-        webSocketHandler.broadcast(notification);
+        notification.put("timestamp", formatTime(LocalDateTime.now()));
+
+        return webSocketHandler.broadcast(notification).whenComplete((result, e) -> {
+            if (result != null) {
+                log.info("📢 系统通知广播完成 - 送达: {}, 失败: {}, 跳过: {}, 耗时: {}ms",
+                        result.delivered(), result.failed(), result.skipped(), result.elapsedMs());
+            }
+        });
+    }
+
+    /**
+     * 通知管道统计；不加锁，避免排在批量写库和推送之后
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("published", published.sum());
+        stats.put("persisted", persisted.sum());
+        stats.put("collapsed", collapsed.sum());
+        stats.put("aggregateUpdates", aggregateUpdates.sum());
+        stats.put("pushed", pushed.sum());
+        stats.put("pushDeferred", pushDeferred.sum());
+        stats.put("callerRuns", callerRuns.sum());
+        stats.put("skipped", skipped.sum());
+        stats.put("failed", failed.sum());
+        stats.put("batches", batches.sum());
+        stats.put("openAggregates", aggregates.size());
+        stats.put("queueSize", queue.size());
+        stats.put("queueRemaining", queue.remainingCapacity());
+        stats.put("onlineUsers", webSocketHandler.getOnlineCount());
+        stats.put("sessions", webSocketHandler.getSessionCount());
+        stats.put("slowConsumerEvictions", webSocketHandler.getSlowConsumerEvictions());
+        return stats;
+    }
+
+    private void publish(String type, Long targetUserId, Long fromUserId, Long articleId,
+                         Long commentId, String articleTitle, String text) {
+        // 不给自己发通知
+        if (targetUserId == null || targetUserId.equals(fromUserId)) {
+            return;
+        }
+        NotificationEvent event = new NotificationEvent(type, targetUserId, fromUserId, articleId,
+                commentId, articleTitle, text, LocalDateTime.now());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(event);
+                }
+            });
+        } else {
+            enqueue(event);
+        }
+    }
+
+    /**
+     * 事务提交后（或无事务时立即）调用，回滚的操作不计入 published
+     */
+    private void enqueue(NotificationEvent event) {
+        published.increment();
+        try {
+            if (queue.offer(event, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 队列已满：由调用线程同步处理，把压力传导回上游而不是丢弃通知
+        callerRuns.increment();
+        process(List.of(event));
+    }
+
+    private void runWorker() {
+        while (running || !queue.isEmpty()) {
+            try {
+                NotificationEvent first = queue.poll(MAINTAIN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    List<NotificationEvent> batch = new ArrayList<>(batchSize);
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    process(batch);
+                }
+                maintain(false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("通知批处理异常: {}", e.getMessage(), e);
+            }
+        }
+        maintain(true);
+    }
+
+    /**
+     * 处理一批事件：批量补齐发送者信息，可聚合的事件并入已有通知，其余批量持久化后推送
+     */
+    private synchronized void process(List<NotificationEvent> events) {
+        batches.increment();
+        Map<Long, User> senders = userService.getUserInfoMap(events.stream()
+                .map(NotificationEvent::fromUserId)
+                .collect(Collectors.toSet()));
+        long now = System.currentTimeMillis();
+
+        // 每个元素是单条事件（NotificationEvent）或本批新开的聚合（Aggregate），与 rows 一一对应
+        List<Object> sources = new ArrayList<>(events.size());
+        Map<AggregateKey, Aggregate> opened = new HashMap<>();
+        for (NotificationEvent event : events) {
+            User sender = senders.get(event.fromUserId());
+            if (sender == null) {
+                skipped.increment();
+                continue;
+            }
+            if (!AGGREGATE_TYPES.contains(event.type())) {
+                sources.add(event);
+                continue;
+            }
+            AggregateKey key = new AggregateKey(event.targetUserId(), event.type(), event.articleId());
+            Aggregate aggregate = opened.get(key);
+            if (aggregate == null) {
+                aggregate = aggregates.get(key);
+                if (aggregate != null && aggregate.expiresAt <= now) {
+                    closeAggregate(key, aggregate, now);
+                    aggregate = null;
+                }
+            }
+            if (aggregate != null) {
+                aggregate.add(event, sender);
+                collapsed.increment();
+                continue;
+            }
+            aggregate = new Aggregate(event, now + aggregateWindowMs);
+            aggregate.add(event, sender);
+            opened.put(key, aggregate);
+            sources.add(aggregate);
+        }
+        if (sources.isEmpty()) {
+            return;
+        }
+
+        List<Notification> rows = new ArrayList<>(sources.size());
+        for (Object source : sources) {
+            if (source instanceof Aggregate aggregate) {
+                rows.add(toRow(aggregate.first, aggregate.latestSender,
+                        formatContent(aggregate.first, aggregate.actors()), aggregate.count(), aggregate.latestAt));
+            } else {
+                NotificationEvent event = (NotificationEvent) source;
+                User sender = senders.get(event.fromUserId());
+                rows.add(toRow(event, sender, formatContent(event, displayName(sender)), 1, event.createdAt()));
+            }
+        }
+
+        boolean[] saved = persist(rows);
+        Map<Long, Integer> unreadDeltas = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (!saved[i]) {
+                continue;
+            }
+            Notification row = rows.get(i);
+            unreadDeltas.merge(row.getUserId(), 1, Integer::sum);
+            if (sources.get(i) instanceof Aggregate aggregate) {
+                aggregate.notificationId = row.getId();
+                aggregate.flushedCount = row.getAggregateCount();
+                aggregate.flushedAt = now;
+                aggregates.put(new AggregateKey(row.getUserId(), row.getType(), row.getArticleId()), aggregate);
+                push(row.getUserId(), toPayload(row, aggregate.latestSender), now);
+            } else {
+                push(row.getUserId(), toPayload(row, senders.get(row.getFromUserId())), now);
+            }
+        }
+        unreadDeltas.forEach(unreadCountService::adjust);
     }
-    
+
+    /**
+     * 定时维护：回写到期的聚合通知、发出被限流推迟的推送、清理过期状态
+     */
+    private synchronized void maintain(boolean shutdown) {
+        long now = System.currentTimeMillis();
+        if (!shutdown && now - lastMaintainAt < MAINTAIN_INTERVAL_MS) {
+            return;
+        }
+        lastMaintainAt = now;
+
+        Iterator<Map.Entry<AggregateKey, Aggregate>> it = aggregates.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<AggregateKey, Aggregate> entry = it.next();
+            Aggregate aggregate = entry.getValue();
+            boolean expired = shutdown || aggregate.expiresAt <= now;
+            if (aggregate.dirty() && (expired || now - aggregate.flushedAt >= aggregateFlushMs)) {
+                flushAggregate(aggregate, now);
+            }
+            if (expired) {
+                it.remove();
+            }
+        }
+
+        Iterator<Map.Entry<Long, PushState>> states = pushStates.entrySet().iterator();
+        while (states.hasNext()) {
+            Map.Entry<Long, PushState> entry = states.next();
+            PushState state = entry.getValue();
+            if (now - state.lastPushAt < pushIntervalMs) {
+                continue;
+            }
+            if (state.deferredCount == 0) {
+                states.remove();
+                continue;
+            }
+            Map<String, Object> payload = state.lastDeferred;
+            if (state.deferredCount > 1) {
+                // 间隔内积压多条时合并为一条摘要，客户端收到后刷新通知列表
+                payload = new HashMap<>(payload);
+                payload.put("type", "DIGEST");
+                payload.put("title", "你有 " + state.deferredCount + " 条新通知");
+                payload.put("count", state.deferredCount);
+            }
+            send(entry.getKey(), payload);
+            state.lastPushAt = now;
+            state.deferredCount = 0;
+            state.lastDeferred = null;
+        }
+    }
+
+    private void closeAggregate(AggregateKey key, Aggregate aggregate, long now) {
+        if (aggregate.dirty()) {
+            flushAggregate(aggregate, now);
+        }
+        aggregates.remove(key);
+    }
+
+    /**
+     * 把聚合中累加的人数写回对应的通知行，并提到列表顶部重新标为未读
+     */
+    private void flushAggregate(Aggregate aggregate, long now) {
+        String content = formatContent(aggregate.first, aggregate.actors());
+        try {
+            notificationMapper.update(null, new UpdateWrapper<Notification>()
+                    .eq("id", aggregate.notificationId)
+                    .set("from_user_id", aggregate.latestSender.getId())
+                    .set("content", content)
+                    .set("aggregate_count", aggregate.count())
+                    .set("created_at", aggregate.latestAt));
+            // 用户已读过的聚合通知重新变为未读时计入未读数
+            int reopened = notificationMapper.update(null, new UpdateWrapper<Notification>()
+                    .eq("id", aggregate.notificationId)
+                    .eq("is_read", 1)
+                    .set("is_read", 0));
+            if (reopened > 0) {
+                unreadCountService.increment(aggregate.first.targetUserId());
+            }
+            aggregate.flushedCount = aggregate.count();
+            aggregate.flushedAt = now;
+            aggregateUpdates.increment();
+        } catch (Exception e) {
+            failed.increment();
+            log.error("聚合通知回写失败 - 通知ID: {}, 原因: {}", aggregate.notificationId, e.getMessage());
+            return;
+        }
+        Notification row = toRow(aggregate.first, aggregate.latestSender, content,
+                aggregate.count(), aggregate.latestAt);
+        row.setId(aggregate.notificationId);
+        push(row.getUserId(), toPayload(row, aggregate.latestSender), now);
+    }
+
+    /**
+     * 按接收者限流推送：距上次推送不足间隔时只记下，由定时维护合并发出
+     */
+    private void push(Long userId, Map<String, Object> payload, long now) {
+        PushState state = pushStates.computeIfAbsent(userId, k -> new PushState());
+        if (state.deferredCount == 0 && now - state.lastPushAt >= pushIntervalMs) {
+            send(userId, payload);
+            state.lastPushAt = now;
+            return;
+        }
+        state.deferredCount++;
+        state.lastDeferred = payload;
+        pushDeferred.increment();
+    }
+
+    private void send(Long userId, Map<String, Object> payload) {
+        webSocketHandler.sendNotificationToUser(userId, payload);
+        pushed.increment();
+    }
+
+    /**
+     * 整批插入失败时逐条重试，定位并跳过有问题的行
+     */
+    private boolean[] persist(List<Notification> rows) {
+        boolean[] saved = new boolean[rows.size()];
+        try {
+            notificationMapper.insertBatch(rows);
+            Arrays.fill(saved, true);
+            persisted.add(rows.size());
+            return saved;
+        } catch (Exception e) {
+            log.warn("通知批量写入失败，逐条重试 - 数量: {}, 原因: {}", rows.size(), e.getMessage());
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            try {
+                rows.get(i).setId(null);
+                notificationMapper.insert(rows.get(i));
+                saved[i] = true;
+                persisted.increment();
+            } catch (Exception e) {
+                failed.increment();
+                log.error("通知写入失败 - 用户ID: {}, 类型: {}, 原因: {}",
+                        rows.get(i).getUserId(), rows.get(i).getType(), e.getMessage());
+            }
+        }
+        return saved;
+    }
+
+    private Notification toRow(NotificationEvent event, User sender, String content,
+                               int aggregateCount, LocalDateTime createdAt) {
+        Notification row = new Notification();
+        row.setUserId(event.targetUserId());
+        row.setFromUserId(sender.getId());
+        row.setType(event.type());
+        row.setArticleId(event.articleId());
+        row.setCommentId(event.commentId());
+        row.setContent(content);
+        row.setIsRead(0);
+        row.setAggregateCount(aggregateCount);
+        row.setCreatedAt(createdAt);
+        return row;
+    }
+
+    /**
+     * 推送内容
+     */
+    private Map<String, Object> toPayload(Notification row, User sender) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("id", row.getId());
+        payload.put("type", row.getType());
+        payload.put("title", formatTitle(row.getType()));
+        payload.put("content", row.getContent());
+        if (row.getArticleId() != null) {
+            payload.put("articleId", row.getArticleId());
+        }
+        if (row.getCommentId() != null) {
+            payload.put("commentId", row.getCommentId());
+        }
+        payload.put("fromUserId", sender.getId());
+        payload.put("fromUserName", displayName(sender));
+        payload.put("fromUserAvatar", sender.getAvatar());
+        payload.put("aggregateCount", row.getAggregateCount());
+        payload.put("timestamp", formatTime(row.getCreatedAt()));
+        return payload;
+    }
+
+    /**
+     * actors 为触发人描述：单人为名称，聚合通知为"张三、李四 等 N 人"
+     */
+    private String formatContent(NotificationEvent event, String actors) {
+        return switch (event.type()) {
+            case "LIKE" -> String.format("%s 赞了你的文章《%s》", actors, truncate(event.articleTitle(), 20));
+            case "COMMENT" -> String.format("%s 评论了你的文章《%s》：%s",
+                    actors, truncate(event.articleTitle(), 15), truncate(event.text(), 30));
+            case "REPLY" -> String.format("%s 回复了你在「%s」的评论", actors, titleOrDefault(event.articleTitle()));
+            case "MENTION" -> String.format("%s 在文章「%s」中@了你", actors, titleOrDefault(event.articleTitle()));
+            case "FOLLOW" -> String.format("%s 关注了你", actors);
+            case "FAVORITE" -> String.format("%s 收藏了你的文章《%s》", actors, truncate(event.articleTitle(), 20));
+            default -> actors;
+        };
+    }
+
+    private String formatTitle(String type) {
+        return switch (type) {
+            case "LIKE" -> "收到新点赞";
+            case "COMMENT" -> "收到新评论";
+            case "REPLY" -> "收到新回复";
+            case "MENTION" -> "有人@了你";
+            case "FOLLOW" -> "新粉丝";
+            case "FAVORITE" -> "文章被收藏";
+            default -> "新通知";
+        };
+    }
+
+    private static String displayName(User user) {
+        return user.getRealName() != null ? user.getRealName() : user.getUsername();
+    }
+
+    private String titleOrDefault(String articleTitle) {
+        return articleTitle != null ? articleTitle : "某篇文章";
+    }
+
     /**
      * 截断字符串
      */
@@ -179,11 +643,11 @@ public class RealtimeNotificationService {
         if (str.length() <= maxLength) return str;
         return str.substring(0, maxLength) + "...";
     }
-    
+
     /**
-     * 格式化当前时间
+     * 格式化时间
      */
-    private String formatTime() {
-        return LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+    private String formatTime(LocalDateTime time) {
+        return time.format(TIME_FORMATTER);
     }
 }
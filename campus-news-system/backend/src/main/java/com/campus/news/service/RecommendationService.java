@@ -24,10 +24,12 @@ public class RecommendationService {
 
     private final RestTemplate restTemplate;
     private final ArticleService articleService;
+    private final ArticleEnrichService articleEnrichService;
 
-    public RecommendationService(ArticleService articleService) {
+    public RecommendationService(ArticleService articleService, ArticleEnrichService articleEnrichService) {
         this.restTemplate = new RestTemplate();
         this.articleService = articleService;
+        this.articleEnrichService = articleEnrichService;
     }
 
     /**
@@ -55,14 +57,14 @@ public class RecommendationService {
                     .map(RecommendationItem::getArticleId)
                     .collect(Collectors.toList());
                 
-                return getArticlesByIds(articleIds);
+                return getArticlesByIds(articleIds, userId);
             }
         } catch (Exception e) {
             log.error("调用推荐服务失败: {}", e.getMessage());
         }
         
         // 降级：返回热门文章
-        return articleService.getHotArticles(count);
+        return articleEnrichService.enrichArticles(articleService.getHotArticles(count), userId);
     }
 
     /**
@@ -81,7 +83,7 @@ public class RecommendationService {
                     .map(RecommendationItem::getArticleId)
                     .collect(Collectors.toList());
                 
-                return getArticlesByIds(articleIds);
+                return getArticlesByIds(articleIds, null);
             }
         } catch (Exception e) {
             log.error("获取相似文章失败: {}", e.getMessage());
@@ -106,13 +108,13 @@ public class RecommendationService {
                     .map(RecommendationItem::getArticleId)
                     .collect(Collectors.toList());
                 
-                return getArticlesByIds(articleIds);
+                return getArticlesByIds(articleIds, null);
             }
         } catch (Exception e) {
             log.error("获取热门推荐失败: {}", e.getMessage());
         }
         
-        return articleService.getHotArticles(count);
+        return articleEnrichService.enrichArticles(articleService.getHotArticles(count), null);
     }
 
     /**
@@ -143,7 +145,7 @@ public class RecommendationService {
         }
     }
 
-    private List<Article> getArticlesByIds(List<Long> ids) {
+    private List<Article> getArticlesByIds(List<Long> ids, Long currentUserId) {
         if (ids == null || ids.isEmpty()) {
             return Collections.emptyList();
         }
@@ -152,10 +154,12 @@ public class RecommendationService {
         Map<Long, Article> articleMap = articleService.getArticlesByIds(ids).stream()
             .collect(Collectors.toMap(Article::getId, a -> a));
         
-        return ids.stream()
+        List<Article> articles = ids.stream()
             .map(articleMap::get)
             .filter(Objects::nonNull)
             .collect(Collectors.toList());
+        
+        return articleEnrichService.enrichArticles(articles, currentUserId);
     }
 
     // 响应模型
@@ -1,20 +1,54 @@
 package com.campus.news.service;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.campus.news.entity.Role;
+import com.campus.news.entity.UserRole;
 import com.campus.news.mapper.RoleMapper;
+import com.campus.news.mapper.UserRoleMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class RoleService extends ServiceImpl<RoleMapper, Role> {
     
     private final RoleMapper roleMapper;
+    private final UserRoleMapper userRoleMapper;
     
     public List<Role> getRolesByUserId(Long userId) {
         return roleMapper.findByUserId(userId);
     }
+    
+    /**
+     * 批量获取多个用户的角色（user_role 一次 IN 查询 + role 一次 IN 查询）
+     */
+    public Map<Long, List<Role>> getRolesByUserIds(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        
+        List<UserRole> userRoles = userRoleMapper.selectList(
+                new QueryWrapper<UserRole>().in("user_id", userIds));
+        if (userRoles.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        
+        Set<Long> roleIds = userRoles.stream().map(UserRole::getRoleId).collect(Collectors.toSet());
+        Map<Long, Role> roleMap = roleMapper.selectBatchIds(roleIds).stream()
+                .collect(Collectors.toMap(Role::getId, Function.identity()));
+        
+        Map<Long, List<Role>> result = new HashMap<>();
+        for (UserRole userRole : userRoles) {
+            Role role = roleMap.get(userRole.getRoleId());
+            if (role != null) {
+                result.computeIfAbsent(userRole.getUserId(), k -> new ArrayList<>()).add(role);
+            }
+        }
+        return result;
+    }
 }
@@ -0,0 +1,269 @@
+package com.campus.news.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.campus.news.entity.Article;
+import com.campus.news.entity.User;
+import com.campus.news.entity.UserFollow;
+import com.campus.news.mapper.ArticleMapper;
+import com.campus.news.mapper.UserFollowMapper;
+import com.campus.news.mapper.UserMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * 关注动态时间线服务
+ * 每个用户在 Redis 中有一个按发布（审核通过）时间排序的文章ID集合（timeline:{userId}），文章审核通过时推送给作者的粉丝（写扩散），
+ * 读取时只取一段ID再批量查询文章。粉丝数超过阈值的作者不推送，读取时再合并其最新文章（读扩散），
+ * 避免一次发布写入数十万条时间线。时间线首次读取时从数据库构建，关注关系变化后整体失效重建。
+ */
+@Slf4j
+@Service
+public class TimelineService {
+
+    private static final String KEY_PREFIX = "timeline:";
+    private static final String LOADED_MARKER = "-1";
+    private static final int FANOUT_BATCH_SIZE = 1000;
+
+    /**
+     * 构建完成后补查的时间窗口：覆盖构建期间提交、但推送时时间线尚不存在的文章（含提交前的事务耗时）
+     */
+    private static final Duration BUILD_RECHECK_WINDOW = Duration.ofMinutes(5);
+
+    /**
+     * 仅向已构建的时间线推送，并裁剪到最大长度（排名 0 的哨兵成员分数为 0，不会被裁掉）
+     */
+    private static final byte[] PUSH_SCRIPT = (
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end " +
+            "redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1]) " +
+            "redis.call('ZREMRANGEBYRANK', KEYS[1], 1, -(tonumber(ARGV[3]) + 1)) " +
+            "return 1").getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 时间线中的一页文章ID；总数由调用方按数据库计数，时间线只保留最近 max-length 条
+     */
+    public record TimelinePage(List<Long> articleIds) {
+    }
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final UserFollowMapper userFollowMapper;
+    private final UserMapper userMapper;
+    private final ArticleMapper articleMapper;
+    private final int maxLength;
+    private final int fanoutThreshold;
+    private final Duration ttl;
+
+    public TimelineService(StringRedisTemplate stringRedisTemplate,
+                           UserFollowMapper userFollowMapper,
+                           UserMapper userMapper,
+                           ArticleMapper articleMapper,
+                           @Value("${timeline.max-length:800}") int maxLength,
+                           @Value("${timeline.fanout-threshold:5000}") int fanoutThreshold,
+                           @Value("${timeline.ttl-hours:24}") long ttlHours) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.userFollowMapper = userFollowMapper;
+        this.userMapper = userMapper;
+        this.articleMapper = articleMapper;
+        this.maxLength = maxLength;
+        this.fanoutThreshold = fanoutThreshold;
+        this.ttl = Duration.ofHours(ttlHours);
+    }
+
+    /**
+     * 文章审核通过后调用，事务提交后推送到作者粉丝的时间线
+     */
+    public void onArticlePublished(Article article) {
+        if (article == null || article.getAuthorId() == null) {
+            return;
+        }
+        afterCommit(() -> fanOut(article.getAuthorId(), article.getId(), publishedMillis(article)));
+    }
+
+    /**
+     * 关注/取关后调用，用户的时间线下次读取时重建
+     */
+    public void invalidate(Long userId) {
+        afterCommit(() -> {
+            try {
+                stringRedisTemplate.delete(key(userId));
+            } catch (Exception e) {
+                log.warn("删除时间线失败 - 用户: {}, 原因: {}", userId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 读取时间线的一页；超出时间线长度或 Redis 不可用时返回 null，由调用方回退到数据库查询
+     */
+    public TimelinePage getPage(Long userId, int current, int size) {
+        long offset = (long) (current - 1) * size;
+        if (offset + size > maxLength) {
+            return null;
+        }
+        int need = (int) offset + size;
+        String key = key(userId);
+        try {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(key))) {
+                build(userId, key);
+            }
+
+            // 推送来的文章 + 大V作者的最新文章，按发布时间合并
+            Map<Long, Double> merged = new HashMap<>();
+            Set<ZSetOperations.TypedTuple<String>> pushed =
+                    stringRedisTemplate.opsForZSet().reverseRangeWithScores(key, 0, need - 1);
+            if (pushed != null) {
+                for (ZSetOperations.TypedTuple<String> tuple : pushed) {
+                    if (!LOADED_MARKER.equals(tuple.getValue()) && tuple.getScore() != null) {
+                        merged.put(Long.valueOf(tuple.getValue()), tuple.getScore());
+                    }
+                }
+            }
+            List<Long> popularIds = userFollowMapper.selectPopularFollowingIds(userId, fanoutThreshold);
+            if (!popularIds.isEmpty()) {
+                QueryWrapper<Article> wrapper = publishedBy(popularIds);
+                wrapper.select("id", "published_at", "created_at")
+                       .orderByDesc("published_at")
+                       .last("LIMIT " + need);
+                for (Article article : articleMapper.selectList(wrapper)) {
+                    merged.putIfAbsent(article.getId(), (double) publishedMillis(article));
+                }
+            }
+
+            List<Long> ids = merged.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed()))
+                    .skip(offset)
+                    .limit(size)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            return new TimelinePage(ids);
+        } catch (Exception e) {
+            log.warn("读取时间线失败，回退数据库 - 用户: {}, 原因: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 从数据库构建时间线：只包含普通作者的文章，大V作者的文章读取时合并。
+     * 查询到写入之间审核通过的文章，推送时时间线还不存在会被跳过，所以写入后再补查一次最近发布的文章；
+     * 补查之后提交的文章，推送时时间线已存在。
+     */
+    private void build(Long userId, String key) {
+        LocalDateTime snapshotAt = LocalDateTime.now();
+        List<Long> authorIds = userFollowMapper.selectOrdinaryFollowingIds(userId, fanoutThreshold);
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        tuples.add(ZSetOperations.TypedTuple.of(LOADED_MARKER, 0d));
+        if (!authorIds.isEmpty()) {
+            QueryWrapper<Article> wrapper = publishedBy(authorIds);
+            wrapper.select("id", "published_at", "created_at")
+                   .orderByDesc("published_at")
+                   .last("LIMIT " + maxLength);
+            addTuples(tuples, articleMapper.selectList(wrapper));
+        }
+        stringRedisTemplate.opsForZSet().add(key, tuples);
+        stringRedisTemplate.expire(key, ttl);
+
+        if (!authorIds.isEmpty()) {
+            QueryWrapper<Article> recent = publishedBy(authorIds);
+            recent.select("id", "published_at", "created_at")
+                  .ge("published_at", snapshotAt.minus(BUILD_RECHECK_WINDOW))
+                  .orderByDesc("published_at")
+                  .last("LIMIT " + maxLength);
+            Set<ZSetOperations.TypedTuple<String>> missed = new HashSet<>();
+            addTuples(missed, articleMapper.selectList(recent));
+            if (!missed.isEmpty()) {
+                stringRedisTemplate.opsForZSet().add(key, missed);
+                stringRedisTemplate.opsForZSet().removeRange(key, 1, -(maxLength + 1));
+            }
+        }
+    }
+
+    private void addTuples(Set<ZSetOperations.TypedTuple<String>> tuples, List<Article> articles) {
+        for (Article article : articles) {
+            tuples.add(ZSetOperations.TypedTuple.of(String.valueOf(article.getId()),
+                    (double) publishedMillis(article)));
+        }
+    }
+
+    /**
+     * 写扩散：分批管道推送到粉丝时间线，大V作者跳过
+     */
+    private void fanOut(Long authorId, Long articleId, long publishedAt) {
+        try {
+            User author = userMapper.selectById(authorId);
+            int followerCount = author == null || author.getFollowerCount() == null ? 0 : author.getFollowerCount();
+            if (followerCount >= fanoutThreshold) {
+                return;
+            }
+            List<Object> followerIds = userFollowMapper.selectObjs(new QueryWrapper<UserFollow>()
+                    .select("follower_id")
+                    .eq("following_id", authorId));
+            byte[] member = String.valueOf(articleId).getBytes(StandardCharsets.UTF_8);
+            byte[] score = String.valueOf(publishedAt).getBytes(StandardCharsets.UTF_8);
+            byte[] limit = String.valueOf(maxLength).getBytes(StandardCharsets.UTF_8);
+
+            for (int from = 0; from < followerIds.size(); from += FANOUT_BATCH_SIZE) {
+                List<Object> batch = followerIds.subList(from, Math.min(from + FANOUT_BATCH_SIZE, followerIds.size()));
+                stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    for (Object followerId : batch) {
+                        byte[] key = key(((Number) followerId).longValue()).getBytes(StandardCharsets.UTF_8);
+                        connection.scriptingCommands().eval(PUSH_SCRIPT, ReturnType.INTEGER, 1, key, member, score, limit);
+                    }
+                    return null;
+                });
+            }
+        } catch (Exception e) {
+            // 推送失败的时间线会在过期重建时补齐
+            log.warn("时间线推送失败 - 文章: {}, 原因: {}", articleId, e.getMessage());
+        }
+    }
+
+    private QueryWrapper<Article> publishedBy(Collection<Long> authorIds) {
+        QueryWrapper<Article> wrapper = new QueryWrapper<>();
+        wrapper.in("author_id", authorIds)
+               .eq("is_approved", 1)
+               .eq("status", 1);
+        return wrapper;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    /**
+     * 时间线按审核通过时间排序；未记录发布时间的历史文章以创建时间代替
+     */
+    private static long publishedMillis(Article article) {
+        return toMillis(article.getPublishedAt() != null ? article.getPublishedAt() : article.getCreatedAt());
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? System.currentTimeMillis()
+                : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,268 @@
+package com.campus.news.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.campus.news.entity.Article;
+import com.campus.news.entity.Comment;
+import com.campus.news.entity.User;
+import com.campus.news.entity.Video;
+import com.campus.news.entity.VideoComment;
+import com.campus.news.mapper.ArticleMapper;
+import com.campus.news.mapper.VideoMapper;
+import com.campus.news.websocket.NotificationWebSocketHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 文章/视频页面实时动态
+ * 新评论、点赞变化在事务提交后按主题（article:{id}、video:{id}）暂存，定时合并为一条 TOPIC 消息
+ * 推送给正在浏览该页面的订阅者：热门讨论每个主题每个刷新周期最多一帧，计数从数据库批量读取最新值。
+ * 没有订阅者的主题直接跳过。
+ */
+@Slf4j
+@Service
+public class TopicActivityService {
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private enum Kind {
+        ARTICLE("article"), VIDEO("video");
+
+        private final String prefix;
+
+        Kind(String prefix) {
+            this.prefix = prefix;
+        }
+    }
+
+    private record TopicKey(Kind kind, Long id) {
+        String topic() {
+            return kind.prefix + ":" + id;
+        }
+    }
+
+    private record CommentEvent(Long id, Long userId, String content, Long parentId, Long rootId,
+                                Long replyToUserId, LocalDateTime createdAt) {
+    }
+
+    /**
+     * 一个主题在当前周期内的变化，只在 ConcurrentHashMap.compute 内修改
+     */
+    private static final class Pending {
+        private final Deque<CommentEvent> comments = new ArrayDeque<>();
+        private int newComments;
+    }
+
+    private final NotificationWebSocketHandler webSocketHandler;
+    private final ArticleMapper articleMapper;
+    private final VideoMapper videoMapper;
+    private final UserService userService;
+    private final int maxComments;
+
+    private final Map<TopicKey, Pending> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder events = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+
+    public TopicActivityService(NotificationWebSocketHandler webSocketHandler,
+                                ArticleMapper articleMapper,
+                                VideoMapper videoMapper,
+                                UserService userService,
+                                @Value("${websocket.topic.max-comments-per-frame:5}") int maxComments) {
+        this.webSocketHandler = webSocketHandler;
+        this.articleMapper = articleMapper;
+        this.videoMapper = videoMapper;
+        this.userService = userService;
+        this.maxComments = maxComments;
+    }
+
+    public void articleCommentCreated(Comment comment) {
+        commentCreated(new TopicKey(Kind.ARTICLE, comment.getArticleId()), new CommentEvent(comment.getId(),
+                comment.getUserId(), comment.getContent(), comment.getParentId(), comment.getRootId(),
+                comment.getReplyToUserId(), comment.getCreatedAt()));
+    }
+
+    public void videoCommentCreated(VideoComment comment) {
+        commentCreated(new TopicKey(Kind.VIDEO, comment.getVideoId()), new CommentEvent(comment.getId(),
+                comment.getUserId(), comment.getContent(), comment.getParentId(), null,
+                comment.getReplyToUserId(), comment.getCreatedAt()));
+    }
+
+    public void articleLikeChanged(Long articleId) {
+        record(new TopicKey(Kind.ARTICLE, articleId), p -> { });
+    }
+
+    public void videoLikeChanged(Long videoId) {
+        record(new TopicKey(Kind.VIDEO, videoId), p -> { });
+    }
+
+    /**
+     * 把暂存的变化按主题合并推送
+     */
+    @Scheduled(fixedDelayString = "${websocket.topic.flush-ms:500}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<TopicKey, Pending> batch = new HashMap<>();
+        for (TopicKey key : pending.keySet()) {
+            Pending changes = pending.remove(key);
+            if (changes != null) {
+                batch.put(key, changes);
+            }
+        }
+        try {
+            publish(batch);
+        } catch (Exception e) {
+            log.error("主题动态推送失败 - 主题数: {}", batch.size(), e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("events", events.sum());
+        stats.put("frames", frames.sum());
+        stats.put("pendingTopics", pending.size());
+        stats.put("subscribedTopics", webSocketHandler.getTopicCount());
+        return stats;
+    }
+
+    private void commentCreated(TopicKey key, CommentEvent comment) {
+        record(key, p -> {
+            p.newComments++;
+            p.comments.addLast(comment);
+            if (p.comments.size() > maxComments) {
+                p.comments.removeFirst();
+            }
+        });
+    }
+
+    /**
+     * 事务提交后暂存，回滚的评论和点赞不会推送
+     */
+    private void record(TopicKey key, Consumer<Pending> change) {
+        if (key.id() == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(key, change);
+                }
+            });
+        } else {
+            apply(key, change);
+        }
+    }
+
+    private void apply(TopicKey key, Consumer<Pending> change) {
+        if (!webSocketHandler.hasTopicSubscribers(key.topic())) {
+            return;
+        }
+        events.increment();
+        pending.compute(key, (k, p) -> {
+            if (p == null) {
+                p = new Pending();
+            }
+            change.accept(p);
+            return p;
+        });
+    }
+
+    private void publish(Map<TopicKey, Pending> batch) {
+        Map<Long, int[]> articleCounts = new HashMap<>();
+        Map<Long, int[]> videoCounts = new HashMap<>();
+        Set<Long> articleIds = new HashSet<>();
+        Set<Long> videoIds = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        batch.forEach((key, changes) -> {
+            (key.kind() == Kind.ARTICLE ? articleIds : videoIds).add(key.id());
+            changes.comments.forEach(c -> {
+                userIds.add(c.userId());
+                if (c.replyToUserId() != null) {
+                    userIds.add(c.replyToUserId());
+                }
+            });
+        });
+
+        // 每个周期每类主题一次查询取最新计数，推送绝对值，客户端重复收到也不会算错
+        if (!articleIds.isEmpty()) {
+            articleMapper.selectList(new QueryWrapper<Article>()
+                            .select("id", "like_count", "comment_count")
+                            .in("id", articleIds))
+                    .forEach(a -> articleCounts.put(a.getId(), new int[]{count(a.getLikeCount()), count(a.getCommentCount())}));
+        }
+        if (!videoIds.isEmpty()) {
+            videoMapper.selectList(new QueryWrapper<Video>()
+                            .select("id", "like_count", "comment_count")
+                            .in("id", videoIds))
+                    .forEach(v -> videoCounts.put(v.getId(), new int[]{count(v.getLikeCount()), count(v.getCommentCount())}));
+        }
+        Map<Long, User> users = userService.getUserInfoMap(userIds);
+
+        batch.forEach((key, changes) -> {
+            int[] counts = (key.kind() == Kind.ARTICLE ? articleCounts : videoCounts).get(key.id());
+            if (counts == null) {
+                return;
+            }
+            Map<String, Object> message = new HashMap<>();
+            message.put("type", "TOPIC");
+            message.put("topic", key.topic());
+            message.put("likeCount", counts[0]);
+            message.put("commentCount", counts[1]);
+            message.put("newComments", changes.newComments);
+            List<Map<String, Object>> comments = new ArrayList<>(changes.comments.size());
+            for (CommentEvent comment : changes.comments) {
+                comments.add(toPayload(comment, users));
+            }
+            message.put("comments", comments);
+            webSocketHandler.publishToTopic(key.topic(), message);
+            frames.increment();
+        });
+    }
+
+    /**
+     * 与评论列表接口的字段一致，客户端可直接插入本地列表
+     */
+    private Map<String, Object> toPayload(CommentEvent comment, Map<Long, User> users) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("id", comment.id());
+        payload.put("userId", comment.userId());
+        payload.put("user", toUser(comment.userId(), users.get(comment.userId())));
+        payload.put("content", comment.content());
+        payload.put("parentId", comment.parentId());
+        payload.put("rootId", comment.rootId());
+        payload.put("replyToUserId", comment.replyToUserId());
+        payload.put("replyToUser", comment.replyToUserId() != null
+                ? toUser(comment.replyToUserId(), users.get(comment.replyToUserId())) : null);
+        payload.put("likeCount", 0);
+        payload.put("replies", List.of());
+        payload.put("createdAt", TIME_FORMATTER.format(
+                comment.createdAt() != null ? comment.createdAt() : LocalDateTime.now()));
+        return payload;
+    }
+
+    private Map<String, Object> toUser(Long userId, User user) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("id", userId);
+        payload.put("realName", user == null ? null
+                : user.getRealName() != null ? user.getRealName() : user.getUsername());
+        payload.put("avatar", user != null ? user.getAvatar() : null);
+        return payload;
+    }
+
+    private static int count(Integer value) {
+        return value != null ? value : 0;
+    }
+}
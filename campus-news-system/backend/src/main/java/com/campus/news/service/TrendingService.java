@@ -0,0 +1,377 @@
+package com.campus.news.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.campus.news.entity.Article;
+import com.campus.news.entity.Video;
+import com.campus.news.mapper.ArticleMapper;
+import com.campus.news.mapper.VideoMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 热度榜服务（时间衰减）
+ * 采用前向衰减：每次互动的贡献为 权重 × 2^((事件时间 - 基准时间) / 半衰期)，
+ * 分数只增不需定时重算，任意时刻按分数排序即等价于按衰减后的热度排序；
+ * 每天把所有分数按当前时间重新缩放并前移基准时间，防止分数无限增大。
+ * 只有已审核通过的内容在榜单中，互动事件对不在榜单中的成员不生效。
+ * 视频另有按发布时间排序的最新榜（latest:video），首页最新列表不再扫描 created_at。
+ */
+@Slf4j
+@Service
+public class TrendingService {
+
+    public enum Board {
+        ARTICLE("trending:article"),
+        VIDEO("trending:video");
+
+        private final String key;
+
+        Board(String key) {
+            this.key = key;
+        }
+
+        private String epochKey() {
+            return key + ":epoch";
+        }
+    }
+
+    /**
+     * 互动类型及默认权重
+     */
+    public enum Event {
+        VIEW, LIKE, COMMENT
+    }
+
+    private static final String LATEST_VIDEO_KEY = "latest:video";
+
+    /**
+     * 成员存在时按衰减因子累加分数（ARGV: 成员, 权重, 事件时间, 半衰期）
+     */
+    private static final DefaultRedisScript<String> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "if not redis.call('ZSCORE', KEYS[1], ARGV[1]) then return nil end " +
+            "local epoch = redis.call('GET', KEYS[2]) " +
+            "if not epoch then redis.call('SET', KEYS[2], ARGV[3]) epoch = ARGV[3] end " +
+            "local factor = 2 ^ ((tonumber(ARGV[3]) - tonumber(epoch)) / tonumber(ARGV[4])) " +
+            "return redis.call('ZINCRBY', KEYS[1], tonumber(ARGV[2]) * factor, ARGV[1])",
+            String.class);
+
+    /**
+     * 以给定基础热度写入成员（ARGV 同上）
+     */
+    private static final DefaultRedisScript<Long> SEED_SCRIPT = new DefaultRedisScript<>(
+            "local epoch = redis.call('GET', KEYS[2]) " +
+            "if not epoch then redis.call('SET', KEYS[2], ARGV[3]) epoch = ARGV[3] end " +
+            "local factor = 2 ^ ((tonumber(ARGV[3]) - tonumber(epoch)) / tonumber(ARGV[4])) " +
+            "return redis.call('ZADD', KEYS[1], tonumber(ARGV[2]) * factor, ARGV[1])",
+            Long.class);
+
+    /**
+     * 按 (当前时间 - 基准时间) 缩放全部分数并把基准时间移到当前（ARGV: 当前时间, 半衰期）
+     */
+    private static final DefaultRedisScript<Long> REBASE_SCRIPT = new DefaultRedisScript<>(
+            "local epoch = redis.call('GET', KEYS[2]) " +
+            "if not epoch then return 0 end " +
+            "local scale = 2 ^ (-(tonumber(ARGV[1]) - tonumber(epoch)) / tonumber(ARGV[2])) " +
+            "local items = redis.call('ZRANGE', KEYS[1], 0, -1, 'WITHSCORES') " +
+            "for i = 1, #items, 2 do redis.call('ZADD', KEYS[1], tonumber(items[i + 1]) * scale, items[i]) end " +
+            "redis.call('SET', KEYS[2], ARGV[1]) " +
+            "return #items / 2",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ArticleMapper articleMapper;
+    private final VideoMapper videoMapper;
+    private final long halfLifeMillis;
+    private final Map<Event, Double> weights = new EnumMap<>(Event.class);
+    private final int maxSize;
+    private final int rebuildDays;
+
+    public TrendingService(StringRedisTemplate stringRedisTemplate,
+                           ArticleMapper articleMapper,
+                           VideoMapper videoMapper,
+                           @Value("${trending.half-life-hours:24}") long halfLifeHours,
+                           @Value("${trending.weight.view:1}") double viewWeight,
+                           @Value("${trending.weight.like:5}") double likeWeight,
+                           @Value("${trending.weight.comment:10}") double commentWeight,
+                           @Value("${trending.max-size:5000}") int maxSize,
+                           @Value("${trending.rebuild-days:30}") int rebuildDays) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.articleMapper = articleMapper;
+        this.videoMapper = videoMapper;
+        this.halfLifeMillis = halfLifeHours * 3600_000L;
+        this.weights.put(Event.VIEW, viewWeight);
+        this.weights.put(Event.LIKE, likeWeight);
+        this.weights.put(Event.COMMENT, commentWeight);
+        this.maxSize = maxSize;
+        this.rebuildDays = rebuildDays;
+    }
+
+    /**
+     * 记录一次互动；delta 为 -1 表示撤销（取消点赞、删除评论）。
+     * 事务提交后才累加，回滚的点赞、评论不会留在衰减分数中
+     */
+    public void record(Board board, Long id, Event event, int delta) {
+        afterCommit(() -> {
+            try {
+                stringRedisTemplate.execute(INCREMENT_SCRIPT, List.of(board.key, board.epochKey()),
+                        String.valueOf(id), String.valueOf(weights.get(event) * delta),
+                        String.valueOf(System.currentTimeMillis()), String.valueOf(halfLifeMillis));
+            } catch (Exception e) {
+                log.warn("更新热度失败 - {}:{}, 原因: {}", board.key, id, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 审核通过时加入热度榜，以现有浏览/点赞/评论数作为初始热度；
+     * 这些是累计值，与 rebuild 一致按发布时间衰减，避免审核较晚的旧文章以全部历史互动冲上榜首。
+     * 事务提交后写入，回滚的审核不会进入榜单
+     */
+    public void addArticle(Article article) {
+        double baseScore = baseScore(article.getViewCount(), article.getLikeCount(), article.getCommentCount());
+        long publishedAt = toMillis(article.getCreatedAt());
+        afterCommit(() -> seed(Board.ARTICLE, article.getId(), baseScore, publishedAt));
+    }
+
+    /**
+     * 审核通过时加入视频热度榜和最新榜，事务提交后写入
+     */
+    public void addVideo(Video video) {
+        double baseScore = baseScore(video.getViewCount(), video.getLikeCount(), video.getCommentCount());
+        long publishedAt = toMillis(video.getCreatedAt());
+        afterCommit(() -> {
+            seed(Board.VIDEO, video.getId(), baseScore, publishedAt);
+            try {
+                stringRedisTemplate.opsForZSet().add(LATEST_VIDEO_KEY, String.valueOf(video.getId()), publishedAt);
+            } catch (Exception e) {
+                log.warn("写入最新视频榜失败 - {}, 原因: {}", video.getId(), e.getMessage());
+            }
+        });
+    }
+
+    public void removeVideo(Long videoId) {
+        afterCommit(() -> {
+            removeNow(Board.VIDEO, videoId);
+            try {
+                stringRedisTemplate.opsForZSet().remove(LATEST_VIDEO_KEY, String.valueOf(videoId));
+            } catch (Exception e) {
+                log.warn("移出最新视频榜失败 - {}, 原因: {}", videoId, e.getMessage());
+            }
+        });
+    }
+
+    public void remove(Board board, Long id) {
+        afterCommit(() -> removeNow(board, id));
+    }
+
+    private void removeNow(Board board, Long id) {
+        try {
+            stringRedisTemplate.opsForZSet().remove(board.key, String.valueOf(id));
+        } catch (Exception e) {
+            log.warn("移出热度榜失败 - {}:{}, 原因: {}", board.key, id, e.getMessage());
+        }
+    }
+
+    /**
+     * 热度榜前 count 个ID（ZREVRANGE，O(log n + count)）；榜单不可用时返回空列表
+     */
+    public List<Long> getTopIds(Board board, int count) {
+        return reverseRange(board.key, count);
+    }
+
+    /**
+     * 最新发布的 count 个视频ID；榜单不可用时返回空列表
+     */
+    public List<Long> getLatestVideoIds(int count) {
+        return reverseRange(LATEST_VIDEO_KEY, count);
+    }
+
+    private List<Long> reverseRange(String key, int count) {
+        try {
+            Set<String> ids = stringRedisTemplate.opsForZSet().reverseRange(key, 0, count - 1);
+            return ids == null ? List.of() : ids.stream().map(Long::valueOf).toList();
+        } catch (Exception e) {
+            log.warn("读取排行榜失败 - {}, 原因: {}", key, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * 热门文章，按热度顺序返回；榜单为空或不可用时回退到按浏览量、点赞数排序
+     */
+    public List<Article> getTrendingArticles(int count) {
+        List<Long> ids = getTopIds(Board.ARTICLE, count);
+        if (!ids.isEmpty()) {
+            List<Article> articles = articleMapper.selectList(new QueryWrapper<Article>()
+                    .in("id", ids)
+                    .eq("is_approved", 1)
+                    .eq("status", 1));
+            return orderByIds(ids, articles, Article::getId);
+        }
+
+        QueryWrapper<Article> wrapper = new QueryWrapper<>();
+        wrapper.eq("is_approved", 1)
+               .eq("status", 1)
+               .orderByDesc("view_count")
+               .orderByDesc("like_count")
+               .last("LIMIT " + count);
+        return articleMapper.selectList(wrapper);
+    }
+
+    /**
+     * 启动时榜单不存在则从数据库重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfMissing() {
+        try {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(Board.ARTICLE.key))) {
+                rebuildArticles();
+            }
+            if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(Board.VIDEO.key))
+                    || !Boolean.TRUE.equals(stringRedisTemplate.hasKey(LATEST_VIDEO_KEY))) {
+                rebuildVideos();
+            }
+        } catch (Exception e) {
+            log.warn("热度榜初始化失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 每日维护：缩放分数、前移基准时间、裁剪榜单长度，并补入遗漏的近期已审核内容
+     */
+    @Scheduled(cron = "${trending.maintain-cron:0 10 4 * * ?}")
+    public void maintain() {
+        for (Board board : Board.values()) {
+            try {
+                stringRedisTemplate.execute(REBASE_SCRIPT, List.of(board.key, board.epochKey()),
+                        String.valueOf(System.currentTimeMillis()), String.valueOf(halfLifeMillis));
+                stringRedisTemplate.opsForZSet().removeRange(board.key, 0, -(maxSize + 1));
+            } catch (Exception e) {
+                log.warn("热度榜维护失败 - {}, 原因: {}", board.key, e.getMessage());
+            }
+        }
+        try {
+            stringRedisTemplate.opsForZSet().removeRange(LATEST_VIDEO_KEY, 0, -(maxSize + 1));
+            rebuildArticles();
+            rebuildVideos();
+        } catch (Exception e) {
+            log.warn("热度榜补入失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 以发布时间作为事件时间写入近期已审核文章，旧文章自然排在后面；已在榜单中的文章不覆盖
+     */
+    private void rebuildArticles() {
+        List<Article> articles = articleMapper.selectList(new QueryWrapper<Article>()
+                .select("id", "view_count", "like_count", "comment_count", "created_at")
+                .eq("is_approved", 1)
+                .eq("status", 1)
+                .ge("created_at", LocalDateTime.now().minusDays(rebuildDays))
+                .orderByDesc("created_at")
+                .last("LIMIT " + maxSize));
+        int added = 0;
+        for (Article article : articles) {
+            added += backfill(Board.ARTICLE, article.getId(),
+                    baseScore(article.getViewCount(), article.getLikeCount(), article.getCommentCount()),
+                    article.getCreatedAt());
+        }
+        if (added > 0) {
+            log.info("文章热度榜补入 {} 篇", added);
+        }
+    }
+
+    /**
+     * 最新榜取最近发布的 max-size 个视频；热度榜只补入 rebuild-days 内发布的视频
+     */
+    private void rebuildVideos() {
+        List<Video> videos = videoMapper.selectList(new QueryWrapper<Video>()
+                .select("id", "view_count", "like_count", "comment_count", "created_at")
+                .eq("is_approved", 1)
+                .eq("status", 1)
+                .orderByDesc("created_at")
+                .last("LIMIT " + maxSize));
+        LocalDateTime since = LocalDateTime.now().minusDays(rebuildDays);
+        int added = 0;
+        for (Video video : videos) {
+            stringRedisTemplate.opsForZSet().add(LATEST_VIDEO_KEY, String.valueOf(video.getId()),
+                    toMillis(video.getCreatedAt()));
+            if (video.getCreatedAt() != null && video.getCreatedAt().isAfter(since)) {
+                added += backfill(Board.VIDEO, video.getId(),
+                        baseScore(video.getViewCount(), video.getLikeCount(), video.getCommentCount()),
+                        video.getCreatedAt());
+            }
+        }
+        if (added > 0) {
+            log.info("视频热度榜补入 {} 个", added);
+        }
+    }
+
+    /**
+     * 成员不在榜单中时写入，返回写入条数
+     */
+    private int backfill(Board board, Long id, double baseScore, LocalDateTime createdAt) {
+        if (stringRedisTemplate.opsForZSet().score(board.key, String.valueOf(id)) != null) {
+            return 0;
+        }
+        seed(board, id, baseScore, toMillis(createdAt));
+        return 1;
+    }
+
+    private double baseScore(Integer views, Integer likes, Integer comments) {
+        return weights.get(Event.VIEW) * nullToZero(views)
+                + weights.get(Event.LIKE) * nullToZero(likes)
+                + weights.get(Event.COMMENT) * nullToZero(comments);
+    }
+
+    private void seed(Board board, Long id, double baseScore, long eventTime) {
+        try {
+            stringRedisTemplate.execute(SEED_SCRIPT, List.of(board.key, board.epochKey()),
+                    String.valueOf(id), String.valueOf(baseScore),
+                    String.valueOf(eventTime), String.valueOf(halfLifeMillis));
+        } catch (Exception e) {
+            log.warn("写入热度榜失败 - {}:{}, 原因: {}", board.key, id, e.getMessage());
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static int nullToZero(Integer value) {
+        return value == null ? 0 : value;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? System.currentTimeMillis()
+                : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static <T> List<T> orderByIds(List<Long> ids, List<T> items, Function<T, Long> idGetter) {
+        Map<Long, T> byId = items.stream().collect(Collectors.toMap(idGetter, t -> t));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+}
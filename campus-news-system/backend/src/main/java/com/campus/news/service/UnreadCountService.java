@@ -0,0 +1,198 @@
+package com.campus.news.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.campus.news.entity.Notification;
+import com.campus.news.mapper.NotificationMapper;
+import com.campus.news.websocket.NotificationWebSocketHandler;
+import com.campus.news.websocket.UserConnectedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * 未读通知计数服务
+ * 每个用户的未读数存放在 Redis 哈希 notification:unread 中，首次读取时从数据库 COUNT 加载；
+ * 新通知、标记已读、全部已读时原子增减，变化后通过 WebSocket 推送给在线用户，客户端无需轮询。
+ * 并发加载与增减之间的少量偏差由定时任务按数据库重新计数修正。
+ */
+@Slf4j
+@Service
+public class UnreadCountService {
+
+    private static final String UNREAD_KEY = "notification:unread";
+
+    /**
+     * 只调整已加载的计数，不小于 0；未加载时返回 nil，下次读取时从数据库加载
+     */
+    private static final DefaultRedisScript<Long> ADJUST_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then return nil end " +
+            "local v = redis.call('HINCRBY', KEYS[1], ARGV[1], ARGV[2]) " +
+            "if v < 0 then redis.call('HSET', KEYS[1], ARGV[1], 0) v = 0 end " +
+            "return v",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final NotificationMapper notificationMapper;
+    private final NotificationWebSocketHandler webSocketHandler;
+    private final int repairBatchSize;
+
+    public UnreadCountService(StringRedisTemplate stringRedisTemplate,
+                              NotificationMapper notificationMapper,
+                              NotificationWebSocketHandler webSocketHandler,
+                              @Value("${notification.unread.repair-batch-size:500}") int repairBatchSize) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.notificationMapper = notificationMapper;
+        this.webSocketHandler = webSocketHandler;
+        this.repairBatchSize = repairBatchSize;
+    }
+
+    /**
+     * 获取未读数，Redis 不可用时直接查询数据库
+     */
+    public long get(Long userId) {
+        String field = String.valueOf(userId);
+        try {
+            Object cached = stringRedisTemplate.opsForHash().get(UNREAD_KEY, field);
+            if (cached != null) {
+                return Long.parseLong(cached.toString());
+            }
+            long count = countFromDatabase(userId);
+            stringRedisTemplate.opsForHash().putIfAbsent(UNREAD_KEY, field, String.valueOf(count));
+            return count;
+        } catch (Exception e) {
+            log.warn("读取未读数缓存失败，回退数据库 - 用户ID: {}, 原因: {}", userId, e.getMessage());
+            return countFromDatabase(userId);
+        }
+    }
+
+    public void increment(Long userId) {
+        adjust(userId, 1);
+    }
+
+    /**
+     * 调整未读数并推送给在线用户
+     */
+    public void adjust(Long userId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        Long count = null;
+        try {
+            count = stringRedisTemplate.execute(ADJUST_SCRIPT, List.of(UNREAD_KEY),
+                    String.valueOf(userId), String.valueOf(delta));
+        } catch (Exception e) {
+            log.warn("调整未读数失败，删除缓存 - 用户ID: {}, 原因: {}", userId, e.getMessage());
+            evict(userId);
+        }
+        push(userId, count);
+    }
+
+    /**
+     * 全部已读后清零
+     */
+    public void reset(Long userId) {
+        try {
+            stringRedisTemplate.opsForHash().put(UNREAD_KEY, String.valueOf(userId), "0");
+        } catch (Exception e) {
+            log.warn("清零未读数失败，删除缓存 - 用户ID: {}, 原因: {}", userId, e.getMessage());
+            evict(userId);
+        }
+        push(userId, 0L);
+    }
+
+    /**
+     * 连接（含重连）建立后推送当前未读数，客户端不必再请求
+     */
+    @EventListener
+    public void onUserConnected(UserConnectedEvent event) {
+        push(event.userId(), null);
+    }
+
+    /**
+     * 定时按数据库重新计数，修正并发造成的偏差，有变化的在线用户同时推送新值
+     */
+    @Scheduled(cron = "${notification.unread.repair-cron:0 */10 * * * ?}")
+    public void repair() {
+        List<Long> userIds;
+        try {
+            userIds = stringRedisTemplate.opsForHash().keys(UNREAD_KEY).stream()
+                    .map(key -> Long.valueOf(key.toString()))
+                    .toList();
+        } catch (Exception e) {
+            log.warn("未读数修正跳过，Redis 不可用: {}", e.getMessage());
+            return;
+        }
+
+        int fixed = 0;
+        for (int from = 0; from < userIds.size(); from += repairBatchSize) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + repairBatchSize, userIds.size()));
+            try {
+                fixed += repairChunk(chunk);
+            } catch (Exception e) {
+                log.error("未读数修正失败: {}", e.getMessage());
+            }
+        }
+        if (fixed > 0) {
+            log.warn("未读数存在偏差，已修正 {} 个用户", fixed);
+        }
+    }
+
+    private int repairChunk(List<Long> userIds) {
+        Map<Long, Long> actual = new HashMap<>();
+        notificationMapper.selectMaps(new QueryWrapper<Notification>()
+                        .select("user_id", "COUNT(*) AS cnt")
+                        .eq("is_read", 0)
+                        .in("user_id", userIds)
+                        .groupBy("user_id"))
+                .forEach(row -> actual.put(((Number) row.get("user_id")).longValue(),
+                        ((Number) row.get("cnt")).longValue()));
+
+        List<Object> cached = stringRedisTemplate.opsForHash().multiGet(UNREAD_KEY,
+                userIds.stream().map(id -> (Object) String.valueOf(id)).toList());
+        int fixed = 0;
+        for (int i = 0; i < userIds.size(); i++) {
+            long expected = actual.getOrDefault(userIds.get(i), 0L);
+            Object value = cached.get(i);
+            if (value != null && Long.parseLong(value.toString()) == expected) {
+                continue;
+            }
+            stringRedisTemplate.opsForHash().put(UNREAD_KEY, String.valueOf(userIds.get(i)), String.valueOf(expected));
+            push(userIds.get(i), expected);
+            fixed++;
+        }
+        return fixed;
+    }
+
+    /**
+     * 只推送给在线用户；count 为空表示计数尚未加载，推送前先加载
+     */
+    private void push(Long userId, Long count) {
+        if (!webSocketHandler.isUserOnline(userId)) {
+            return;
+        }
+        Map<String, Object> message = new HashMap<>();
+        message.put("type", "UNREAD_COUNT");
+        message.put("count", count != null ? count : get(userId));
+        webSocketHandler.sendNotificationToUser(userId, message);
+    }
+
+    private long countFromDatabase(Long userId) {
+        return notificationMapper.selectCount(new QueryWrapper<Notification>()
+                .eq("user_id", userId)
+                .eq("is_read", 0));
+    }
+
+    private void evict(Long userId) {
+        try {
+            stringRedisTemplate.opsForHash().delete(UNREAD_KEY, String.valueOf(userId));
+        } catch (Exception ignored) {
+            // Redis 不可用时读取会回退数据库
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.campus.news.service;
+
+import com.campus.news.entity.College;
+import com.campus.news.entity.Role;
+import com.campus.news.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 用户资料两级缓存
+ * L1: 进程内 Caffeine（容量 + 过期时间淘汰）；L2: Redis；均未命中时回源数据库
+ * 缓存的是含角色、学院的完整资料（不含密码），返回给调用方的是副本，避免调用方修改污染缓存
+ */
+@Slf4j
+@Service
+public class UserCacheService {
+
+    private static final String KEY_PREFIX = "user:profile:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, User> localCache;
+    private final Duration redisTtl;
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public UserCacheService(StringRedisTemplate stringRedisTemplate,
+                            ObjectMapper objectMapper,
+                            @Value("${cache.user-profile.local-max-size:10000}") long localMaxSize,
+                            @Value("${cache.user-profile.local-ttl-seconds:60}") long localTtlSeconds,
+                            @Value("${cache.user-profile.redis-ttl-minutes:30}") long redisTtlMinutes) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .build();
+        this.redisTtl = Duration.ofMinutes(redisTtlMinutes);
+    }
+
+    /**
+     * 获取单个用户资料，未命中时调用 loader 回源（loader 返回 null 表示用户不存在，不缓存）
+     */
+    public User get(Long userId, Function<Long, User> loader) {
+        User user = localCache.getIfPresent(userId);
+        if (user != null) {
+            l1Hits.increment();
+            return copyOf(user);
+        }
+
+        user = readRedis(userId);
+        if (user != null) {
+            l2Hits.increment();
+            localCache.put(userId, user);
+            return copyOf(user);
+        }
+
+        misses.increment();
+        user = loader.apply(userId);
+        if (user != null) {
+            put(user);
+            return copyOf(user);
+        }
+        return null;
+    }
+
+    /**
+     * 批量获取用户资料：L1 -> Redis multiGet -> loader 批量回源
+     */
+    public Map<Long, User> getAll(Collection<Long> userIds, Function<Set<Long>, Map<Long, User>> loader) {
+        Map<Long, User> result = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long userId : new LinkedHashSet<>(userIds)) {
+            User user = localCache.getIfPresent(userId);
+            if (user != null) {
+                l1Hits.increment();
+                result.put(userId, copyOf(user));
+            } else {
+                missing.add(userId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        List<Long> redisKeys = new ArrayList<>(missing);
+        List<String> values = multiGetRedis(redisKeys);
+        for (int i = 0; i < redisKeys.size(); i++) {
+            User user = values != null ? deserialize(values.get(i)) : null;
+            if (user != null) {
+                l2Hits.increment();
+                localCache.put(user.getId(), user);
+                result.put(user.getId(), copyOf(user));
+                missing.remove(redisKeys.get(i));
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        misses.add(missing.size());
+        loader.apply(missing).forEach((id, user) -> {
+            put(user);
+            result.put(id, copyOf(user));
+        });
+        return result;
+    }
+
+    /**
+     * 使用户资料失效；如处于事务中，提交后再删一次，防止并发请求在提交前把旧数据写回缓存
+     */
+    public void evict(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        doEvict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvict(userId);
+                }
+            });
+        }
+    }
+
+    /**
+     * 缓存命中统计
+     */
+    public Map<String, Object> getStats() {
+        long l1 = l1Hits.sum();
+        long l2 = l2Hits.sum();
+        long miss = misses.sum();
+        long total = l1 + l2 + miss;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("l1Hits", l1);
+        stats.put("l2Hits", l2);
+        stats.put("misses", miss);
+        stats.put("evictions", evictions.sum());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) (l1 + l2) / total);
+        stats.put("localSize", localCache.estimatedSize());
+        return stats;
+    }
+
+    private void put(User user) {
+        // 密码不进入任何一级缓存
+        user.setPassword(null);
+        localCache.put(user.getId(), user);
+        try {
+            stringRedisTemplate.opsForValue().set(KEY_PREFIX + user.getId(),
+                    objectMapper.writeValueAsString(user), redisTtl);
+        } catch (Exception e) {
+            log.warn("写入用户资料缓存失败 - 用户ID: {}, 原因: {}", user.getId(), e.getMessage());
+        }
+    }
+
+    private void doEvict(Long userId) {
+        evictions.increment();
+        localCache.invalidate(userId);
+        try {
+            stringRedisTemplate.delete(KEY_PREFIX + userId);
+        } catch (Exception e) {
+            log.warn("删除用户资料缓存失败 - 用户ID: {}, 原因: {}", userId, e.getMessage());
+        }
+    }
+
+    private User readRedis(Long userId) {
+        try {
+            return deserialize(stringRedisTemplate.opsForValue().get(KEY_PREFIX + userId));
+        } catch (Exception e) {
+            log.warn("读取用户资料缓存失败 - 用户ID: {}, 原因: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    private List<String> multiGetRedis(List<Long> userIds) {
+        try {
+            return stringRedisTemplate.opsForValue().multiGet(
+                    userIds.stream().map(id -> KEY_PREFIX + id).toList());
+        } catch (Exception e) {
+            log.warn("批量读取用户资料缓存失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private User deserialize(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, User.class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 角色列表和学院也复制一份，调用方修改返回对象的任何字段都不会影响缓存中的实例
+     */
+    private User copyOf(User source) {
+        User copy = new User();
+        BeanUtils.copyProperties(source, copy);
+        if (source.getRoles() != null) {
+            List<Role> roles = new ArrayList<>(source.getRoles().size());
+            for (Role role : source.getRoles()) {
+                Role roleCopy = new Role();
+                BeanUtils.copyProperties(role, roleCopy);
+                roles.add(roleCopy);
+            }
+            copy.setRoles(roles);
+        }
+        if (source.getCollege() != null) {
+            College college = new College();
+            BeanUtils.copyProperties(source.getCollege(), college);
+            copy.setCollege(college);
+        }
+        return copy;
+    }
+}
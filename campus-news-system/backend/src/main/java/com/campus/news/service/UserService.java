@@ -12,6 +12,7 @@ import com.campus.news.entity.User;
 import com.campus.news.entity.UserRole;
 import com.campus.news.exception.BusinessException;
 import com.campus.news.mapper.UserMapper;
+import com.campus.news.security.JwtTokenService;
 import com.campus.news.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
@@ -36,6 +37,8 @@ public class UserService extends ServiceImpl<UserMapper, User> implements UserDe
     private final CollegeService collegeService;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final UserCacheService userCacheService;
+    private final JwtTokenService jwtTokenService;
     
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -79,11 +82,12 @@ public class UserService extends ServiceImpl<UserMapper, User> implements UserDe
         userRole.setRoleId(request.getRoleId());
         userRoleService.save(userRole);
         
-        String token = jwtUtil.generateToken(user.getUsername(), user.getId());
+        User userInfo = getUserInfo(user.getId());
+        String token = jwtUtil.generateToken(user.getUsername(), user.getId(), getRoleNames(userInfo));
         
         Map<String, Object> result = new HashMap<>();
         result.put("token", token);
-        result.put("user", getUserInfo(user.getId()));
+        result.put("user", userInfo);
         return result;
     }
     
@@ -102,19 +106,36 @@ public class UserService extends ServiceImpl<UserMapper, User> implements UserDe
             throw new BusinessException("账号已被禁用，请联系管理员");
         }
         
-        String token = jwtUtil.generateToken(user.getUsername(), user.getId());
+        User userInfo = getUserInfo(user.getId());
+        String token = jwtUtil.generateToken(user.getUsername(), user.getId(), getRoleNames(userInfo));
         
         Map<String, Object> result = new HashMap<>();
         result.put("token", token);
-        result.put("user", getUserInfo(user.getId()));
+        result.put("user", userInfo);
         return result;
     }
     
+    private List<String> getRoleNames(User user) {
+        return user.getRoles() == null ? List.of()
+                : user.getRoles().stream().map(Role::getRoleName).toList();
+    }
+    
+    /**
+     * 获取用户信息（含角色和学院），走两级缓存，返回对象不含密码
+     */
     public User getUserInfo(Long userId) {
-        User user = userMapper.selectById(userId);
+        User user = userCacheService.get(userId, this::loadUserInfo);
         if (user == null) {
             throw new BusinessException("用户不存在");
         }
+        return user;
+    }
+
+    private User loadUserInfo(Long userId) {
+        User user = userMapper.selectById(userId);
+        if (user == null) {
+            return null;
+        }
         
         user.setRoles(roleService.getRolesByUserId(userId));
         if (user.getCollegeId() != null) {
@@ -123,7 +144,46 @@ public class UserService extends ServiceImpl<UserMapper, User> implements UserDe
         
         return user;
     }
-    
+
+    /**
+     * 批量获取用户信息（含角色和学院），用于列表页的批量填充
+     * 不存在的用户不会出现在返回的 Map 中
+     */
+    public Map<Long, User> getUserInfoMap(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return userCacheService.getAll(userIds, this::loadUserInfoMap);
+    }
+
+    private Map<Long, User> loadUserInfoMap(Set<Long> userIds) {
+        List<User> users = userMapper.selectBatchIds(userIds);
+        if (users.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Long, List<Role>> rolesMap = roleService.getRolesByUserIds(
+                users.stream().map(User::getId).toList());
+
+        Set<Long> collegeIds = users.stream()
+                .map(User::getCollegeId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, College> collegeMap = collegeIds.isEmpty() ? Collections.emptyMap()
+                : collegeService.listByIds(collegeIds).stream()
+                        .collect(Collectors.toMap(College::getId, c -> c));
+
+        Map<Long, User> result = new HashMap<>();
+        for (User user : users) {
+            user.setRoles(rolesMap.getOrDefault(user.getId(), new ArrayList<>()));
+            if (user.getCollegeId() != null) {
+                user.setCollege(collegeMap.get(user.getCollegeId()));
+            }
+            result.put(user.getId(), user);
+        }
+        return result;
+    }
+
     public Long getUserIdByUsername(String username) {
         User user = userMapper.findByUsername(username);
         if (user == null) {
@@ -162,20 +222,28 @@ public class UserService extends ServiceImpl<UserMapper, User> implements UserDe
     
     @Transactional
     public boolean updateUserStatus(Long userId, Integer status) {
-        return userMapper.update(null,
+        boolean updated = userMapper.update(null,
             new com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper<User>()
                 .eq("id", userId)
                 .set("status", status)
         ) > 0;
+        userCacheService.evict(userId);
+        if (updated && status != null && status == 0) {
+            // 封禁后已签发的令牌立即失效
+            jwtTokenService.revokeUserTokens(userId);
+        }
+        return updated;
     }
     
     @Transactional
     public boolean updateAvatar(Long userId, String avatar) {
-        return userMapper.update(null,
+        boolean updated = userMapper.update(null,
             new com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper<User>()
                 .eq("id", userId)
                 .set("avatar", avatar)
         ) > 0;
+        userCacheService.evict(userId);
+        return updated;
     }
     
     @Transactional
@@ -199,6 +267,8 @@ public class UserService extends ServiceImpl<UserMapper, User> implements UserDe
             user.setAvatar(updateUser.getAvatar());
         }
         
-        return userMapper.updateById(user) > 0;
+        boolean updated = userMapper.updateById(user) > 0;
+        userCacheService.evict(userId);
+        return updated;
     }
 }
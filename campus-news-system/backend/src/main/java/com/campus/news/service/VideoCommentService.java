@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.campus.news.common.PageResult;
+import com.campus.news.entity.User;
 import com.campus.news.entity.VideoComment;
 import com.campus.news.entity.VideoCommentLike;
 import com.campus.news.entity.Video;
@@ -16,7 +17,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -26,6 +27,9 @@ public class VideoCommentService extends ServiceImpl<VideoCommentMapper, VideoCo
     private final VideoCommentLikeMapper commentLikeMapper;
     private final VideoMapper videoMapper;
     private final UserService userService;
+    private final InteractionStateService interactionStateService;
+    private final TrendingService trendingService;
+    private final TopicActivityService topicActivityService;
     
     @Transactional
     public VideoComment createComment(Long videoId, String content, Long parentId, Long userId) {
@@ -57,6 +61,8 @@ public class VideoCommentService extends ServiceImpl<VideoCommentMapper, VideoCo
         videoMapper.update(null, new UpdateWrapper<Video>()
                 .eq("id", videoId)
                 .setSql("comment_count = comment_count + 1"));
+        trendingService.record(TrendingService.Board.VIDEO, videoId, TrendingService.Event.COMMENT, 1);
+        topicActivityService.videoCommentCreated(comment);
         
         // 填充用户信息
         comment.setUser(userService.getUserInfo(userId));
@@ -81,27 +87,35 @@ public class VideoCommentService extends ServiceImpl<VideoCommentMapper, VideoCo
         
         Page<VideoComment> resultPage = commentMapper.selectPage(page, wrapper);
         
-        // 填充用户信息和回复
-        resultPage.getRecords().forEach(comment -> {
-            enrichComment(comment, currentUserId);
-            // 加载回复（最多3条）
-            comment.setReplies(getReplies(comment.getId(), 3, currentUserId));
-        });
+        // 整页评论的前3条回复一次窗口查询取出，再对评论和回复统一批量填充用户和点赞状态
+        List<VideoComment> records = resultPage.getRecords();
+        List<VideoComment> all = new ArrayList<>(records);
+        if (!records.isEmpty()) {
+            List<VideoComment> replies = commentMapper.selectTopRepliesByParentIds(
+                    records.stream().map(VideoComment::getId).toList(), 3);
+            Map<Long, List<VideoComment>> repliesByParent = new HashMap<>();
+            replies.forEach(r -> repliesByParent.computeIfAbsent(r.getParentId(), k -> new ArrayList<>()).add(r));
+            records.forEach(comment -> comment.setReplies(
+                    repliesByParent.getOrDefault(comment.getId(), new ArrayList<>())));
+            all.addAll(replies);
+        }
+        enrichComments(all, currentUserId);
         
         return new PageResult<>(resultPage.getTotal(), resultPage.getRecords(),
                 resultPage.getCurrent(), resultPage.getSize());
     }
     
     public List<VideoComment> getReplies(Long parentId, int limit, Long currentUserId) {
+        return enrichComments(selectReplies(parentId, limit), currentUserId);
+    }
+    
+    private List<VideoComment> selectReplies(Long parentId, int limit) {
         QueryWrapper<VideoComment> wrapper = new QueryWrapper<>();
         wrapper.eq("parent_id", parentId)
                .eq("status", 1)
                .orderByAsc("created_at")
                .last("LIMIT " + limit);
-        
-        List<VideoComment> replies = commentMapper.selectList(wrapper);
-        replies.forEach(reply -> enrichComment(reply, currentUserId));
-        return replies;
+        return commentMapper.selectList(wrapper);
     }
     
     public List<VideoComment> getAllReplies(Long parentId, Long currentUserId) {
@@ -110,19 +124,37 @@ public class VideoCommentService extends ServiceImpl<VideoCommentMapper, VideoCo
                .eq("status", 1)
                .orderByAsc("created_at");
         
-        List<VideoComment> replies = commentMapper.selectList(wrapper);
-        replies.forEach(reply -> enrichComment(reply, currentUserId));
-        return replies;
+        return enrichComments(commentMapper.selectList(wrapper), currentUserId);
     }
     
-    private void enrichComment(VideoComment comment, Long currentUserId) {
-        comment.setUser(userService.getUserInfo(comment.getUserId()));
-        if (comment.getReplyToUserId() != null) {
-            comment.setReplyToUser(userService.getUserInfo(comment.getReplyToUserId()));
+    /**
+     * 批量填充评论者、被回复者和当前用户点赞状态（用户一次批量查询，点赞状态一次 Redis 往返）
+     */
+    private List<VideoComment> enrichComments(List<VideoComment> comments, Long currentUserId) {
+        if (comments.isEmpty()) {
+            return comments;
         }
-        if (currentUserId != null) {
-            comment.setIsLiked(isCommentLiked(comment.getId(), currentUserId));
+        Set<Long> userIds = new HashSet<>();
+        comments.forEach(c -> {
+            userIds.add(c.getUserId());
+            if (c.getReplyToUserId() != null) {
+                userIds.add(c.getReplyToUserId());
+            }
+        });
+        Map<Long, User> users = userService.getUserInfoMap(userIds);
+        Set<Long> likedIds = interactionStateService.filter(InteractionStateService.Type.VIDEO_COMMENT_LIKE,
+                currentUserId, comments.stream().map(VideoComment::getId).toList());
+        
+        for (VideoComment comment : comments) {
+            comment.setUser(users.get(comment.getUserId()));
+            if (comment.getReplyToUserId() != null) {
+                comment.setReplyToUser(users.get(comment.getReplyToUserId()));
+            }
+            if (currentUserId != null) {
+                comment.setIsLiked(likedIds.contains(comment.getId()));
+            }
         }
+        return comments;
     }
     
     @Transactional
@@ -145,6 +177,7 @@ public class VideoCommentService extends ServiceImpl<VideoCommentMapper, VideoCo
         videoMapper.update(null, new UpdateWrapper<Video>()
                 .eq("id", comment.getVideoId())
                 .setSql("comment_count = comment_count - 1"));
+        trendingService.record(TrendingService.Board.VIDEO, comment.getVideoId(), TrendingService.Event.COMMENT, -1);
         
         return true;
     }
@@ -161,6 +194,7 @@ public class VideoCommentService extends ServiceImpl<VideoCommentMapper, VideoCo
             commentMapper.update(null, new UpdateWrapper<VideoComment>()
                     .eq("id", commentId)
                     .setSql("like_count = like_count - 1"));
+            interactionStateService.onToggle(InteractionStateService.Type.VIDEO_COMMENT_LIKE, userId, commentId, false);
             return false;
         } else {
             // 点赞
@@ -171,14 +205,13 @@ public class VideoCommentService extends ServiceImpl<VideoCommentMapper, VideoCo
             commentMapper.update(null, new UpdateWrapper<VideoComment>()
                     .eq("id", commentId)
                     .setSql("like_count = like_count + 1"));
+            interactionStateService.onToggle(InteractionStateService.Type.VIDEO_COMMENT_LIKE, userId, commentId, true);
             return true;
         }
     }
     
     public boolean isCommentLiked(Long commentId, Long userId) {
-        QueryWrapper<VideoCommentLike> wrapper = new QueryWrapper<>();
-        wrapper.eq("comment_id", commentId).eq("user_id", userId);
-        return commentLikeMapper.selectCount(wrapper) > 0;
+        return interactionStateService.contains(InteractionStateService.Type.VIDEO_COMMENT_LIKE, userId, commentId);
     }
     
     public int getCommentCount(Long videoId) {
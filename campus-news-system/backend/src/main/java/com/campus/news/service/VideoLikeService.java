@@ -11,17 +11,28 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Set;
+
 @Service
 @RequiredArgsConstructor
 public class VideoLikeService extends ServiceImpl<VideoLikeMapper, VideoLike> {
     
     private final VideoLikeMapper videoLikeMapper;
     private final VideoMapper videoMapper;
+    private final InteractionStateService interactionStateService;
+    private final TrendingService trendingService;
+    private final TopicActivityService topicActivityService;
     
     public boolean isLiked(Long videoId, Long userId) {
-        QueryWrapper<VideoLike> wrapper = new QueryWrapper<>();
-        wrapper.eq("video_id", videoId).eq("user_id", userId);
-        return videoLikeMapper.selectCount(wrapper) > 0;
+        return interactionStateService.contains(InteractionStateService.Type.VIDEO_LIKE, userId, videoId);
+    }
+    
+    /**
+     * 批量判断用户点赞过哪些视频
+     */
+    public Set<Long> getLikedVideoIds(Long userId, Collection<Long> videoIds) {
+        return interactionStateService.filter(InteractionStateService.Type.VIDEO_LIKE, userId, videoIds);
     }
     
     @Transactional
@@ -34,6 +45,8 @@ public class VideoLikeService extends ServiceImpl<VideoLikeMapper, VideoLike> {
             // 取消点赞
             videoLikeMapper.deleteById(existing.getId());
             updateLikeCount(videoId, -1);
+            trendingService.record(TrendingService.Board.VIDEO, videoId, TrendingService.Event.LIKE, -1);
+            interactionStateService.onToggle(InteractionStateService.Type.VIDEO_LIKE, userId, videoId, false);
             return false;
         } else {
             // 点赞
@@ -42,6 +55,8 @@ public class VideoLikeService extends ServiceImpl<VideoLikeMapper, VideoLike> {
             like.setUserId(userId);
             videoLikeMapper.insert(like);
             updateLikeCount(videoId, 1);
+            trendingService.record(TrendingService.Board.VIDEO, videoId, TrendingService.Event.LIKE, 1);
+            interactionStateService.onToggle(InteractionStateService.Type.VIDEO_LIKE, userId, videoId, true);
             return true;
         }
     }
@@ -50,6 +65,7 @@ public class VideoLikeService extends ServiceImpl<VideoLikeMapper, VideoLike> {
         videoMapper.update(null, new UpdateWrapper<Video>()
                 .eq("id", videoId)
                 .setSql("like_count = like_count + " + delta));
+        topicActivityService.videoLikeChanged(videoId);
     }
     
     public java.util.List<Long> getLikedVideoIds(Long userId) {
@@ -4,6 +4,9 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.campus.news.common.CursorPageResult;
+import com.campus.news.common.LookaheadPage;
+import com.campus.news.common.FeedCursor;
 import com.campus.news.common.PageResult;
 import com.campus.news.dto.VideoCreateRequest;
 import com.campus.news.dto.VideoQueryRequest;
@@ -13,11 +16,19 @@ import com.campus.news.entity.VideoCategory;
 import com.campus.news.exception.BusinessException;
 import com.campus.news.mapper.VideoMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class VideoService extends ServiceImpl<VideoMapper, Video> {
@@ -26,6 +37,20 @@ public class VideoService extends ServiceImpl<VideoMapper, Video> {
     private final UserService userService;
     private final VideoCategoryService videoCategoryService;
     private final VideoLikeService videoLikeService;
+    private final ViewCountService viewCountService;
+    private final TrendingService trendingService;
+    
+    @Value("${video-ranking.snapshot-size:50}")
+    private int snapshotSize;
+    
+    @Value("${video-ranking.related-scan-size:500}")
+    private int relatedScanSize;
+    
+    /**
+     * 首页热门/最新列表快照：已填充作者和分类，定时整体替换；null 表示尚未加载
+     */
+    private volatile List<Video> hotSnapshot;
+    private volatile List<Video> latestSnapshot;
     
     @Transactional
     public Video createVideo(VideoCreateRequest request, Long userId) {
@@ -49,11 +74,93 @@ public class VideoService extends ServiceImpl<VideoMapper, Video> {
         video.setStatus(1);
         
         videoMapper.insert(video);
+        trendingService.addVideo(video);
         return video;
     }
     
     public PageResult<Video> getVideoList(VideoQueryRequest request, Long currentUserId) {
-        Page<Video> page = new Page<>(request.getCurrent(), request.getSize());
+        // 跳过 COUNT 时多取一条判断是否还有下一页
+        Page<Video> page = Boolean.TRUE.equals(request.getSkipCount())
+                ? new LookaheadPage<>(request.getCurrent(), request.getSize())
+                : new Page<>(request.getCurrent(), request.getSize());
+        QueryWrapper<Video> wrapper = buildListWrapper(request);
+        
+        // 排序
+        String sortBy = request.getSortBy();
+        boolean isAsc = "asc".equalsIgnoreCase(request.getSortOrder());
+        
+        if ("views".equals(sortBy)) {
+            if (isAsc) {
+                wrapper.orderByAsc("view_count");
+            } else {
+                wrapper.orderByDesc("view_count");
+            }
+        } else {
+            if (isAsc) {
+                wrapper.orderByAsc("created_at");
+            } else {
+                wrapper.orderByDesc("created_at");
+            }
+        }
+        
+        Page<Video> resultPage = videoMapper.selectPage(page, wrapper);
+        
+        // 填充关联数据
+        enrichVideos(resultPage.getRecords(), currentUserId);
+        
+        return PageResult.of(resultPage);
+    }
+    
+    /**
+     * 游标分页获取视频列表（无限滚动）
+     * 按 (排序键, id) 从游标位置之后查找，利用 idx_created_at / idx_view_count 索引，翻页深度不影响耗时
+     */
+    public CursorPageResult<Video> getVideoFeed(VideoQueryRequest request, Long currentUserId) {
+        int size = FeedCursor.clampSize(request.getSize(), 12);
+        boolean byViews = "views".equals(request.getSortBy());
+        boolean isAsc = "asc".equalsIgnoreCase(request.getSortOrder());
+        String sortColumn = byViews ? "view_count" : "created_at";
+        FeedCursor cursor = FeedCursor.decode(request.getCursor());
+        
+        QueryWrapper<Video> wrapper = buildListWrapper(request);
+        if (cursor != null) {
+            Object key = cursor.sortValue(byViews);
+            long id = cursor.getId();
+            if (isAsc) {
+                wrapper.and(w -> w.gt(sortColumn, key).or(o -> o.eq(sortColumn, key).gt("id", id)));
+            } else {
+                wrapper.and(w -> w.lt(sortColumn, key).or(o -> o.eq(sortColumn, key).lt("id", id)));
+            }
+        }
+        if (isAsc) {
+            wrapper.orderByAsc(sortColumn, "id");
+        } else {
+            wrapper.orderByDesc(sortColumn, "id");
+        }
+        // 多取一条用于判断是否还有下一页
+        wrapper.last("LIMIT " + (size + 1));
+        
+        List<Video> records = videoMapper.selectList(wrapper);
+        boolean hasMore = records.size() > size;
+        if (hasMore) {
+            records = new ArrayList<>(records.subList(0, size));
+        }
+        
+        String nextCursor = null;
+        if (hasMore) {
+            Video last = records.get(records.size() - 1);
+            String sortKey = byViews ? String.valueOf(last.getViewCount()) : last.getCreatedAt().toString();
+            nextCursor = new FeedCursor(0, sortKey, last.getId()).encode();
+        }
+        
+        enrichVideos(records, currentUserId);
+        return new CursorPageResult<>(records, nextCursor, hasMore, (long) size);
+    }
+    
+    /**
+     * 构建视频列表的筛选条件（不含排序）
+     */
+    private QueryWrapper<Video> buildListWrapper(VideoQueryRequest request) {
         QueryWrapper<Video> wrapper = new QueryWrapper<>();
         
         // 分类筛选
@@ -81,31 +188,7 @@ public class VideoService extends ServiceImpl<VideoMapper, Video> {
             wrapper.eq("is_approved", 1);
         }
         
-        // 排序
-        String sortBy = request.getSortBy();
-        boolean isAsc = "asc".equalsIgnoreCase(request.getSortOrder());
-        
-        if ("views".equals(sortBy)) {
-            if (isAsc) {
-                wrapper.orderByAsc("view_count");
-            } else {
-                wrapper.orderByDesc("view_count");
-            }
-        } else {
-            if (isAsc) {
-                wrapper.orderByAsc("created_at");
-            } else {
-                wrapper.orderByDesc("created_at");
-            }
-        }
-        
-        Page<Video> resultPage = videoMapper.selectPage(page, wrapper);
-        
-        // 填充关联数据
-        resultPage.getRecords().forEach(video -> enrichVideo(video, currentUserId));
-        
-        return new PageResult<>(resultPage.getTotal(), resultPage.getRecords(),
-                resultPage.getCurrent(), resultPage.getSize());
+        return wrapper;
     }
     
     public Video getVideoDetail(Long id, Long currentUserId) {
@@ -114,28 +197,48 @@ public class VideoService extends ServiceImpl<VideoMapper, Video> {
             throw new BusinessException("视频不存在");
         }
         
-        // 增加播放量
-        incrementViewCount(id);
-        video.setViewCount(video.getViewCount() + 1);
+        // 增加播放量：计数先记在 Redis，定时批量写回，返回实时值
+        long pendingViews = viewCountService.incrementVideoView(id);
+        video.setViewCount((video.getViewCount() == null ? 0 : video.getViewCount()) + (int) pendingViews);
+        trendingService.record(TrendingService.Board.VIDEO, id, TrendingService.Event.VIEW, 1);
         
-        enrichVideo(video, currentUserId);
+        enrichVideos(List.of(video), currentUserId);
         return video;
     }
     
-    private void enrichVideo(Video video, Long currentUserId) {
-        video.setAuthor(userService.getUserInfo(video.getAuthorId()));
-        if (video.getCategoryId() != null) {
-            video.setCategory(videoCategoryService.getById(video.getCategoryId()));
+    /**
+     * 批量填充作者、分类和点赞状态，每种关联各一次查询
+     */
+    private void enrichVideos(List<Video> videos, Long currentUserId) {
+        if (videos.isEmpty()) {
+            return;
         }
-        if (currentUserId != null) {
-            video.setIsLiked(videoLikeService.isLiked(video.getId(), currentUserId));
+        Map<Long, User> authors = userService.getUserInfoMap(
+                videos.stream().map(Video::getAuthorId).collect(Collectors.toSet()));
+        Set<Long> categoryIds = videos.stream()
+                .map(Video::getCategoryId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, VideoCategory> categories = categoryIds.isEmpty() ? Collections.emptyMap()
+                : videoCategoryService.listByIds(categoryIds).stream()
+                        .collect(Collectors.toMap(VideoCategory::getId, c -> c));
+        
+        for (Video video : videos) {
+            video.setAuthor(authors.get(video.getAuthorId()));
+            if (video.getCategoryId() != null) {
+                video.setCategory(categories.get(video.getCategoryId()));
+            }
         }
+        fillLiked(videos, currentUserId);
     }
     
-    private void incrementViewCount(Long videoId) {
-        videoMapper.update(null, new UpdateWrapper<Video>()
-                .eq("id", videoId)
-                .setSql("view_count = view_count + 1"));
+    private void fillLiked(List<Video> videos, Long currentUserId) {
+        if (currentUserId == null) {
+            return;
+        }
+        Set<Long> likedIds = videoLikeService.getLikedVideoIds(currentUserId,
+                videos.stream().map(Video::getId).toList());
+        videos.forEach(video -> video.setIsLiked(likedIds.contains(video.getId())));
     }
     
     @Transactional
@@ -152,13 +255,15 @@ public class VideoService extends ServiceImpl<VideoMapper, Video> {
             throw new BusinessException("无权限修改该视频");
         }
         
-        video.setTitle(request.getTitle());
-        video.setDescription(request.getDescription());
-        video.setThumbnail(request.getThumbnail());
-        video.setCategoryId(request.getCategoryId());
-        video.setChannelName(request.getChannelName());
-        
-        return videoMapper.updateById(video) > 0;
+        // 只更新编辑的列，不回写先前读到的播放数、点赞数等计数
+        return videoMapper.update(null, new UpdateWrapper<Video>()
+                .eq("id", id)
+                .set(request.getTitle() != null, "title", request.getTitle())
+                .set(request.getDescription() != null, "description", request.getDescription())
+                .set(request.getThumbnail() != null, "thumbnail", request.getThumbnail())
+                .set(request.getCategoryId() != null, "category_id", request.getCategoryId())
+                .set(request.getChannelName() != null, "channel_name", request.getChannelName())
+                .set("updated_at", LocalDateTime.now())) > 0;
     }
     
     @Transactional
@@ -175,24 +280,109 @@ public class VideoService extends ServiceImpl<VideoMapper, Video> {
             throw new BusinessException("无权限删除该视频");
         }
         
+        trendingService.removeVideo(id);
         return videoMapper.deleteById(id) > 0;
     }
     
     @Transactional
     public boolean approveVideo(Long id, Integer isApproved) {
-        Video video = new Video();
-        video.setId(id);
-        video.setIsApproved(isApproved);
-        return videoMapper.updateById(video) > 0;
+        boolean result = videoMapper.update(null, new UpdateWrapper<Video>()
+                .eq("id", id)
+                .set("is_approved", isApproved)
+                .set("updated_at", LocalDateTime.now())) > 0;
+        
+        // 审核通过进入热度榜和最新榜，驳回则移出
+        if (result && Integer.valueOf(1).equals(isApproved)) {
+            trendingService.addVideo(videoMapper.selectById(id));
+        } else if (result) {
+            trendingService.removeVideo(id);
+        }
+        return result;
+    }
+    
+    /**
+     * 获取热门视频（按时间衰减热度排序），从快照返回，最多 snapshot-size 条
+     */
+    public List<Video> getHotVideos(int count, Long currentUserId) {
+        if (hotSnapshot == null) {
+            refreshSnapshots();
+        }
+        return fromSnapshot(hotSnapshot, Math.min(count, snapshotSize), currentUserId);
+    }
+    
+    /**
+     * 定时重建首页快照，请求路径只复制快照并补充当前用户的点赞状态
+     */
+    @Scheduled(fixedDelayString = "${video-ranking.snapshot-refresh-ms:15000}")
+    public synchronized void refreshSnapshots() {
+        try {
+            List<Video> hot = loadHotVideos(snapshotSize);
+            List<Video> latest = loadLatestVideos(snapshotSize);
+            enrichVideos(hot, null);
+            enrichVideos(latest, null);
+            hotSnapshot = List.copyOf(hot);
+            latestSnapshot = List.copyOf(latest);
+        } catch (Exception e) {
+            log.warn("刷新视频首页快照失败: {}", e.getMessage());
+            if (hotSnapshot == null) {
+                hotSnapshot = List.of();
+                latestSnapshot = List.of();
+            }
+        }
+    }
+    
+    private List<Video> fromSnapshot(List<Video> snapshot, int count, Long currentUserId) {
+        List<Video> videos = snapshot.stream()
+                .limit(count)
+                .map(source -> {
+                    Video copy = new Video();
+                    BeanUtils.copyProperties(source, copy);
+                    return copy;
+                })
+                .collect(Collectors.toCollection(ArrayList::new));
+        fillLiked(videos, currentUserId);
+        return videos;
+    }
+    
+    private List<Video> loadHotVideos(int count) {
+        return loadRanked(trendingService.getTopIds(TrendingService.Board.VIDEO, count), () -> {
+            QueryWrapper<Video> wrapper = new QueryWrapper<>();
+            wrapper.eq("is_approved", 1)
+                   .eq("status", 1)
+                   .orderByDesc("view_count")
+                   .last("LIMIT " + count);
+            return videoMapper.selectList(wrapper);
+        });
+    }
+    
+    private List<Video> loadLatestVideos(int count) {
+        return loadRanked(trendingService.getLatestVideoIds(count), () -> {
+            QueryWrapper<Video> wrapper = new QueryWrapper<>();
+            wrapper.eq("is_approved", 1)
+                   .eq("status", 1)
+                   .orderByDesc("created_at")
+                   .last("LIMIT " + count);
+            return videoMapper.selectList(wrapper);
+        });
     }
     
-    public List<Video> getHotVideos(int count) {
+    /**
+     * 按排行榜ID顺序主键查询；榜单为空或不可用时执行回退查询
+     */
+    private List<Video> loadRanked(List<Long> ids, Supplier<List<Video>> fallback) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>(fallback.get());
+        }
         QueryWrapper<Video> wrapper = new QueryWrapper<>();
-        wrapper.eq("is_approved", 1)
-               .eq("status", 1)
-               .orderByDesc("view_count")
-               .last("LIMIT " + count);
-        return videoMapper.selectList(wrapper);
+        wrapper.in("id", ids)
+               .eq("is_approved", 1)
+               .eq("status", 1);
+        Map<Long, Video> byId = videoMapper.selectList(wrapper).stream()
+                .collect(Collectors.toMap(Video::getId, v -> v));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(ArrayList::new));
     }
     
     public PageResult<Video> getLikedVideos(Long userId, Integer current, Integer size) {
@@ -210,10 +400,8 @@ public class VideoService extends ServiceImpl<VideoMapper, Video> {
                .orderByDesc("created_at");
         
         Page<Video> resultPage = videoMapper.selectPage(page, wrapper);
-        resultPage.getRecords().forEach(video -> {
-            enrichVideo(video, userId);
-            video.setIsLiked(true); // 肯定是点赞过的
-        });
+        enrichVideos(resultPage.getRecords(), null);
+        resultPage.getRecords().forEach(video -> video.setIsLiked(true)); // 肯定是点赞过的
         
         return new PageResult<>(resultPage.getTotal(), resultPage.getRecords(),
                 resultPage.getCurrent(), resultPage.getSize());
@@ -227,57 +415,75 @@ public class VideoService extends ServiceImpl<VideoMapper, Video> {
                .orderByDesc("created_at");
         
         Page<Video> resultPage = videoMapper.selectPage(page, wrapper);
-        resultPage.getRecords().forEach(video -> enrichVideo(video, userId));
+        enrichVideos(resultPage.getRecords(), userId);
         
         return new PageResult<>(resultPage.getTotal(), resultPage.getRecords(),
                 resultPage.getCurrent(), resultPage.getSize());
     }
     
     /**
-     * 获取相关视频推荐（基于分类和作者）
+     * 获取相关视频推荐（基于分类和作者）：先取热度榜前 related-scan-size 名中的同分类/同作者视频，按热度排序；
+     * 不足时按浏览量补充榜单外的同分类/同作者视频，仍不足才用热门快照补齐
      */
     public List<Video> getRelatedVideos(Long videoId, int count, Long currentUserId) {
         Video video = videoMapper.selectById(videoId);
         if (video == null) {
             return List.of();
         }
+        int limit = Math.min(count, snapshotSize);
+        
+        List<Video> videos = new ArrayList<>(limit);
+        List<Long> rankedIds = trendingService.getTopIds(TrendingService.Board.VIDEO, relatedScanSize);
+        if (!rankedIds.isEmpty()) {
+            QueryWrapper<Video> ranked = relatedTo(video);
+            ranked.in("id", rankedIds);
+            Map<Long, Video> byId = videoMapper.selectList(ranked).stream()
+                    .collect(Collectors.toMap(Video::getId, v -> v));
+            rankedIds.stream()
+                    .map(byId::get)
+                    .filter(Objects::nonNull)
+                    .limit(limit)
+                    .forEach(videos::add);
+        }
+        if (videos.size() < limit) {
+            QueryWrapper<Video> more = relatedTo(video);
+            if (!videos.isEmpty()) {
+                more.notIn("id", videos.stream().map(Video::getId).toList());
+            }
+            more.orderByDesc("view_count")
+                .last("LIMIT " + (limit - videos.size()));
+            videos.addAll(videoMapper.selectList(more));
+        }
+        
+        enrichVideos(videos, currentUserId);
         
+        // 同分类/同作者的视频不够时，从热门快照补充
+        if (videos.size() < limit) {
+            Set<Long> existingIds = videos.stream().map(Video::getId).collect(Collectors.toSet());
+            existingIds.add(videoId);
+            getHotVideos(snapshotSize, currentUserId).stream()
+               .filter(v -> !existingIds.contains(v.getId()))
+               .limit(limit - videos.size())
+               .forEach(videos::add);
+        }
+        return videos;
+    }
+    
+    /**
+     * 与 video 同分类或同作者的已发布视频（不含自身）
+     */
+    private QueryWrapper<Video> relatedTo(Video video) {
         QueryWrapper<Video> wrapper = new QueryWrapper<>();
-        wrapper.ne("id", videoId)
+        wrapper.ne("id", video.getId())
                .eq("is_approved", 1)
                .eq("status", 1);
-        
-        // 优先同分类的视频
         if (video.getCategoryId() != null) {
             wrapper.and(w -> w.eq("category_id", video.getCategoryId())
                     .or().eq("author_id", video.getAuthorId()));
         } else {
             wrapper.eq("author_id", video.getAuthorId());
         }
-        
-        wrapper.orderByDesc("view_count")
-               .last("LIMIT " + count);
-        
-        List<Video> videos = videoMapper.selectList(wrapper);
-        
-        // 如果相关视频不够，补充热门视频
-        if (videos.size() < count) {
-            List<Long> existingIds = videos.stream().map(Video::getId).toList();
-            existingIds = new java.util.ArrayList<>(existingIds);
-            existingIds.add(videoId);
-            
-            QueryWrapper<Video> hotWrapper = new QueryWrapper<>();
-            hotWrapper.notIn("id", existingIds)
-                     .eq("is_approved", 1)
-                     .eq("status", 1)
-                     .orderByDesc("view_count")
-                     .last("LIMIT " + (count - videos.size()));
-            
-            videos.addAll(videoMapper.selectList(hotWrapper));
-        }
-        
-        videos.forEach(v -> enrichVideo(v, currentUserId));
-        return videos;
+        return wrapper;
     }
     
     /**
@@ -334,7 +540,7 @@ public class VideoService extends ServiceImpl<VideoMapper, Video> {
         }
         
         Page<Video> resultPage = videoMapper.selectPage(page, wrapper);
-        resultPage.getRecords().forEach(video -> enrichVideo(video, currentUserId));
+        enrichVideos(resultPage.getRecords(), currentUserId);
         
         return new PageResult<>(resultPage.getTotal(), resultPage.getRecords(),
                 resultPage.getCurrent(), resultPage.getSize());
@@ -403,7 +609,7 @@ public class VideoService extends ServiceImpl<VideoMapper, Video> {
         }
         
         Page<Video> resultPage = videoMapper.selectPage(page, wrapper);
-        resultPage.getRecords().forEach(video -> enrichVideo(video, currentUserId));
+        enrichVideos(resultPage.getRecords(), currentUserId);
         
         return new PageResult<>(resultPage.getTotal(), resultPage.getRecords(),
                 resultPage.getCurrent(), resultPage.getSize());
@@ -435,15 +641,10 @@ public class VideoService extends ServiceImpl<VideoMapper, Video> {
      * 获取最新视频
      */
     public List<Video> getLatestVideos(int count, Long currentUserId) {
-        QueryWrapper<Video> wrapper = new QueryWrapper<>();
-        wrapper.eq("is_approved", 1)
-               .eq("status", 1)
-               .orderByDesc("created_at")
-               .last("LIMIT " + count);
-        
-        List<Video> videos = videoMapper.selectList(wrapper);
-        videos.forEach(v -> enrichVideo(v, currentUserId));
-        return videos;
+        if (latestSnapshot == null) {
+            refreshSnapshots();
+        }
+        return fromSnapshot(latestSnapshot, Math.min(count, snapshotSize), currentUserId);
     }
     
     /**
@@ -487,7 +688,7 @@ public class VideoService extends ServiceImpl<VideoMapper, Video> {
                 .filter(java.util.Objects::nonNull)
                 .toList();
         
-        orderedVideos.forEach(video -> enrichVideo(video, currentUserId));
+        enrichVideos(orderedVideos, currentUserId);
         return orderedVideos;
     }
 }
@@ -0,0 +1,174 @@
+package com.campus.news.service;
+
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.campus.news.entity.Article;
+import com.campus.news.entity.Video;
+import com.campus.news.mapper.ArticleMapper;
+import com.campus.news.mapper.VideoMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * 浏览量写回服务（write-behind）
+ * 浏览时只在 Redis 哈希中 HINCRBY 累加增量，定时把增量聚合后批量写回 MySQL，
+ * 避免热门文章/视频的行锁争用。增量存放在 Redis 中，应用重启不会丢失；
+ * 写回时先把待写哈希 RENAME 为快照再处理，快照处理完才删除，中途失败的快照会在下一轮重试。
+ */
+@Slf4j
+@Service
+public class ViewCountService {
+
+    private static final String ARTICLE_PENDING_KEY = "view:pending:article";
+    private static final String ARTICLE_FLUSHING_KEY = "view:flushing:article";
+    private static final String VIDEO_PENDING_KEY = "view:pending:video";
+    private static final String VIDEO_FLUSHING_KEY = "view:flushing:video";
+    private static final String FLUSH_LOCK_KEY = "view:flush:lock";
+
+    /**
+     * 累加增量并返回未写回的总增量：待写哈希加上正在写回的快照中的值，写回期间实时浏览量不会回落
+     */
+    private static final DefaultRedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "local pending = redis.call('HINCRBY', KEYS[1], ARGV[1], 1) " +
+            "local flushing = tonumber(redis.call('HGET', KEYS[2], ARGV[1]) or '0') " +
+            "return pending + flushing",
+            Long.class);
+
+    /**
+     * 只释放自己持有的锁：写回超过锁的过期时间后，锁可能已被其他实例获取
+     */
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end " +
+            "return 0",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ArticleMapper articleMapper;
+    private final VideoMapper videoMapper;
+    private final int batchSize;
+
+    public ViewCountService(StringRedisTemplate stringRedisTemplate,
+                            ArticleMapper articleMapper,
+                            VideoMapper videoMapper,
+                            @Value("${view-count.flush-batch-size:500}") int batchSize) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.articleMapper = articleMapper;
+        this.videoMapper = videoMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 记录一次文章浏览，返回尚未写回数据库的增量，含正在写回的部分（实时浏览量 = 数据库值 + 返回值）
+     */
+    public long incrementArticleView(Long articleId) {
+        return increment(ARTICLE_PENDING_KEY, ARTICLE_FLUSHING_KEY, articleId, () -> articleMapper.update(null,
+                new UpdateWrapper<Article>().eq("id", articleId).setSql("view_count = view_count + 1")));
+    }
+
+    /**
+     * 记录一次视频播放，返回尚未写回数据库的增量
+     */
+    public long incrementVideoView(Long videoId) {
+        return increment(VIDEO_PENDING_KEY, VIDEO_FLUSHING_KEY, videoId, () -> videoMapper.update(null,
+                new UpdateWrapper<Video>().eq("id", videoId).setSql("view_count = view_count + 1")));
+    }
+
+    /**
+     * 定时把累积的增量写回数据库
+     */
+    @Scheduled(fixedDelayString = "${view-count.flush-interval-ms:10000}")
+    public void flush() {
+        Boolean locked;
+        String token = UUID.randomUUID().toString();
+        try {
+            // 多实例部署时同一时刻只允许一个实例写回，避免同一快照被重复累加
+            locked = stringRedisTemplate.opsForValue().setIfAbsent(FLUSH_LOCK_KEY, token, Duration.ofMinutes(1));
+        } catch (Exception e) {
+            log.warn("浏览量写回跳过，Redis 不可用: {}", e.getMessage());
+            return;
+        }
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        try {
+            flush(ARTICLE_PENDING_KEY, ARTICLE_FLUSHING_KEY, articleMapper::batchIncrementViewCount);
+            flush(VIDEO_PENDING_KEY, VIDEO_FLUSHING_KEY, videoMapper::batchIncrementViewCount);
+        } finally {
+            try {
+                stringRedisTemplate.execute(UNLOCK_SCRIPT, List.of(FLUSH_LOCK_KEY), token);
+            } catch (Exception e) {
+                log.warn("释放浏览量写回锁失败，等待过期: {}", e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private long increment(String pendingKey, String flushingKey, Long id, Runnable fallback) {
+        try {
+            Long pending = stringRedisTemplate.execute(INCREMENT_SCRIPT, List.of(pendingKey, flushingKey), String.valueOf(id));
+            return pending != null ? pending : 0;
+        } catch (Exception e) {
+            // Redis 不可用时退回直接更新数据库，浏览量不丢
+            log.warn("浏览量计数写入 Redis 失败，直接更新数据库 - ID: {}, 原因: {}", id, e.getMessage());
+            try {
+                fallback.run();
+            } catch (Exception ignored) {
+                // 更新失败不影响详情正常返回
+            }
+            return 0;
+        }
+    }
+
+    private void flush(String pendingKey, String flushingKey, Consumer<Map<Long, Long>> writer) {
+        try {
+            // 上一轮未处理完的快照优先写回，再把当前增量切换为新快照
+            if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(flushingKey))) {
+                if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(pendingKey))) {
+                    return;
+                }
+                stringRedisTemplate.rename(pendingKey, flushingKey);
+            }
+
+            Map<Object, Object> snapshot = stringRedisTemplate.opsForHash().entries(flushingKey);
+            Map<Long, Long> batch = new HashMap<>();
+            for (Map.Entry<Object, Object> entry : snapshot.entrySet()) {
+                long delta = Long.parseLong(entry.getValue().toString());
+                if (delta != 0) {
+                    batch.put(Long.valueOf(entry.getKey().toString()), delta);
+                }
+                if (batch.size() >= batchSize) {
+                    writeBatch(flushingKey, batch, writer);
+                    batch = new HashMap<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(flushingKey, batch, writer);
+            }
+            stringRedisTemplate.delete(flushingKey);
+            log.debug("浏览量写回完成 - {}: {} 条", pendingKey, snapshot.size());
+        } catch (Exception e) {
+            log.error("浏览量写回失败，下一轮重试 - {}: {}", pendingKey, e.getMessage());
+        }
+    }
+
+    /**
+     * 写回一批后立即从快照中移除，重试时不会重复累加已写回的部分
+     */
+    private void writeBatch(String flushingKey, Map<Long, Long> batch, Consumer<Map<Long, Long>> writer) {
+        writer.accept(batch);
+        stringRedisTemplate.opsForHash().delete(flushingKey,
+                batch.keySet().stream().map(String::valueOf).toArray());
+    }
+}
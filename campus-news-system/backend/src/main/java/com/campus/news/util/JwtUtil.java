@@ -2,62 +2,80 @@ package com.campus.news.util;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.Date;
 
 @Component
 public class JwtUtil {
-    
+
     @Value("${jwt.secret}")
     private String secret;
-    
+
     @Value("${jwt.expiration}")
     private Long expiration;
-    
-    private SecretKey getSecretKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+
+    /**
+     * 密钥和解析器是线程安全的，启动时构建一次后复用
+     */
+    private SecretKey secretKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    public void init() {
+        secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        jwtParser = Jwts.parser().verifyWith(secretKey).build();
     }
-    
+
+    public Long getExpiration() {
+        return expiration;
+    }
+
     public String generateToken(String username, Long userId) {
+        return generateToken(username, userId, null);
+    }
+
+    /**
+     * 生成令牌，角色名写入 roles 声明，鉴权时无需再查库
+     */
+    public String generateToken(String username, Long userId, Collection<String> roles) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
-        
-        return Jwts.builder()
+
+        JwtBuilder builder = Jwts.builder()
                 .subject(username)
                 .claim("userId", userId)
                 .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(getSecretKey())
-                .compact();
+                .expiration(expiryDate);
+        if (roles != null) {
+            builder.claim("roles", roles);
+        }
+        return builder.signWith(secretKey).compact();
+    }
+
+    /**
+     * 校验签名和有效期并返回声明，一次解析拿到全部信息
+     * @throws JwtException 令牌无效或已过期
+     */
+    public Claims parseToken(String token) {
+        return jwtParser.parseSignedClaims(token).getPayload();
     }
-    
+
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSecretKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        return claims.getSubject();
+        return parseToken(token).getSubject();
     }
-    
+
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSecretKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        return claims.get("userId", Long.class);
+        return parseToken(token).get("userId", Long.class);
     }
-    
+
     public boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSecretKey())
-                    .build()
-                    .parseSignedClaims(token);
+            parseToken(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
@@ -1,160 +1,606 @@
 package com.campus.news.websocket;
 
-import com.campus.news.util.JwtUtil;
+import com.campus.news.security.JwtTokenService;
+import com.campus.news.security.LoginUser;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
 
 /**
  * WebSocket 通知处理器
- * 管理用户连接，实现实时消息推送
+ * 管理用户连接，实现实时消息推送。
+ * 同一用户可同时保持多个连接（多标签页、多设备），推送发给该用户的全部连接；
+ * 另维护会话ID到连接的反向索引，断开时 O(1) 移除。
+ * 每个连接包装为 ConcurrentWebSocketSessionDecorator：并发发送时排队，
+ * 发送耗时或积压超过上限的慢连接直接关闭，不拖慢其他连接和调用方。
+ * 多节点部署时，本节点没有的连接由 WebSocketClusterRelay 经 Redis 转发到持有连接的节点。
+ * 广播只序列化一次，把本节点的连接分片后在有界线程池上并行发送，并统计送达/失败/跳过数。
+ * 定向推送经 ReplayBuffer 编号并缓存，客户端重连时在握手参数 lastSeq 中带上最后收到的序号，只补发缺失的消息。
+ * 客户端可发送 {"action":"subscribe","topic":"article:1"} 订阅主题（article:{id}、video:{id}），
+ * 主题到连接、连接到主题各维护一份并发索引，订阅、取消和断开清理都是 O(1)。
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class NotificationWebSocketHandler extends TextWebSocketHandler {
-    
-    private final JwtUtil jwtUtil;
+
+    private final JwtTokenService jwtTokenService;
+    private final WebSocketClusterRelay clusterRelay;
+    private final ReplayBuffer replayBuffer;
+    private final ApplicationEventPublisher eventPublisher;
     private final ObjectMapper objectMapper = new ObjectMapper();
-    
-    // 存储用户ID与WebSocket会话的映射
-    private static final Map<Long, WebSocketSession> USER_SESSIONS = new ConcurrentHashMap<>();
-    
+
+    @Value("${websocket.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${websocket.buffer-size-limit:524288}")
+    private int bufferSizeLimit;
+
+    @Value("${websocket.broadcast.threads:8}")
+    private int broadcastThreads;
+
+    @Value("${websocket.broadcast.queue-capacity:1000}")
+    private int broadcastQueueCapacity;
+
+    @Value("${websocket.broadcast.chunk-size:64}")
+    private int broadcastChunkSize;
+
+    @Value("${websocket.topic.max-per-connection:20}")
+    private int maxTopicsPerConnection;
+
+    /**
+     * 本节点一次广播的结果
+     */
+    public record BroadcastResult(int delivered, int failed, int skipped, long elapsedMs) {
+    }
+
+    /**
+     * 只反映当前状态的消息，重连时补发旧值没有意义，不进入重放缓冲
+     */
+    private static final Set<String> TRANSIENT_TYPES = Set.of("UNREAD_COUNT");
+
+    private static final Pattern TOPIC_PATTERN = Pattern.compile("(article|video):\\d{1,18}");
+
+    private enum Outcome {
+        DELIVERED, FAILED, SKIPPED
+    }
+
+    /**
+     * 一个已认证的连接
+     */
+    private record Connection(Long userId, WebSocketSession session) {
+    }
+
+    // 用户ID -> 该用户的全部连接
+    private final Map<Long, Set<WebSocketSession>> userSessions = new ConcurrentHashMap<>();
+
+    // 原始会话ID -> 连接（反向索引）
+    private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+
+    // 主题 -> 订阅该主题的连接（按会话ID）
+    private final Map<String, Map<String, Connection>> topicSubscribers = new ConcurrentHashMap<>();
+
+    // 会话ID -> 该连接订阅的主题
+    private final Map<String, Set<String>> sessionTopics = new ConcurrentHashMap<>();
+
+    // 集群登记的分段锁：compute 内只判断是否首个/最后一个连接，Redis 调用在 compute 返回后持锁按本地最新状态执行
+    private final Object[] registrationLocks = newLocks(64);
+
+    private final LongAdder slowConsumerEvictions = new LongAdder();
+
+    private ThreadPoolExecutor broadcastExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 队列满时由提交线程自己发送，广播变慢但不丢
+        broadcastExecutor = new ThreadPoolExecutor(broadcastThreads, broadcastThreads,
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(broadcastQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "ws-broadcast-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        clusterRelay.start(this::deliverRelayed);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        broadcastExecutor.shutdown();
+    }
+
     /**
      * 连接建立后调用
      */
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         log.info("📡 WebSocket连接请求到达, URI: {}", session.getUri());
-        
+
         // 从URL参数获取token进行认证
         String query = session.getUri() != null ? session.getUri().getQuery() : null;
         log.info("📡 Query参数: {}", query);
-        
-        String token = extractToken(query);
+
+        String token = extractParam(query, "token");
         log.info("📡 提取的Token: {}", token != null ? token.substring(0, Math.min(20, token.length())) + "..." : "null");
-        
-        if (token != null && jwtUtil.validateToken(token)) {
-            Long userId = jwtUtil.getUserIdFromToken(token);
-            USER_SESSIONS.put(userId, session);
-            log.info("🔗 WebSocket连接建立 - 用户ID: {}, 当前在线: {}人", userId, USER_SESSIONS.size());
-            
+
+        LoginUser loginUser = token != null ? jwtTokenService.authenticate(token) : null;
+        if (loginUser != null) {
+            Long userId = loginUser.getUserId();
+            WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(session,
+                    sendTimeLimitMs, bufferSizeLimit, ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE);
+            connections.put(session.getId(), new Connection(userId, decorated));
+            boolean[] first = {false};
+            userSessions.compute(userId, (id, sessions) -> {
+                if (sessions == null) {
+                    first[0] = true;
+                    sessions = ConcurrentHashMap.newKeySet();
+                }
+                sessions.add(decorated);
+                return sessions;
+            });
+            if (first[0]) {
+                // 本节点上该用户的第一个连接
+                syncPresence(userId);
+            }
+            log.info("🔗 WebSocket连接建立 - 用户ID: {}, 当前在线: {}人, 连接数: {}",
+                    userId, userSessions.size(), connections.size());
+
+            // 先登记连接再读取缓冲，两者之间的新消息可能重复送达，客户端按 seq 去重
+            ReplayBuffer.Replay replay = replayBuffer.since(userId, parseSeq(extractParam(query, "lastSeq")));
+
             // 发送连接成功消息
-            sendMessage(session, Map.of(
+            send(decorated, userId, toJson(Map.of(
                 "type", "CONNECTED",
                 "message", "连接成功",
-                "onlineCount", USER_SESSIONS.size()
-            ));
+                "onlineCount", userSessions.size(),
+                "seq", replay.currentSeq(),
+                "gap", replay.gap()
+            )));
+            if (!replay.payloads().isEmpty()) {
+                sendReplay(decorated, userId, replay);
+            }
+            eventPublisher.publishEvent(new UserConnectedEvent(userId));
         } else {
-            log.warn("❌ WebSocket认证失败，关闭连接, token验证结果: {}", token != null ? jwtUtil.validateToken(token) : "token为空");
+            log.warn("❌ WebSocket认证失败，关闭连接, token验证结果: {}", token != null ? "无效或已撤销" : "token为空");
             session.close(CloseStatus.NOT_ACCEPTABLE);
         }
     }
-    
+
     /**
      * 连接关闭后调用
      */
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-        // 移除会话
-        USER_SESSIONS.entrySet().removeIf(entry -> entry.getValue().equals(session));
-        log.info("🔌 WebSocket连接关闭 - 当前在线: {}人", USER_SESSIONS.size());
+        remove(session);
+        log.info("🔌 WebSocket连接关闭 - 当前在线: {}人, 连接数: {}", userSessions.size(), connections.size());
     }
-    
+
     /**
-     * 收到消息时调用（心跳检测）
+     * 收到消息时调用（心跳检测、主题订阅）
      */
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
         String payload = message.getPayload();
+        Connection connection = connections.get(session.getId());
+        if (connection == null) {
+            return;
+        }
         if ("ping".equals(payload)) {
-            session.sendMessage(new TextMessage("pong"));
+            send(connection.session(), connection.userId(), new TextMessage("pong"));
+        } else if (payload.startsWith("{")) {
+            handleCommand(session.getId(), connection, payload);
         }
     }
-    
+
     /**
      * 发生错误时调用
      */
     @Override
     public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
         log.error("WebSocket传输错误", exception);
-        USER_SESSIONS.entrySet().removeIf(entry -> entry.getValue().equals(session));
+        remove(session);
     }
-    
+
     /**
-     * 向指定用户发送通知
-     * 
+     * 向指定用户的全部连接发送通知（含其他节点上的连接）
+     *
      * @param userId 目标用户ID
      * @param notification 通知内容
      */
     public void sendNotificationToUser(Long userId, Map<String, Object> notification) {
-        WebSocketSession session = USER_SESSIONS.get(userId);
-        if (session != null && session.isOpen()) {
-            try {
-                sendMessage(session, notification);
-                log.info("📨 实时通知已发送 - 用户ID: {}, 类型: {}", userId, notification.get("type"));
-            } catch (Exception e) {
-                log.error("发送通知失败 - 用户ID: {}", userId, e);
+        try {
+            // 同一条消息只序列化一次，编号后写入重放缓冲（离线时同样写入，重连后补发）
+            String payload = objectMapper.writeValueAsString(notification);
+            if (!TRANSIENT_TYPES.contains(String.valueOf(notification.get("type")))) {
+                payload = replayBuffer.append(userId, payload);
             }
+            int local = deliverLocal(userId, payload);
+            clusterRelay.forwardToUser(userId, payload);
+            log.info("📨 实时通知已发送 - 用户ID: {}, 类型: {}, 本节点连接数: {}",
+                    userId, notification.get("type"), local);
+        } catch (Exception e) {
+            log.error("发送通知失败 - 用户ID: {}", userId, e);
+        }
+    }
+
+    /**
+     * 广播消息给所有节点的在线连接，返回本节点的投递结果（其他节点各自异步投递）
+     */
+    public CompletableFuture<BroadcastResult> broadcast(Map<String, Object> message) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(message);
+        } catch (IOException e) {
+            log.error("广播消息序列化失败", e);
+            return CompletableFuture.failedFuture(e);
+        }
+        clusterRelay.broadcast(payload);
+        return broadcastLocal(new TextMessage(payload));
+    }
+
+    /**
+     * 向订阅该主题的全部连接发送消息（含其他节点上的订阅者）
+     */
+    public void publishToTopic(String topic, Map<String, Object> message) {
+        try {
+            String payload = objectMapper.writeValueAsString(message);
+            deliverTopic(topic, payload);
+            clusterRelay.forwardToTopic(topic, payload);
+        } catch (Exception e) {
+            log.error("发送主题消息失败 - 主题: {}", topic, e);
+        }
+    }
+
+    /**
+     * 主题在任一节点是否有订阅者，没有时发布方可以跳过
+     */
+    public boolean hasTopicSubscribers(String topic) {
+        return topicSubscribers.containsKey(topic) || clusterRelay.hasRemoteSubscribers(topic);
+    }
+
+    /**
+     * 获取本节点有订阅者的主题数
+     */
+    public int getTopicCount() {
+        return topicSubscribers.size();
+    }
+
+    /**
+     * 检查用户是否在线（本节点或其他节点至少有一个打开的连接）
+     */
+    public boolean isUserOnline(Long userId) {
+        Set<WebSocketSession> sessions = userSessions.get(userId);
+        if (sessions != null && sessions.stream().anyMatch(WebSocketSession::isOpen)) {
+            return true;
+        }
+        return clusterRelay.isOnline(userId);
+    }
+
+    /**
+     * 获取本节点在线用户数
+     */
+    public int getOnlineCount() {
+        return userSessions.size();
+    }
+
+    /**
+     * 获取本节点连接数（同一用户可有多个连接）
+     */
+    public int getSessionCount() {
+        return connections.size();
+    }
+
+    /**
+     * 因发送过慢被关闭的连接数
+     */
+    public long getSlowConsumerEvictions() {
+        return slowConsumerEvictions.sum();
+    }
+
+    /**
+     * 其他节点转来的消息：主题消息、定向消息或广播
+     */
+    private void deliverRelayed(Long userId, String topic, String payload) {
+        if (topic != null) {
+            deliverTopic(topic, payload);
+        } else {
+            deliverLocal(userId, payload);
+        }
+    }
+
+    private void deliverTopic(String topic, String payload) {
+        Map<String, Connection> subscribers = topicSubscribers.get(topic);
+        if (subscribers == null) {
+            return;
+        }
+        TextMessage message = new TextMessage(payload);
+        for (Connection connection : subscribers.values()) {
+            send(connection.session(), connection.userId(), message);
         }
     }
-    
+
     /**
-     * 广播消息给所有在线用户
+     * 处理客户端命令：{"action":"subscribe|unsubscribe","topic":"article:1"}
      */
-    public void broadcast(Map<String, Object> message) {
-        USER_SESSIONS.values().forEach(session -> {
-            if (session.isOpen()) {
-                try {
-                    sendMessage(session, message);
-                } catch (Exception e) {
-                    log.error("广播消息失败", e);
+    private void handleCommand(String sessionId, Connection connection, String payload) {
+        String action;
+        String topic;
+        Object lastSeq;
+        try {
+            Map<?, ?> command = objectMapper.readValue(payload, Map.class);
+            action = String.valueOf(command.get("action"));
+            topic = String.valueOf(command.get("topic"));
+            lastSeq = command.get("lastSeq");
+        } catch (IOException e) {
+            log.debug("无法解析的客户端消息 - 用户ID: {}", connection.userId());
+            return;
+        }
+        if ("replay".equals(action)) {
+            // 多节点转发可能乱序，客户端发现序号缺口时请求补发缺口之后的消息
+            Long seq = parseSeq(lastSeq != null ? String.valueOf(lastSeq) : null);
+            if (seq != null) {
+                sendReplay(connection.session(), connection.userId(), replayBuffer.since(connection.userId(), seq));
+            }
+            return;
+        }
+        if (!TOPIC_PATTERN.matcher(topic).matches()) {
+            sendError(connection, "不支持的主题: " + topic);
+            return;
+        }
+        if ("subscribe".equals(action)) {
+            if (subscribe(sessionId, connection, topic)) {
+                send(connection.session(), connection.userId(), new TextMessage(
+                        "{\"type\":\"SUBSCRIBED\",\"topic\":\"" + topic + "\"}"));
+            } else {
+                sendError(connection, "订阅主题数已达上限 " + maxTopicsPerConnection);
+            }
+        } else if ("unsubscribe".equals(action)) {
+            Set<String> topics = sessionTopics.get(sessionId);
+            if (topics != null && topics.remove(topic)) {
+                unsubscribe(sessionId, topic);
+            }
+        }
+    }
+
+    private boolean subscribe(String sessionId, Connection connection, String topic) {
+        Set<String> topics = sessionTopics.computeIfAbsent(sessionId, id -> ConcurrentHashMap.newKeySet());
+        if (!topics.contains(topic) && topics.size() >= maxTopicsPerConnection) {
+            return false;
+        }
+        if (topics.add(topic)) {
+            boolean[] first = {false};
+            topicSubscribers.compute(topic, (t, subscribers) -> {
+                if (subscribers == null) {
+                    first[0] = true;
+                    subscribers = new ConcurrentHashMap<>();
                 }
+                subscribers.put(sessionId, connection);
+                return subscribers;
+            });
+            if (first[0]) {
+                syncTopic(topic);
+            }
+        }
+        // 订阅的同时连接已断开，撤销以免残留
+        if (!connections.containsKey(sessionId)) {
+            Set<String> stale = sessionTopics.remove(sessionId);
+            if (stale != null) {
+                stale.forEach(t -> unsubscribe(sessionId, t));
             }
+        }
+        return true;
+    }
+
+    private void unsubscribe(String sessionId, String topic) {
+        boolean[] last = {false};
+        topicSubscribers.computeIfPresent(topic, (t, subscribers) -> {
+            subscribers.remove(sessionId);
+            if (subscribers.isEmpty()) {
+                last[0] = true;
+                return null;
+            }
+            return subscribers;
         });
+        if (last[0]) {
+            syncTopic(topic);
+        }
     }
-    
+
     /**
-     * 检查用户是否在线
+     * 按本地当前状态登记/注销用户所在节点。并发的首个连接和最后断开各自触发一次同步，
+     * 持锁后读取的是最新状态，最后执行的一次决定 Redis 中的结果，不会残留与本地相反的登记
      */
-    public boolean isUserOnline(Long userId) {
-        WebSocketSession session = USER_SESSIONS.get(userId);
-        return session != null && session.isOpen();
+    private void syncPresence(Long userId) {
+        synchronized (registrationLock(userId)) {
+            if (userSessions.containsKey(userId)) {
+                clusterRelay.userOnline(userId);
+            } else {
+                clusterRelay.userOffline(userId);
+            }
+        }
+    }
+
+    private void syncTopic(String topic) {
+        synchronized (registrationLock(topic)) {
+            if (topicSubscribers.containsKey(topic)) {
+                clusterRelay.topicSubscribed(topic);
+            } else {
+                clusterRelay.topicUnsubscribed(topic);
+            }
+        }
+    }
+
+    private Object registrationLock(Object key) {
+        return registrationLocks[Math.floorMod(key.hashCode(), registrationLocks.length)];
+    }
+
+    private static Object[] newLocks(int count) {
+        Object[] locks = new Object[count];
+        for (int i = 0; i < count; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
     }
-    
+
     /**
-     * 获取在线用户数
+     * 缺失的消息合并为一条发送，内容是已序列化的原消息，直接拼接；带上当前序号和缺口标记
      */
-    public int getOnlineCount() {
-        return USER_SESSIONS.size();
+    private void sendReplay(WebSocketSession session, Long userId, ReplayBuffer.Replay replay) {
+        send(session, userId, new TextMessage("{\"type\":\"REPLAY\",\"seq\":" + replay.currentSeq()
+                + ",\"gap\":" + replay.gap()
+                + ",\"messages\":[" + String.join(",", replay.payloads()) + "]}"));
+        log.info("🔁 补发消息 - 用户ID: {}, 条数: {}, 缺口: {}", userId, replay.payloads().size(), replay.gap());
+    }
+
+    private void sendError(Connection connection, String message) {
+        try {
+            send(connection.session(), connection.userId(), toJson(Map.of("type", "ERROR", "message", message)));
+        } catch (IOException e) {
+            log.error("发送错误消息失败 - 用户ID: {}", connection.userId(), e);
+        }
     }
-    
+
     /**
-     * 发送JSON消息
+     * 投递到本节点上的连接，userId 为空时为其他节点转来的广播，返回投递的连接数
      */
-    private void sendMessage(WebSocketSession session, Map<String, Object> data) throws IOException {
-        String json = objectMapper.writeValueAsString(data);
-        session.sendMessage(new TextMessage(json));
+    private int deliverLocal(Long userId, String payload) {
+        TextMessage message = new TextMessage(payload);
+        if (userId == null) {
+            broadcastLocal(message).thenAccept(result ->
+                    log.info("📢 跨节点广播完成 - {}", result));
+            return connections.size();
+        }
+        Set<WebSocketSession> sessions = userSessions.get(userId);
+        if (sessions == null) {
+            return 0;
+        }
+        for (WebSocketSession session : sessions) {
+            send(session, userId, message);
+        }
+        return sessions.size();
     }
-    
+
     /**
-     * 从查询字符串提取token
+     * 本节点连接分片后并行发送，全部分片完成后汇总结果
      */
-    private String extractToken(String query) {
+    private CompletableFuture<BroadcastResult> broadcastLocal(TextMessage message) {
+        long start = System.nanoTime();
+        List<Connection> snapshot = new ArrayList<>(connections.values());
+        List<CompletableFuture<int[]>> parts = new ArrayList<>();
+        for (int from = 0; from < snapshot.size(); from += broadcastChunkSize) {
+            List<Connection> chunk = snapshot.subList(from, Math.min(from + broadcastChunkSize, snapshot.size()));
+            parts.add(CompletableFuture.supplyAsync(() -> {
+                int[] counts = new int[Outcome.values().length];
+                for (Connection connection : chunk) {
+                    counts[send(connection.session(), connection.userId(), message).ordinal()]++;
+                }
+                return counts;
+            }, broadcastExecutor));
+        }
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            int[] total = new int[Outcome.values().length];
+            for (CompletableFuture<int[]> part : parts) {
+                int[] counts = part.join();
+                for (int i = 0; i < total.length; i++) {
+                    total[i] += counts[i];
+                }
+            }
+            return new BroadcastResult(total[Outcome.DELIVERED.ordinal()], total[Outcome.FAILED.ordinal()],
+                    total[Outcome.SKIPPED.ordinal()], TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        });
+    }
+
+    /**
+     * 发送到单个连接；慢连接由装饰器关闭并在这里移出注册表，异常不影响其他连接
+     */
+    private Outcome send(WebSocketSession session, Long userId, TextMessage message) {
+        if (!session.isOpen()) {
+            remove(session);
+            return Outcome.SKIPPED;
+        }
+        try {
+            session.sendMessage(message);
+            return Outcome.DELIVERED;
+        } catch (SessionLimitExceededException e) {
+            slowConsumerEvictions.increment();
+            log.warn("⚠️ 连接发送过慢已关闭 - 用户ID: {}, 原因: {}", userId, e.getMessage());
+            remove(session);
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException ignored) {
+                // 连接已不可用，关闭失败无需处理
+            }
+            return Outcome.FAILED;
+        } catch (Exception e) {
+            log.error("发送消息失败 - 用户ID: {}", userId, e);
+            return Outcome.FAILED;
+        }
+    }
+
+    /**
+     * 按会话ID移除连接，原始会话和装饰后的会话ID相同
+     */
+    private void remove(WebSocketSession session) {
+        Connection connection = connections.remove(session.getId());
+        if (connection == null) {
+            return;
+        }
+        Set<String> topics = sessionTopics.remove(session.getId());
+        if (topics != null) {
+            topics.forEach(topic -> unsubscribe(session.getId(), topic));
+        }
+        boolean[] last = {false};
+        userSessions.computeIfPresent(connection.userId(), (id, sessions) -> {
+            sessions.remove(connection.session());
+            if (sessions.isEmpty()) {
+                last[0] = true;
+                return null;
+            }
+            return sessions;
+        });
+        if (last[0]) {
+            syncPresence(connection.userId());
+        }
+    }
+
+    private TextMessage toJson(Map<String, Object> data) throws IOException {
+        return new TextMessage(objectMapper.writeValueAsString(data));
+    }
+
+    /**
+     * 从查询字符串提取参数
+     */
+    private String extractParam(String query, String name) {
         if (query == null) return null;
         for (String param : query.split("&")) {
             String[] pair = param.split("=");
-            if (pair.length == 2 && "token".equals(pair[0])) {
+            if (pair.length == 2 && name.equals(pair[0])) {
                 return pair[1];
             }
         }
         return null;
     }
+
+    private Long parseSeq(String value) {
+        try {
+            return value != null ? Long.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,112 @@
+package com.campus.news.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 推送重放缓冲
+ * 每个用户的定向推送按递增序号（ws:seq:{userId}）编号，最近的若干条存入有序集合 ws:replay:{userId}（分值为序号）。
+ * 客户端重连时带上最后收到的序号，只补发之后的消息；缓冲已截断或序号已过期时标记 gap，由客户端整体刷新。
+ */
+@Slf4j
+@Component
+public class ReplayBuffer {
+
+    private static final String SEQ_PREFIX = "ws:seq:";
+    private static final String REPLAY_PREFIX = "ws:replay:";
+
+    /**
+     * 一次往返完成编号、写入、截断和续期；序号直接拼进已序列化的 JSON，不再二次序列化
+     */
+    private static final DefaultRedisScript<String> APPEND_SCRIPT = new DefaultRedisScript<>(
+            "local seq = redis.call('INCR', KEYS[1]) " +
+            "local payload = '{\"seq\":' .. seq .. ',' .. string.sub(ARGV[1], 2) " +
+            "redis.call('ZADD', KEYS[2], seq, payload) " +
+            "redis.call('ZREMRANGEBYRANK', KEYS[2], 0, -tonumber(ARGV[2]) - 1) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[3]) " +
+            "redis.call('EXPIRE', KEYS[2], ARGV[3]) " +
+            "return payload",
+            String.class);
+
+    /**
+     * 重连时的补发结果
+     *
+     * @param payloads   需要补发的消息（按序号升序）
+     * @param currentSeq 当前最新序号
+     * @param gap        客户端缺失的消息已不在缓冲中，需要整体刷新
+     */
+    public record Replay(List<String> payloads, long currentSeq, boolean gap) {
+    }
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final int maxSize;
+    private final long ttlSeconds;
+
+    public ReplayBuffer(StringRedisTemplate stringRedisTemplate,
+                        @Value("${websocket.replay.max-size:100}") int maxSize,
+                        @Value("${websocket.replay.ttl-hours:24}") long ttlHours) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.maxSize = maxSize;
+        this.ttlSeconds = ttlHours * 3600;
+    }
+
+    /**
+     * 为消息编号并写入缓冲，返回带 seq 的消息；Redis 不可用时原样返回（不带序号）
+     */
+    public String append(Long userId, String payload) {
+        if (payload.length() < 3 || payload.charAt(0) != '{') {
+            return payload;
+        }
+        try {
+            String numbered = stringRedisTemplate.execute(APPEND_SCRIPT,
+                    List.of(SEQ_PREFIX + userId, REPLAY_PREFIX + userId),
+                    payload, String.valueOf(maxSize), String.valueOf(ttlSeconds));
+            return numbered != null ? numbered : payload;
+        } catch (Exception e) {
+            log.warn("写入推送重放缓冲失败 - 用户ID: {}, 原因: {}", userId, e.getMessage());
+            return payload;
+        }
+    }
+
+    /**
+     * 取出序号大于 lastSeq 的消息；lastSeq 为空表示首次连接，只返回当前序号
+     */
+    public Replay since(Long userId, Long lastSeq) {
+        try {
+            String current = stringRedisTemplate.opsForValue().get(SEQ_PREFIX + userId);
+            long currentSeq = current != null ? Long.parseLong(current) : 0;
+            if (lastSeq == null || lastSeq == currentSeq) {
+                return new Replay(List.of(), currentSeq, false);
+            }
+            if (lastSeq > currentSeq) {
+                // 序号已随缓冲过期重新计数
+                return new Replay(List.of(), currentSeq, true);
+            }
+            Set<ZSetOperations.TypedTuple<String>> entries = stringRedisTemplate.opsForZSet()
+                    .rangeByScoreWithScores(REPLAY_PREFIX + userId, lastSeq + 1, Double.POSITIVE_INFINITY);
+            List<String> payloads = new ArrayList<>();
+            long firstSeq = -1;
+            if (entries != null) {
+                for (ZSetOperations.TypedTuple<String> entry : entries) {
+                    if (firstSeq < 0 && entry.getScore() != null) {
+                        firstSeq = entry.getScore().longValue();
+                    }
+                    payloads.add(entry.getValue());
+                }
+            }
+            boolean gap = firstSeq != lastSeq + 1;
+            return new Replay(payloads, currentSeq, gap);
+        } catch (Exception e) {
+            log.warn("读取推送重放缓冲失败 - 用户ID: {}, 原因: {}", userId, e.getMessage());
+            return new Replay(List.of(), 0, lastSeq != null);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.campus.news.websocket;
+
+/**
+ * 用户的 WebSocket 连接建立完成（含重连），监听方可借此推送连接后需要的状态
+ */
+public record UserConnectedEvent(Long userId) {
+}
@@ -0,0 +1,270 @@
+package com.campus.news.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * WebSocket 跨节点转发
+ * 每个节点订阅自己的频道 ws:node:{nodeId} 和广播频道 ws:broadcast，只向本节点上的连接投递。
+ * 在线状态记录在 Redis 集合 ws:presence:{userId} 中（成员为持有该用户连接的节点ID），
+ * 定向消息只发布到这些节点的频道，没有该用户连接的节点不会收到。
+ * 主题订阅同样按节点登记在 ws:topic:{topic} 集合中，主题消息只发布到有订阅者的节点。
+ * 节点通过 ws:nodes 有序集合定时心跳，心跳超时的节点视为下线，其在线记录在遇到时清除。
+ */
+@Slf4j
+@Component
+public class WebSocketClusterRelay {
+
+    private static final String PRESENCE_PREFIX = "ws:presence:";
+    private static final String TOPIC_PREFIX = "ws:topic:";
+    private static final String NODES_KEY = "ws:nodes";
+    private static final String NODE_CHANNEL_PREFIX = "ws:node:";
+    private static final String BROADCAST_CHANNEL = "ws:broadcast";
+
+    /**
+     * 本节点的投递回调：userId 与 topic 均为空表示广播
+     */
+    public interface Delivery {
+        void deliver(Long userId, String topic, String payload);
+    }
+
+    /**
+     * 频道消息：payload 为已序列化的推送内容，接收方直接发送，不再重复序列化
+     */
+    private record Envelope(String origin, Long userId, String topic, String payload) {
+    }
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final boolean enabled;
+    private final long nodeTimeoutMs;
+
+    private volatile Set<String> liveNodes = Set.of();
+    private volatile Delivery delivery;
+
+    public WebSocketClusterRelay(StringRedisTemplate stringRedisTemplate,
+                                 RedisMessageListenerContainer listenerContainer,
+                                 @Value("${websocket.cluster.enabled:true}") boolean enabled,
+                                 @Value("${websocket.cluster.node-timeout-ms:30000}") long nodeTimeoutMs) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.enabled = enabled;
+        this.nodeTimeoutMs = nodeTimeoutMs;
+    }
+
+    /**
+     * 注册本节点的投递回调并开始订阅
+     */
+    public void start(Delivery delivery) {
+        this.delivery = delivery;
+        if (!enabled) {
+            return;
+        }
+        MessageListener listener = (message, pattern) -> onMessage(message.getBody());
+        listenerContainer.addMessageListener(listener, List.of(
+                new ChannelTopic(NODE_CHANNEL_PREFIX + nodeId),
+                new ChannelTopic(BROADCAST_CHANNEL)));
+        heartbeat();
+        log.info("📡 WebSocket 跨节点转发已启用 - 节点ID: {}", nodeId);
+    }
+
+    /**
+     * 本节点上该用户的第一个连接建立
+     */
+    public void userOnline(Long userId) {
+        register(PRESENCE_PREFIX + userId);
+    }
+
+    /**
+     * 本节点上该用户的最后一个连接断开
+     */
+    public void userOffline(Long userId) {
+        unregister(PRESENCE_PREFIX + userId);
+    }
+
+    /**
+     * 本节点上该主题的第一个订阅
+     */
+    public void topicSubscribed(String topic) {
+        register(TOPIC_PREFIX + topic);
+    }
+
+    /**
+     * 本节点上该主题的最后一个订阅取消
+     */
+    public void topicUnsubscribed(String topic) {
+        unregister(TOPIC_PREFIX + topic);
+    }
+
+    /**
+     * 用户是否在任一节点在线
+     */
+    public boolean isOnline(Long userId) {
+        return enabled && !nodesOf(PRESENCE_PREFIX + userId, true).isEmpty();
+    }
+
+    /**
+     * 其他节点上是否有该主题的订阅者
+     */
+    public boolean hasRemoteSubscribers(String topic) {
+        return enabled && !nodesOf(TOPIC_PREFIX + topic, false).isEmpty();
+    }
+
+    /**
+     * 把定向消息转发到持有该用户连接的其他节点
+     */
+    public void forwardToUser(Long userId, String payload) {
+        if (!enabled) {
+            return;
+        }
+        for (String node : nodesOf(PRESENCE_PREFIX + userId, false)) {
+            publish(NODE_CHANNEL_PREFIX + node, new Envelope(nodeId, userId, null, payload));
+        }
+    }
+
+    /**
+     * 把主题消息转发到有该主题订阅者的其他节点
+     */
+    public void forwardToTopic(String topic, String payload) {
+        if (!enabled) {
+            return;
+        }
+        for (String node : nodesOf(TOPIC_PREFIX + topic, false)) {
+            publish(NODE_CHANNEL_PREFIX + node, new Envelope(nodeId, null, topic, payload));
+        }
+    }
+
+    /**
+     * 把广播消息转发到其他节点
+     */
+    public void broadcast(String payload) {
+        if (enabled) {
+            publish(BROADCAST_CHANNEL, new Envelope(nodeId, null, null, payload));
+        }
+    }
+
+    /**
+     * 节点心跳，同时刷新存活节点列表
+     */
+    @Scheduled(fixedDelayString = "${websocket.cluster.heartbeat-ms:10000}")
+    public void heartbeat() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            stringRedisTemplate.opsForZSet().add(NODES_KEY, nodeId, now);
+            stringRedisTemplate.opsForZSet().removeRangeByScore(NODES_KEY, 0, now - nodeTimeoutMs);
+            Set<String> nodes = stringRedisTemplate.opsForZSet().rangeByScore(NODES_KEY, now - nodeTimeoutMs, Double.MAX_VALUE);
+            liveNodes = nodes != null ? Set.copyOf(nodes) : Set.of(nodeId);
+        } catch (Exception e) {
+            log.warn("WebSocket 节点心跳失败: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForZSet().remove(NODES_KEY, nodeId);
+        } catch (Exception ignored) {
+            // 心跳超时后其他节点同样会把本节点视为下线
+        }
+    }
+
+    private void register(String key) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForSet().add(key, nodeId);
+        } catch (Exception e) {
+            log.warn("登记节点失败 - {}, 原因: {}", key, e.getMessage());
+        }
+    }
+
+    private void unregister(String key) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForSet().remove(key, nodeId);
+        } catch (Exception e) {
+            log.warn("注销节点失败 - {}, 原因: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 登记在 key 下的存活节点（持有该用户连接或该主题订阅）；includeSelf 为 false 时排除本节点。已下线节点的记录顺带清除
+     */
+    private List<String> nodesOf(String key, boolean includeSelf) {
+        try {
+            Set<String> members = stringRedisTemplate.opsForSet().members(key);
+            if (members == null || members.isEmpty()) {
+                return List.of();
+            }
+            List<String> nodes = new ArrayList<>(members.size());
+            for (String node : members) {
+                if (node.equals(nodeId)) {
+                    if (includeSelf) {
+                        nodes.add(node);
+                    }
+                } else if (isLive(node)) {
+                    nodes.add(node);
+                } else {
+                    stringRedisTemplate.opsForSet().remove(key, node);
+                }
+            }
+            return nodes;
+        } catch (Exception e) {
+            log.warn("查询节点登记失败 - {}, 原因: {}", key, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * 本地存活列表按心跳间隔刷新，不在列表中时再查一次，避免刚启动的节点被误判为下线
+     */
+    private boolean isLive(String node) {
+        if (liveNodes.contains(node)) {
+            return true;
+        }
+        Double lastSeen = stringRedisTemplate.opsForZSet().score(NODES_KEY, node);
+        return lastSeen != null && System.currentTimeMillis() - lastSeen < nodeTimeoutMs;
+    }
+
+    private void publish(String channel, Envelope envelope) {
+        try {
+            stringRedisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(envelope));
+        } catch (Exception e) {
+            log.warn("WebSocket 消息跨节点转发失败 - 频道: {}, 原因: {}", channel, e.getMessage());
+        }
+    }
+
+    private void onMessage(byte[] body) {
+        try {
+            Envelope envelope = objectMapper.readValue(body, Envelope.class);
+            // 广播消息本节点在发布时已直接投递
+            if (nodeId.equals(envelope.origin()) || delivery == null) {
+                return;
+            }
+            delivery.deliver(envelope.userId(), envelope.topic(), envelope.payload());
+        } catch (Exception e) {
+            log.error("处理跨节点 WebSocket 消息失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+-- 文章最火评论指针
+ALTER TABLE `article` ADD COLUMN `hot_comment_id` BIGINT NULL COMMENT '最火评论ID' AFTER `comment_count`;
+
+-- 重新计算指针时按 (article_id, like_count) 取第一条，避免对文章全部评论排序
+ALTER TABLE `comment` ADD INDEX `idx_article_like` (`article_id`, `like_count`);
+
+-- 回填已有文章的最火评论
+UPDATE `article` a SET a.`hot_comment_id` = (
+    SELECT c.`id` FROM `comment` c
+    WHERE c.`article_id` = a.`id` AND c.`status` = 1
+    ORDER BY c.`like_count` DESC, c.`id` ASC
+    LIMIT 1
+);
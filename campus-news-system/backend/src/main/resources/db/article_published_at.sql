@@ -0,0 +1,8 @@
+-- 文章审核通过时间，关注时间线按发布顺序排序
+ALTER TABLE `article` ADD COLUMN `published_at` DATETIME NULL COMMENT '审核通过时间' AFTER `is_approved`;
+
+-- 按作者取最新发布的文章
+ALTER TABLE `article` ADD INDEX `idx_author_published` (`author_id`, `published_at`);
+
+-- 回填已通过文章：历史审核时间未记录，以创建时间代替
+UPDATE `article` SET `published_at` = `created_at` WHERE `is_approved` = 1 AND `published_at` IS NULL;
@@ -0,0 +1,2 @@
+-- 通知聚合：同一时间窗口内对同一目标的点赞/收藏/关注合并为一条，记录合并人数
+ALTER TABLE `notification` ADD COLUMN `aggregate_count` INT NOT NULL DEFAULT 1 COMMENT '合并的触发人数（点赞/收藏/关注聚合）' AFTER `is_read`;
@@ -0,0 +1,2 @@
+-- 未读数按 (user_id, is_read) 计数，加载和定时修正都走联合索引
+ALTER TABLE `notification` ADD INDEX `idx_user_read` (`user_id`, `is_read`);
@@ -0,0 +1,68 @@
+package com.campus.news.common;
+
+import com.campus.news.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 信息流游标编解码与参数校验
+ */
+class FeedCursorTest {
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        FeedCursor cursor = new FeedCursor(1, "2024-05-01T08:30", 42L);
+
+        FeedCursor decoded = FeedCursor.decode(cursor.encode());
+
+        assertThat(decoded).isEqualTo(cursor);
+        assertThat(decoded.sortValue(false)).isEqualTo(LocalDateTime.of(2024, 5, 1, 8, 30));
+    }
+
+    @Test
+    void emptyCursorMeansFirstPage() {
+        assertThat(FeedCursor.decode(null)).isNull();
+        assertThat(FeedCursor.decode("")).isNull();
+    }
+
+    @Test
+    void malformedCursorIsRejectedWith400() {
+        String notBase64 = "!!!";
+        String missingParts = Base64.getUrlEncoder().withoutPadding().encodeToString("1|abc".getBytes());
+        String badId = Base64.getUrlEncoder().withoutPadding().encodeToString("1|100|x".getBytes());
+
+        for (String cursor : new String[]{notBase64, missingParts, badId}) {
+            assertThatThrownBy(() -> FeedCursor.decode(cursor))
+                    .isInstanceOf(BusinessException.class)
+                    .extracting("code").isEqualTo(400);
+        }
+    }
+
+    @Test
+    void cursorFromAnotherSortOrderIsRejectedWith400() {
+        FeedCursor byTime = new FeedCursor(0, "2024-05-01T08:30", 1L);
+        FeedCursor byViews = new FeedCursor(0, "120", 1L);
+
+        assertThat(byViews.sortValue(true)).isEqualTo(120);
+        assertThatThrownBy(() -> byTime.sortValue(true))
+                .isInstanceOf(BusinessException.class)
+                .extracting("code").isEqualTo(400);
+        assertThatThrownBy(() -> byViews.sortValue(false))
+                .isInstanceOf(BusinessException.class)
+                .extracting("code").isEqualTo(400);
+    }
+
+    @Test
+    void clampSize() {
+        assertThat(FeedCursor.clampSize(null, 10)).isEqualTo(10);
+        assertThat(FeedCursor.clampSize(0, 10)).isEqualTo(10);
+        assertThat(FeedCursor.clampSize(-5L, 10)).isEqualTo(10);
+        assertThat(FeedCursor.clampSize(20, 10)).isEqualTo(20);
+        assertThat(FeedCursor.clampSize(Long.MAX_VALUE, 10)).isEqualTo(FeedCursor.MAX_PAGE_SIZE);
+    }
+}
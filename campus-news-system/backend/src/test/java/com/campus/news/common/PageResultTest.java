@@ -0,0 +1,84 @@
+package com.campus.news.common;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 分页结果构建：执行 COUNT 时返回总数，跳过 COUNT 时按多取的一条判断是否还有下一页
+ */
+class PageResultTest {
+
+    @Test
+    void countedPageReportsTotal() {
+        Page<Long> page = new Page<>(2, 10);
+        page.setTotal(25);
+        page.setRecords(ids(10));
+
+        PageResult<Long> result = PageResult.of(page);
+
+        assertThat(result.getTotal()).isEqualTo(25);
+        assertThat(result.getRecords()).hasSize(10);
+        assertThat(result.getCurrent()).isEqualTo(2);
+        assertThat(result.getSize()).isEqualTo(10);
+    }
+
+    @Test
+    void lookaheadPageFetchesOneExtraRowAtRequestedOffset() {
+        LookaheadPage<Long> page = new LookaheadPage<>(3, 10);
+
+        assertThat(page.searchCount()).isFalse();
+        assertThat(page.getSize()).isEqualTo(11);
+        assertThat(page.getPageSize()).isEqualTo(10);
+        assertThat(page.offset()).isEqualTo(20);
+        assertThat(page.maxLimit()).isEqualTo(11);
+    }
+
+    @Test
+    void lookaheadPageIsCappedAtMaxPageSize() {
+        LookaheadPage<Long> page = new LookaheadPage<>(1, 1000);
+
+        assertThat(page.getPageSize()).isEqualTo(FeedCursor.MAX_PAGE_SIZE);
+        assertThat(page.getSize()).isEqualTo(FeedCursor.MAX_PAGE_SIZE + 1);
+    }
+
+    @Test
+    void extraRowMeansMoreAndIsTrimmed() {
+        LookaheadPage<Long> page = new LookaheadPage<>(1, 10);
+        page.setRecords(ids(11));
+
+        PageResult<Long> result = PageResult.of(page);
+
+        assertThat(result.getHasMore()).isTrue();
+        assertThat(result.getTotal()).isNull();
+        assertThat(result.getRecords()).hasSize(10).doesNotContain(11L);
+        assertThat(result.getSize()).isEqualTo(10);
+    }
+
+    @Test
+    void exactlyFullLastPageHasNoMore() {
+        LookaheadPage<Long> page = new LookaheadPage<>(2, 10);
+        page.setRecords(ids(10));
+
+        PageResult<Long> result = PageResult.of(page);
+
+        assertThat(result.getHasMore()).isFalse();
+        assertThat(result.getRecords()).hasSize(10);
+    }
+
+    @Test
+    void partialPageHasNoMore() {
+        LookaheadPage<Long> page = new LookaheadPage<>(2, 10);
+        page.setRecords(ids(3));
+
+        assertThat(PageResult.of(page).getHasMore()).isFalse();
+    }
+
+    private static List<Long> ids(int count) {
+        return LongStream.rangeClosed(1, count).boxed().toList();
+    }
+}
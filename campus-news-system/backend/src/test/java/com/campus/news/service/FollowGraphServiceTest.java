@@ -0,0 +1,116 @@
+package com.campus.news.service;
+
+import com.campus.news.entity.UserFollow;
+import com.campus.news.mapper.UserFollowMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 关注关系图：CSR 基础图构建、增量叠加、重建后清理已合入的增量
+ */
+class FollowGraphServiceTest {
+
+    private UserFollowMapper mapper;
+    private FollowGraphService service;
+    private List<UserFollow> edges;
+
+    @BeforeEach
+    void setUp() {
+        mapper = mock(UserFollowMapper.class);
+        edges = new ArrayList<>();
+        when(mapper.selectList(any())).thenAnswer(invocation -> new ArrayList<>(edges));
+        service = new FollowGraphService(mapper);
+    }
+
+    @Test
+    void buildsSortedAdjacencyInBothDirections() {
+        follow(1, 5);
+        follow(1, 3);
+        follow(2, 3);
+        follow(3, 1);
+        service.rebuild();
+
+        assertThat(service.getFollowing(1)).containsExactly(3, 5);
+        assertThat(service.getFollowing(2)).containsExactly(3);
+        assertThat(service.getFollowers(3)).containsExactly(1, 2);
+        assertThat(service.getFollowers(5)).containsExactly(1);
+        assertThat(service.getFollowing(4)).isEmpty();
+        assertThat(service.getMutualFollows(1)).containsExactly(3);
+    }
+
+    @Test
+    void loadsLazilyOnFirstQuery() {
+        follow(1, 2);
+
+        assertThat(service.isFollowing(1, 2)).isTrue();
+    }
+
+    @Test
+    void overlaysTogglesOnTheBaseGraph() {
+        follow(1, 3);
+        follow(1, 5);
+        service.rebuild();
+
+        service.onToggle(1L, 4L, true);
+        service.onToggle(1L, 5L, false);
+
+        assertThat(service.getFollowing(1)).containsExactly(3, 4);
+        assertThat(service.getFollowers(4)).containsExactly(1);
+        assertThat(service.getFollowers(5)).isEmpty();
+    }
+
+    @Test
+    void latestToggleWins() {
+        service.rebuild();
+
+        service.onToggle(1L, 2L, true);
+        service.onToggle(1L, 2L, false);
+        service.onToggle(1L, 2L, true);
+
+        assertThat(service.getFollowing(1)).containsExactly(2);
+    }
+
+    @Test
+    void rebuildDropsDeltasAlreadyInTheDatabase() {
+        service.rebuild();
+        service.onToggle(1L, 2L, true);
+
+        // 新的基础图不含 1 -> 2（例如已被其他节点取消），重建前的增量不再叠加
+        follow(1, 3);
+        service.rebuild();
+
+        assertThat(service.getFollowing(1)).containsExactly(3);
+        assertThat(service.getFollowers(2)).isEmpty();
+    }
+
+    @Test
+    void suggestsFriendsOfFriendsByMutualCount() {
+        follow(1, 2);
+        follow(1, 3);
+        follow(2, 4);
+        follow(3, 4);
+        follow(3, 5);
+        follow(2, 1);
+        service.rebuild();
+
+        List<FollowGraphService.Suggestion> suggestions = service.getPeopleYouMayKnow(1, 10);
+
+        assertThat(suggestions).extracting(FollowGraphService.Suggestion::userId).containsExactly(4L, 5L);
+        assertThat(suggestions.get(0).mutualCount()).isEqualTo(2);
+    }
+
+    private void follow(long followerId, long followingId) {
+        UserFollow edge = new UserFollow();
+        edge.setFollowerId(followerId);
+        edge.setFollowingId(followingId);
+        edges.add(edge);
+    }
+}
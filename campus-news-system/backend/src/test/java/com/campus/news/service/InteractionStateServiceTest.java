@@ -0,0 +1,170 @@
+package com.campus.news.service;
+
+import com.campus.news.mapper.ArticleFavoriteMapper;
+import com.campus.news.mapper.ArticleLikeMapper;
+import com.campus.news.mapper.VideoCommentLikeMapper;
+import com.campus.news.mapper.VideoLikeMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 互动状态缓存：加载与切换的先后顺序，切换在事务提交后才写入
+ */
+class InteractionStateServiceTest {
+
+    private static final Long USER_ID = 3L;
+    private static final String SET_KEY = "interact:article_like:3";
+    private static final String VERSION_KEY = "interact:ver:article_like:3";
+
+    private StringRedisTemplate redis;
+    private ValueOperations<String, String> values;
+    private SetOperations<String, String> sets;
+    private ArticleLikeMapper articleLikeMapper;
+    private InteractionStateService service;
+
+    /**
+     * 一次脚本调用的 KEYS 和 ARGV
+     */
+    private record ScriptCall(List<?> keys, List<Object> args) {
+    }
+
+    private final List<ScriptCall> scriptCalls = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redis = mock(StringRedisTemplate.class);
+        values = mock(ValueOperations.class);
+        sets = mock(SetOperations.class);
+        articleLikeMapper = mock(ArticleLikeMapper.class);
+        when(redis.opsForValue()).thenReturn(values);
+        when(redis.opsForSet()).thenReturn(sets);
+        when(redis.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(invocation -> {
+            Object[] arguments = invocation.getArguments();
+            List<Object> args = new ArrayList<>();
+            for (int i = 2; i < arguments.length; i++) {
+                if (arguments[i] instanceof Object[] array) {
+                    args.addAll(List.of(array));
+                } else {
+                    args.add(arguments[i]);
+                }
+            }
+            scriptCalls.add(new ScriptCall((List<?>) arguments[1], args));
+            return 1L;
+        });
+        service = new InteractionStateService(redis, articleLikeMapper, mock(ArticleFavoriteMapper.class),
+                mock(VideoLikeMapper.class), mock(VideoCommentLikeMapper.class), 24);
+    }
+
+    @Test
+    void cachedSetAnswersWithoutDatabase() {
+        when(sets.isMember(anyString(), any(Object[].class)))
+                .thenReturn(Map.of("-1", true, "10", true, "11", false));
+
+        Set<Long> liked = service.filter(InteractionStateService.Type.ARTICLE_LIKE, USER_ID, List.of(10L, 11L));
+
+        assertThat(liked).containsExactly(10L);
+        verify(articleLikeMapper, never()).selectObjs(any());
+        assertThat(scriptCalls).isEmpty();
+    }
+
+    @Test
+    void loadReadsVersionBeforeQueryingDatabase() {
+        when(sets.isMember(anyString(), any(Object[].class))).thenReturn(Map.of("-1", false));
+        when(values.get(VERSION_KEY)).thenReturn("4");
+        when(articleLikeMapper.selectObjs(any())).thenReturn(List.of(10L, 12L));
+
+        Set<Long> liked = service.filter(InteractionStateService.Type.ARTICLE_LIKE, USER_ID, List.of(10L, 11L));
+
+        assertThat(liked).containsExactly(10L);
+        InOrder order = inOrder(values, articleLikeMapper, redis);
+        order.verify(values).get(VERSION_KEY);
+        order.verify(articleLikeMapper).selectObjs(any());
+        order.verify(redis).execute(any(RedisScript.class), anyList(), any(Object[].class));
+
+        // 写入时带上查询前读到的版本号，脚本据此判断快照是否仍然有效
+        assertThat(scriptCalls).hasSize(1);
+        assertThat(scriptCalls.get(0).keys()).isEqualTo(List.of(SET_KEY, VERSION_KEY));
+        assertThat(scriptCalls.get(0).args()).containsExactly("4", "86400", "-1", "10", "12");
+    }
+
+    @Test
+    void toggleDuringLoadRunsBeforeTheStaleWrite() {
+        when(sets.isMember(anyString(), any(Object[].class))).thenReturn(Map.of("-1", false));
+        when(values.get(VERSION_KEY)).thenReturn(null);
+        // 查询数据库期间另一个请求取消了点赞：快照里仍有 10
+        doAnswer(invocation -> {
+            service.onToggle(InteractionStateService.Type.ARTICLE_LIKE, USER_ID, 10L, false);
+            return List.of(10L);
+        }).when(articleLikeMapper).selectObjs(any());
+
+        service.filter(InteractionStateService.Type.ARTICLE_LIKE, USER_ID, List.of(10L));
+
+        // 切换先递增版本号，随后的加载仍带旧版本号 "0"，由脚本放弃写入
+        assertThat(scriptCalls).hasSize(2);
+        assertThat(scriptCalls.get(0).args()).containsExactly("10", "0", "86400");
+        assertThat(scriptCalls.get(1).args()).startsWith("0");
+    }
+
+    @Test
+    void toggleIsAppliedOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.onToggle(InteractionStateService.Type.ARTICLE_LIKE, USER_ID, 10L, true);
+            assertThat(scriptCalls).isEmpty();
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(scriptCalls).hasSize(1);
+        assertThat(scriptCalls.get(0).keys()).isEqualTo(List.of(SET_KEY, VERSION_KEY));
+        assertThat(scriptCalls.get(0).args()).containsExactly("10", "1", "86400");
+    }
+
+    @Test
+    void failedToggleEvictsTheSet() {
+        when(redis.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new IllegalStateException("redis down"));
+
+        service.onToggle(InteractionStateService.Type.ARTICLE_LIKE, USER_ID, 10L, true);
+
+        verify(redis).delete(SET_KEY);
+    }
+
+    @Test
+    void redisFailureFallsBackToDatabase() {
+        when(sets.isMember(anyString(), any(Object[].class))).thenThrow(new IllegalStateException("redis down"));
+        when(articleLikeMapper.selectObjs(any())).thenReturn(List.of(11L));
+
+        assertThat(service.filter(InteractionStateService.Type.ARTICLE_LIKE, USER_ID, List.of(10L, 11L)))
+                .containsExactly(11L);
+    }
+}
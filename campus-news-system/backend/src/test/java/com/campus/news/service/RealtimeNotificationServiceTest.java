@@ -0,0 +1,161 @@
+package com.campus.news.service;
+
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.campus.news.entity.Notification;
+import com.campus.news.entity.User;
+import com.campus.news.mapper.NotificationMapper;
+import com.campus.news.websocket.NotificationWebSocketHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 通知管道：同一文章的点赞合并为一条通知，后续点赞只累加人数并在关闭时回写
+ */
+class RealtimeNotificationServiceTest {
+
+    private static final Long AUTHOR_ID = 1L;
+    private static final Long ARTICLE_ID = 10L;
+
+    private NotificationWebSocketHandler webSocketHandler;
+    private NotificationMapper notificationMapper;
+    private UserService userService;
+    private UnreadCountService unreadCountService;
+    private final AtomicLong nextId = new AtomicLong(100);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        webSocketHandler = mock(NotificationWebSocketHandler.class);
+        notificationMapper = mock(NotificationMapper.class);
+        userService = mock(UserService.class);
+        unreadCountService = mock(UnreadCountService.class);
+
+        when(userService.getUserInfoMap(any())).thenAnswer(invocation -> {
+            Map<Long, User> users = new HashMap<>();
+            for (Long id : (Collection<Long>) invocation.getArgument(0)) {
+                User user = new User();
+                user.setId(id);
+                user.setRealName("用户" + id);
+                users.put(id, user);
+            }
+            return users;
+        });
+        when(notificationMapper.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<Notification> rows = invocation.getArgument(0);
+            rows.forEach(row -> row.setId(nextId.getAndIncrement()));
+            return rows.size();
+        });
+    }
+
+    @Test
+    void likesInOneBatchCollapseIntoOneRow() throws InterruptedException {
+        RealtimeNotificationService service = newService(200);
+        service.sendLikeNotification(AUTHOR_ID, 2L, ARTICLE_ID, "标题");
+        service.sendLikeNotification(AUTHOR_ID, 3L, ARTICLE_ID, "标题");
+        service.sendLikeNotification(AUTHOR_ID, 4L, ARTICLE_ID, "标题");
+        service.sendLikeNotification(AUTHOR_ID, 4L, ARTICLE_ID, "标题");
+
+        drain(service);
+
+        List<Notification> rows = insertedRows(1).get(0);
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).getAggregateCount()).isEqualTo(3);
+        assertThat(rows.get(0).getContent()).isEqualTo("用户4、用户3 等 3 人 赞了你的文章《标题》");
+        verify(unreadCountService).adjust(AUTHOR_ID, 1L);
+        // 插入时人数已是最终值，关闭时无需回写
+        verify(notificationMapper, never()).update(any(), any());
+        assertThat(service.getStats()).containsEntry("collapsed", 3L);
+    }
+
+    @Test
+    void laterLikesAreFlushedIntoTheExistingRow() throws InterruptedException {
+        RealtimeNotificationService service = newService(1);
+        service.sendLikeNotification(AUTHOR_ID, 2L, ARTICLE_ID, "标题");
+        service.sendLikeNotification(AUTHOR_ID, 3L, ARTICLE_ID, "标题");
+        service.sendLikeNotification(AUTHOR_ID, 4L, ARTICLE_ID, "标题");
+
+        drain(service);
+
+        // 只有第一条点赞插入新行，之后的点赞并入该行
+        List<Notification> rows = insertedRows(1).get(0);
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).getAggregateCount()).isEqualTo(1);
+        verify(unreadCountService).adjust(AUTHOR_ID, 1L);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<UpdateWrapper<Notification>> updates = ArgumentCaptor.forClass(UpdateWrapper.class);
+        verify(notificationMapper, atLeastOnce()).update(isNull(), updates.capture());
+        Map<String, Object> values = updates.getAllValues().get(0).getParamNameValuePairs();
+        assertThat(values).containsValues(4L, 3, "用户4、用户3 等 3 人 赞了你的文章《标题》");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> pushes = ArgumentCaptor.forClass(Map.class);
+        verify(webSocketHandler, atLeastOnce()).sendNotificationToUser(eq(AUTHOR_ID), pushes.capture());
+        Map<String, Object> last = pushes.getValue();
+        assertThat(last).containsEntry("id", 100L).containsEntry("aggregateCount", 3);
+    }
+
+    @Test
+    void commentsAreNotAggregated() throws InterruptedException {
+        RealtimeNotificationService service = newService(200);
+        service.sendCommentNotification(AUTHOR_ID, 2L, ARTICLE_ID, "标题", "第一条");
+        service.sendCommentNotification(AUTHOR_ID, 3L, ARTICLE_ID, "标题", "第二条");
+
+        drain(service);
+
+        List<Notification> rows = insertedRows(1).get(0);
+        assertThat(rows).hasSize(2).allMatch(row -> row.getAggregateCount() == 1);
+        verify(unreadCountService).adjust(AUTHOR_ID, 2L);
+    }
+
+    @Test
+    void selfNotificationsAreDropped() throws InterruptedException {
+        RealtimeNotificationService service = newService(200);
+        service.sendLikeNotification(AUTHOR_ID, AUTHOR_ID, ARTICLE_ID, "标题");
+
+        drain(service);
+
+        verify(notificationMapper, never()).insertBatch(anyList());
+        assertThat(service.getStats()).containsEntry("published", 0L);
+    }
+
+    private RealtimeNotificationService newService(int batchSize) {
+        // 推送不限流、聚合窗口内不定时回写，结果只取决于批次划分
+        return new RealtimeNotificationService(webSocketHandler, notificationMapper, userService,
+                unreadCountService, 100, batchSize, 50, 300, 60_000, 0);
+    }
+
+    /**
+     * 事件先入队再启动后台线程，停止时处理完队列并写回聚合中的通知
+     */
+    private void drain(RealtimeNotificationService service) throws InterruptedException {
+        service.start();
+        service.stop();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Notification>> insertedRows(int batches) {
+        ArgumentCaptor<List<Notification>> captor = ArgumentCaptor.forClass(List.class);
+        verify(notificationMapper, times(batches)).insertBatch(captor.capture());
+        return captor.getAllValues();
+    }
+}
@@ -0,0 +1,71 @@
+package com.campus.news.service;
+
+import com.campus.news.entity.College;
+import com.campus.news.entity.Role;
+import com.campus.news.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 用户资料缓存：返回的是深拷贝，调用方修改角色、学院不会污染 L1 中的实例
+ */
+class UserCacheServiceTest {
+
+    private UserCacheService cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        when(redis.opsForValue()).thenReturn(mock(ValueOperations.class));
+        cache = new UserCacheService(redis, new ObjectMapper().findAndRegisterModules(), 100, 60, 30);
+    }
+
+    @Test
+    void callersCannotCorruptTheCachedInstance() {
+        User first = cache.get(1L, this::load);
+        first.getRoles().get(0).setRoleName("ADMIN");
+        first.getRoles().add(role("EDITOR"));
+        first.getCollege().setName("改过的学院");
+        first.setRealName("改过的名字");
+
+        User second = cache.get(1L, this::load);
+
+        assertThat(loads).hasValue(1);
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getRoles()).extracting(Role::getRoleName).containsExactly("USER");
+        assertThat(second.getCollege().getName()).isEqualTo("计算机学院");
+        assertThat(second.getRealName()).isEqualTo("张三");
+    }
+
+    private User load(Long userId) {
+        loads.incrementAndGet();
+        College college = new College();
+        college.setId(3L);
+        college.setName("计算机学院");
+        User user = new User();
+        user.setId(userId);
+        user.setRealName("张三");
+        user.setRoles(new ArrayList<>(List.of(role("USER"))));
+        user.setCollege(college);
+        return user;
+    }
+
+    private static Role role(String name) {
+        Role role = new Role();
+        role.setRoleName(name);
+        return role;
+    }
+}
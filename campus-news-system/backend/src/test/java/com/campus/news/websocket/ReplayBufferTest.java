@@ -0,0 +1,125 @@
+package com.campus.news.websocket;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 重连补发：按最后收到的序号取出缺失消息，缓冲已截断或序号重置时标记 gap
+ */
+class ReplayBufferTest {
+
+    private static final Long USER_ID = 7L;
+
+    private StringRedisTemplate redis;
+    private ValueOperations<String, String> values;
+    private ZSetOperations<String, String> zSet;
+    private ReplayBuffer buffer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redis = mock(StringRedisTemplate.class);
+        values = mock(ValueOperations.class);
+        zSet = mock(ZSetOperations.class);
+        when(redis.opsForValue()).thenReturn(values);
+        when(redis.opsForZSet()).thenReturn(zSet);
+        buffer = new ReplayBuffer(redis, 100, 24);
+    }
+
+    @Test
+    void firstConnectOnlyReturnsCurrentSeq() {
+        when(values.get("ws:seq:7")).thenReturn("12");
+
+        ReplayBuffer.Replay replay = buffer.since(USER_ID, null);
+
+        assertThat(replay.payloads()).isEmpty();
+        assertThat(replay.currentSeq()).isEqualTo(12);
+        assertThat(replay.gap()).isFalse();
+    }
+
+    @Test
+    void upToDateClientHasNothingToReplay() {
+        when(values.get("ws:seq:7")).thenReturn("12");
+
+        ReplayBuffer.Replay replay = buffer.since(USER_ID, 12L);
+
+        assertThat(replay.payloads()).isEmpty();
+        assertThat(replay.gap()).isFalse();
+    }
+
+    @Test
+    void contiguousMissedMessagesAreReplayedWithoutGap() {
+        when(values.get("ws:seq:7")).thenReturn("12");
+        when(zSet.rangeByScoreWithScores("ws:replay:7", 11, Double.POSITIVE_INFINITY))
+                .thenReturn(entries(11, 12));
+
+        ReplayBuffer.Replay replay = buffer.since(USER_ID, 10L);
+
+        assertThat(replay.payloads()).containsExactly("{\"seq\":11}", "{\"seq\":12}");
+        assertThat(replay.currentSeq()).isEqualTo(12);
+        assertThat(replay.gap()).isFalse();
+    }
+
+    @Test
+    void truncatedBufferIsReportedAsGap() {
+        when(values.get("ws:seq:7")).thenReturn("12");
+        when(zSet.rangeByScoreWithScores("ws:replay:7", 6, Double.POSITIVE_INFINITY))
+                .thenReturn(entries(9, 10, 11, 12));
+
+        ReplayBuffer.Replay replay = buffer.since(USER_ID, 5L);
+
+        assertThat(replay.payloads()).hasSize(4);
+        assertThat(replay.gap()).isTrue();
+    }
+
+    @Test
+    void expiredBufferIsReportedAsGap() {
+        when(values.get("ws:seq:7")).thenReturn("12");
+        when(zSet.rangeByScoreWithScores(eq("ws:replay:7"), anyDouble(), anyDouble()))
+                .thenReturn(new LinkedHashSet<>());
+
+        ReplayBuffer.Replay replay = buffer.since(USER_ID, 5L);
+
+        assertThat(replay.payloads()).isEmpty();
+        assertThat(replay.gap()).isTrue();
+    }
+
+    @Test
+    void seqAheadOfServerMeansCounterWasReset() {
+        when(values.get("ws:seq:7")).thenReturn(null);
+
+        ReplayBuffer.Replay replay = buffer.since(USER_ID, 30L);
+
+        assertThat(replay.currentSeq()).isZero();
+        assertThat(replay.gap()).isTrue();
+    }
+
+    @Test
+    void redisFailureForcesResyncOnlyForReconnects() {
+        when(values.get(anyString())).thenThrow(new IllegalStateException("redis down"));
+
+        assertThat(buffer.since(USER_ID, 5L).gap()).isTrue();
+        assertThat(buffer.since(USER_ID, null).gap()).isFalse();
+    }
+
+    private static Set<ZSetOperations.TypedTuple<String>> entries(long... seqs) {
+        Set<ZSetOperations.TypedTuple<String>> entries = new LinkedHashSet<>();
+        for (long seq : seqs) {
+            entries.add(ZSetOperations.TypedTuple.of("{\"seq\":" + seq + "}", (double) seq));
+        }
+        return entries;
+    }
+}
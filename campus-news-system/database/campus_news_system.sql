@@ -92,12 +92,15 @@ CREATE TABLE `article` (
     `view_count` INT DEFAULT 0 COMMENT '浏览量',
     `like_count` INT DEFAULT 0 COMMENT '点赞数',
     `comment_count` INT DEFAULT 0 COMMENT '评论数',
+    `hot_comment_id` BIGINT COMMENT '最火评论ID',
     `is_pinned` TINYINT DEFAULT 0 COMMENT '是否置顶: 0-否 1-是',
     `is_approved` TINYINT DEFAULT 0 COMMENT '审核状态: 0-待审核 1-已通过 2-已拒绝',
+    `published_at` DATETIME COMMENT '审核通过时间',
     `status` TINYINT DEFAULT 1 COMMENT '状态: 0-已删除 1-正常',
     `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP,
     `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     INDEX `idx_author` (`author_id`),
+    INDEX `idx_author_published` (`author_id`, `published_at`),
     INDEX `idx_board_type` (`board_type`),
     INDEX `idx_college` (`college_id`),
     INDEX `idx_created_at` (`created_at`),
@@ -121,6 +124,7 @@ CREATE TABLE `comment` (
     `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP,
     `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     INDEX `idx_article` (`article_id`),
+    INDEX `idx_article_like` (`article_id`, `like_count`),
     INDEX `idx_user` (`user_id`),
     INDEX `idx_parent` (`parent_id`),
     INDEX `idx_root` (`root_id`),
@@ -167,9 +171,11 @@ CREATE TABLE `notification` (
     `comment_id` BIGINT COMMENT '相关评论ID',
     `content` VARCHAR(500) NOT NULL COMMENT '通知内容',
     `is_read` TINYINT NOT NULL DEFAULT 0 COMMENT '是否已读: 0-未读 1-已读',
+    `aggregate_count` INT NOT NULL DEFAULT 1 COMMENT '合并的触发人数（点赞/收藏/关注聚合）',
     `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP,
     INDEX `idx_user_id` (`user_id`),
     INDEX `idx_is_read` (`is_read`),
+    INDEX `idx_user_read` (`user_id`, `is_read`),
     FOREIGN KEY (`user_id`) REFERENCES `user`(`id`) ON DELETE CASCADE,
     FOREIGN KEY (`from_user_id`) REFERENCES `user`(`id`) ON DELETE SET NULL,
     FOREIGN KEY (`article_id`) REFERENCES `article`(`id`) ON DELETE SET NULL
@@ -8,6 +8,14 @@ export const getArticleList = (params) => {
   })
 }
 
+export const getArticleFeed = (params) => {
+  return request({
+    url: '/article/feed',
+    method: 'get',
+    params
+  })
+}
+
 export const getArticleDetail = (id) => {
   return request({
     url: `/article/detail/${id}`,
@@ -8,6 +8,22 @@ export const getCommentList = (articleId) => {
   })
 }
 
+export const getCommentPage = (articleId, params) => {
+  return request({
+    url: '/comment/page',
+    method: 'get',
+    params: { articleId, ...params }
+  })
+}
+
+export const getCommentReplies = (rootId, params) => {
+  return request({
+    url: `/comment/replies/${rootId}`,
+    method: 'get',
+    params
+  })
+}
+
 export const createComment = (data) => {
   return request({
     url: '/comment/create',
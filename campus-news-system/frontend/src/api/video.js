@@ -9,6 +9,15 @@ export function getVideoList(params) {
   })
 }
 
+// 获取视频信息流（游标分页，传入上一页返回的 nextCursor）
+export function getVideoFeed(params) {
+  return request({
+    url: '/video/feed',
+    method: 'get',
+    params
+  })
+}
+
 // 获取视频详情
 export function getVideoDetail(id) {
   return request({
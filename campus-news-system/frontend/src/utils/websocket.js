@@ -11,6 +11,11 @@ class NotificationWebSocket {
     this.reconnectDelay = 3000
     this.heartbeatInterval = null
     this.listeners = new Map()
+    this.lastSeq = null // 连续收到的最大推送序号（不含缺口），重连或补发时据此请求
+    this.seenSeqs = new Set() // 大于 lastSeq 的已收序号：多节点转发时消息可能乱序到达
+    this.gapTimer = null
+    this.gapWaitMs = 2000 // 缺口等待这么久仍未补齐则请求服务端补发
+    this.topics = new Set() // 已订阅的主题，重连后重新订阅
   }
 
   /**
@@ -30,7 +35,10 @@ class NotificationWebSocket {
     // 自动判断API路径前缀
     // - 开发环境(Vite代理): 通过 /api 代理到后端
     // - 生产环境(Nginx): 同样通过 /api 代理到后端
-    const wsUrl = `${protocol}//${host}/api/ws/notification?token=${token}`
+    let wsUrl = `${protocol}//${host}/api/ws/notification?token=${token}`
+    if (this.lastSeq !== null) {
+      wsUrl += `&lastSeq=${this.lastSeq}`
+    }
     
     console.log('🔌 尝试连接WebSocket:', wsUrl)
 
@@ -41,6 +49,7 @@ class NotificationWebSocket {
         console.log('🔗 WebSocket连接成功')
         this.reconnectAttempts = 0
         this.startHeartbeat()
+        this.topics.forEach(topic => this.send({ action: 'subscribe', topic }))
         this.emit('connected')
       }
 
@@ -49,6 +58,27 @@ class NotificationWebSocket {
           const data = JSON.parse(event.data)
           console.log('📨 收到WebSocket消息:', data)
           
+          if (data.type === 'CONNECTED') {
+            // 首次连接或缺失消息已超出服务端缓存时以服务端序号为准，缺口由使用方整体刷新
+            if (this.lastSeq === null || data.gap) {
+              this.resetSeq(data.seq)
+            }
+            if (data.gap) {
+              this.emit('resync', data)
+            }
+          } else if (data.type === 'REPLAY') {
+            if (data.gap) {
+              this.resetSeq(data.seq)
+              this.emit('resync', data)
+              return
+            }
+            // 缺失的消息一次补发，去重后作为一个事件交给使用方
+            data.messages = (data.messages || []).filter(item => this.acceptSeq(item))
+            if (data.messages.length === 0) return
+          } else if (!this.acceptSeq(data)) {
+            return
+          }
+          
           // 触发对应类型的事件
           if (data.type) {
             this.emit(data.type, data)
@@ -63,6 +93,7 @@ class NotificationWebSocket {
       this.ws.onclose = (event) => {
         console.log('🔌 WebSocket连接关闭:', event.code, event.reason)
         this.stopHeartbeat()
+        this.clearGapTimer() // 重连时按 lastSeq 补发
         this.emit('disconnected')
         
         // 尝试重连
@@ -83,6 +114,54 @@ class NotificationWebSocket {
     }
   }
 
+  /**
+   * 记录消息序号，已收到过的（补发与实时推送重叠时）返回 false
+   */
+  acceptSeq(data) {
+    if (typeof data.seq !== 'number') return true
+    if (this.lastSeq === null) {
+      this.lastSeq = data.seq
+      return true
+    }
+    if (data.seq <= this.lastSeq || this.seenSeqs.has(data.seq)) return false
+    this.seenSeqs.add(data.seq)
+    while (this.seenSeqs.delete(this.lastSeq + 1)) {
+      this.lastSeq++
+    }
+    this.checkGap()
+    return true
+  }
+
+  /**
+   * 存在缺口时等待一段时间（乱序的消息通常很快到达），仍未补齐则请求服务端补发 lastSeq 之后的消息
+   */
+  checkGap() {
+    if (this.seenSeqs.size === 0) {
+      this.clearGapTimer()
+      return
+    }
+    if (this.gapTimer) return
+    this.gapTimer = setTimeout(() => {
+      this.gapTimer = null
+      if (this.seenSeqs.size > 0) {
+        this.send({ action: 'replay', lastSeq: this.lastSeq })
+      }
+    }, this.gapWaitMs)
+  }
+
+  clearGapTimer() {
+    if (this.gapTimer) {
+      clearTimeout(this.gapTimer)
+      this.gapTimer = null
+    }
+  }
+
+  resetSeq(seq) {
+    this.lastSeq = seq ?? null
+    this.seenSeqs.clear()
+    this.clearGapTimer()
+  }
+
   /**
    * 断开连接
    */
@@ -93,6 +172,8 @@ class NotificationWebSocket {
       this.ws = null
     }
     this.reconnectAttempts = this.maxReconnectAttempts // 阻止重连
+    this.resetSeq(null)
+    this.topics.clear()
   }
 
   /**
@@ -104,6 +185,23 @@ class NotificationWebSocket {
     }
   }
 
+  /**
+   * 订阅主题（article:{id}、video:{id}），服务端合并后推送 TOPIC 消息
+   */
+  subscribe(topic) {
+    if (this.topics.has(topic)) return
+    this.topics.add(topic)
+    this.send({ action: 'subscribe', topic })
+  }
+
+  /**
+   * 取消订阅主题
+   */
+  unsubscribe(topic) {
+    if (!this.topics.delete(topic)) return
+    this.send({ action: 'unsubscribe', topic })
+  }
+
   /**
    * 启动心跳
    */
@@ -125,7 +223,7 @@ class NotificationWebSocket {
 
   /**
    * 注册事件监听器
-   * @param {string} event - 事件类型: LIKE, COMMENT, FOLLOW, FAVORITE, SYSTEM, message, connected, disconnected
+   * @param {string} event - 事件类型: LIKE, COMMENT, REPLY, MENTION, FOLLOW, FAVORITE, DIGEST, SYSTEM, UNREAD_COUNT, REPLAY, TOPIC, message, connected, disconnected, resync
    * @param {Function} callback - 回调函数
    */
   on(event, callback) {